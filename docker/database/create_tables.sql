@@ -12,7 +12,8 @@ CREATE TABLE users (
     password_hash VARCHAR(255) NOT NULL,
     full_name VARCHAR(120),
     role user_role NOT NULL,
-    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
 );
 
 
@@ -26,55 +27,310 @@ CREATE TABLE products (
     quantity INTEGER NOT NULL DEFAULT 0 CHECK (quantity >= 0),
     min_stock INTEGER NOT NULL DEFAULT 0 CHECK (min_stock >= 0),
     created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
 	category category NOT NULL
 );
 
 
 -- SALES
+-- Range partitioned by store-local month; sale_items carries its sale's created_at as sale_created_at so a sale and
+-- its lines land in the same month. Keys include the partition column, which Postgres requires of partitioned tables.
 
 CREATE TABLE sales (
-    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    id BIGINT GENERATED ALWAYS AS IDENTITY,
 	total_price NUMERIC(12,2) NOT NULL CHECK (total_price >= 0),
-    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
-);
+    journal_id UUID,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, created_at),
+    UNIQUE (journal_id, created_at)
+) PARTITION BY RANGE (created_at);
 
 
 -- SALE ITEMS
 
 CREATE TABLE sale_items (
-    id BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
+    id BIGINT GENERATED ALWAYS AS IDENTITY,
     sale_id BIGINT NOT NULL,
+    sale_created_at TIMESTAMPTZ NOT NULL,
     product_id BIGINT NOT NULL,
     quantity INTEGER NOT NULL CHECK (quantity > 0),
     unit_price NUMERIC(10,2) NOT NULL CHECK (unit_price >= 0),
     line_total NUMERIC(12,2) GENERATED ALWAYS AS (quantity * unit_price) STORED,
-    FOREIGN KEY (sale_id) REFERENCES sales(id) ON DELETE CASCADE,
+    PRIMARY KEY (id, sale_created_at),
+    FOREIGN KEY (sale_id, sale_created_at) REFERENCES sales(id, created_at) ON UPDATE CASCADE ON DELETE CASCADE,
     FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE RESTRICT
+) PARTITION BY RANGE (sale_created_at);
+
+-- ROW VERSIONS
+-- updated_at is the version marker clients diff against; clock_timestamp() keeps it distinct within a transaction.
+
+CREATE FUNCTION touch_updated_at() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at := clock_timestamp();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_products_touch BEFORE UPDATE ON products
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+CREATE TRIGGER trg_users_touch BEFORE UPDATE ON users
+    FOR EACH ROW EXECUTE FUNCTION touch_updated_at();
+
+-- CHANGE NOTIFICATIONS
+-- Publishes "<table>:<I|U|D>:<id>" on stockapp_changes; identical payloads in one transaction are folded by Postgres.
+-- Triggers on partitioned tables pass the table name, since TG_TABLE_NAME is the partition the row lives in.
+
+CREATE FUNCTION notify_change() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('stockapp_changes',
+        COALESCE(TG_ARGV[0], TG_TABLE_NAME) || ':' || left(TG_OP, 1) || ':' || CASE WHEN TG_OP = 'DELETE' THEN OLD.id ELSE NEW.id END);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_products_notify AFTER INSERT OR UPDATE OR DELETE ON products
+    FOR EACH ROW EXECUTE FUNCTION notify_change();
+CREATE TRIGGER trg_users_notify AFTER INSERT OR UPDATE OR DELETE ON users
+    FOR EACH ROW EXECUTE FUNCTION notify_change();
+CREATE TRIGGER trg_sales_notify AFTER INSERT OR UPDATE OR DELETE ON sales
+    FOR EACH ROW EXECUTE FUNCTION notify_change('sales');
+
+-- INVENTORY COUNTERS
+-- Kept current by statement-level triggers in the writing transaction, so reading them is a 16-row sum. Each
+-- backend adds its deltas to its own slot, which keeps concurrent sales from queueing on a single row lock.
+
+CREATE TABLE inventory_counters (
+    slot SMALLINT PRIMARY KEY,
+    total_products BIGINT NOT NULL DEFAULT 0,
+    low_stock BIGINT NOT NULL DEFAULT 0,
+    in_stock BIGINT NOT NULL DEFAULT 0,
+    out_of_stock BIGINT NOT NULL DEFAULT 0,
+    stock_value NUMERIC(16,2) NOT NULL DEFAULT 0
 );
 
--- MATERIALIZED VIEWS
-
-CREATE MATERIALIZED VIEW mv_product_stats AS
-SELECT
-    COUNT(*) as total_products,
-    COUNT(*) FILTER (WHERE quantity <= min_stock) as low_stock,
-    COUNT(*) FILTER (WHERE quantity > 0) as in_stock,
-    COUNT(*) FILTER (WHERE quantity = 0) as out_of_stock
-FROM products;
-
-CREATE MATERIALIZED VIEW mv_sales_stats AS
-SELECT
-    DATE(s.created_at) as sale_date,
-    COUNT(s.id) as total_sales_count,
-    COALESCE(SUM(s.total_price), 0) as total_revenue,
-    COALESCE(SUM(si.quantity), 0) as total_items_sold
-FROM sales s
-LEFT JOIN sale_items si ON s.id = si.sale_id
-GROUP BY DATE(s.created_at);
+INSERT INTO inventory_counters (slot) SELECT generate_series(0, 15);
+
+UPDATE inventory_counters c
+SET total_products = p.total, low_stock = p.low, in_stock = p.in_stock, out_of_stock = p.out_of_stock,
+    stock_value = p.value
+FROM (SELECT COUNT(*) AS total,
+             COUNT(*) FILTER (WHERE quantity <= min_stock) AS low,
+             COUNT(*) FILTER (WHERE quantity > 0) AS in_stock,
+             COUNT(*) FILTER (WHERE quantity = 0) AS out_of_stock,
+             COALESCE(SUM(quantity * price), 0) AS value
+      FROM products) p
+WHERE c.slot = 0;
+
+CREATE FUNCTION count_inventory() RETURNS trigger AS $$
+DECLARE
+    changed TEXT := CASE TG_OP
+        WHEN 'INSERT' THEN 'SELECT 1 AS sign, * FROM new_rows'
+        WHEN 'DELETE' THEN 'SELECT -1 AS sign, * FROM old_rows'
+        ELSE 'SELECT 1 AS sign, * FROM new_rows UNION ALL SELECT -1, * FROM old_rows'
+    END;
+    d RECORD;
+BEGIN
+    EXECUTE 'SELECT COALESCE(SUM(sign), 0) AS total,
+                    COALESCE(SUM(sign) FILTER (WHERE quantity <= min_stock), 0) AS low,
+                    COALESCE(SUM(sign) FILTER (WHERE quantity > 0), 0) AS in_stock,
+                    COALESCE(SUM(sign) FILTER (WHERE quantity = 0), 0) AS out_of_stock,
+                    COALESCE(SUM(sign * quantity * price), 0) AS value
+             FROM (' || changed || ') r' INTO d;
+    IF d.total <> 0 OR d.low <> 0 OR d.in_stock <> 0 OR d.out_of_stock <> 0 OR d.value <> 0 THEN
+        UPDATE inventory_counters
+        SET total_products = total_products + d.total,
+            low_stock = low_stock + d.low,
+            in_stock = in_stock + d.in_stock,
+            out_of_stock = out_of_stock + d.out_of_stock,
+            stock_value = stock_value + d.value
+        WHERE slot = pg_backend_pid() % 16;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_products_count_insert AFTER INSERT ON products
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION count_inventory();
+CREATE TRIGGER trg_products_count_update AFTER UPDATE ON products
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION count_inventory();
+CREATE TRIGGER trg_products_count_delete AFTER DELETE ON products
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION count_inventory();
+
+CREATE FUNCTION reset_inventory_counters() RETURNS trigger AS $$
+BEGIN
+    UPDATE inventory_counters
+    SET total_products = 0, low_stock = 0, in_stock = 0, out_of_stock = 0, stock_value = 0;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_products_count_truncate AFTER TRUNCATE ON products
+    FOR EACH STATEMENT EXECUTE FUNCTION reset_inventory_counters();
+
+-- SALES ROLLUPS
+-- Hour, day and month buckets per product, maintained by triggers in the transaction that writes the sale. Row
+-- product_id = 0 of each bucket holds whole-sale totals: sales_count counts sales and revenue sums total_price,
+-- while on product rows sales_count counts sale lines and revenue sums line totals. Buckets are local time in
+-- store_zone(); set it with ALTER DATABASE ... SET stockapp.store_zone = '<zone>' before taking sales.
+
+CREATE TYPE rollup_grain AS ENUM ('HOUR', 'DAY', 'MONTH');
+
+CREATE FUNCTION store_zone() RETURNS text AS $$
+    SELECT COALESCE(NULLIF(current_setting('stockapp.store_zone', true), ''), 'UTC')
+$$ LANGUAGE sql STABLE;
+
+CREATE TABLE sales_rollups (
+    grain rollup_grain NOT NULL,
+    bucket TIMESTAMP NOT NULL,
+    product_id BIGINT NOT NULL,
+    category category,
+    sales_count BIGINT NOT NULL DEFAULT 0,
+    items_sold BIGINT NOT NULL DEFAULT 0,
+    revenue NUMERIC(14,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (grain, bucket, product_id)
+);
+
+-- Items are bucketed by their own sale_created_at, which the foreign key keeps equal to the sale's created_at.
+CREATE FUNCTION roll_up_sale_items() RETURNS trigger AS $$
+DECLARE
+    changed TEXT := CASE TG_OP
+        WHEN 'INSERT' THEN 'SELECT 1 AS sign, * FROM new_rows'
+        WHEN 'DELETE' THEN 'SELECT -1 AS sign, * FROM old_rows'
+        ELSE 'SELECT 1 AS sign, * FROM new_rows UNION ALL SELECT -1, * FROM old_rows'
+    END;
+BEGIN
+    EXECUTE 'INSERT INTO sales_rollups AS r (grain, bucket, product_id, category, sales_count, items_sold, revenue)
+             SELECT g.grain, date_trunc(lower(g.grain::text), x.sale_created_at AT TIME ZONE store_zone()),
+                    x.product_id, x.category, SUM(x.lines), SUM(x.items), SUM(x.revenue)
+             FROM (SELECT i.sale_created_at, i.product_id, p.category, i.sign AS lines, i.sign * i.quantity AS items,
+                          i.sign * i.line_total AS revenue
+                   FROM (' || changed || ') i JOIN products p ON p.id = i.product_id
+                   UNION ALL
+                   SELECT i.sale_created_at, 0, NULL, 0, i.sign * i.quantity, 0
+                   FROM (' || changed || ') i) x
+             CROSS JOIN unnest(enum_range(NULL::rollup_grain)) AS g(grain)
+             GROUP BY 1, 2, 3, 4
+             ON CONFLICT (grain, bucket, product_id) DO UPDATE
+             SET sales_count = r.sales_count + EXCLUDED.sales_count,
+                 items_sold = r.items_sold + EXCLUDED.items_sold,
+                 revenue = r.revenue + EXCLUDED.revenue';
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION roll_up_sales() RETURNS trigger AS $$
+DECLARE
+    changed TEXT := CASE TG_OP
+        WHEN 'INSERT' THEN 'SELECT 1 AS sign, * FROM new_rows'
+        WHEN 'DELETE' THEN 'SELECT -1 AS sign, * FROM old_rows'
+        ELSE 'SELECT 1 AS sign, * FROM new_rows UNION ALL SELECT -1, * FROM old_rows'
+    END;
+BEGIN
+    EXECUTE 'INSERT INTO sales_rollups AS r (grain, bucket, product_id, sales_count, revenue)
+             SELECT g.grain, date_trunc(lower(g.grain::text), x.created_at AT TIME ZONE store_zone()), 0,
+                    SUM(x.sign), SUM(x.sign * x.total_price)
+             FROM (' || changed || ') x
+             CROSS JOIN unnest(enum_range(NULL::rollup_grain)) AS g(grain)
+             GROUP BY 1, 2
+             HAVING SUM(x.sign) <> 0 OR SUM(x.sign * x.total_price) <> 0
+             ON CONFLICT (grain, bucket, product_id) DO UPDATE
+             SET sales_count = r.sales_count + EXCLUDED.sales_count,
+                 revenue = r.revenue + EXCLUDED.revenue';
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_sale_items_rollup_insert AFTER INSERT ON sale_items
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION roll_up_sale_items();
+CREATE TRIGGER trg_sale_items_rollup_update AFTER UPDATE ON sale_items
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION roll_up_sale_items();
+CREATE TRIGGER trg_sale_items_rollup_delete AFTER DELETE ON sale_items
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION roll_up_sale_items();
+CREATE TRIGGER trg_sales_rollup_insert AFTER INSERT ON sales
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION roll_up_sales();
+CREATE TRIGGER trg_sales_rollup_update AFTER UPDATE ON sales
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION roll_up_sales();
+CREATE TRIGGER trg_sales_rollup_delete AFTER DELETE ON sales
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION roll_up_sales();
+
+-- PARTITIONS
+-- One partition of sales and one of sale_items per store-local month, named <table>_yYYYYmMM. Sales can only be
+-- written into months that have partitions, so the application keeps a few months ahead created through
+-- create_sales_partitions. detach_sales_partitions takes months older than a cutoff out of both tables (and drops
+-- them if asked); the rollups keep their totals.
+
+CREATE FUNCTION create_sales_partitions(from_ts TIMESTAMPTZ, through_ts TIMESTAMPTZ) RETURNS INTEGER AS $$
+DECLARE
+    month TIMESTAMP := date_trunc('month', from_ts AT TIME ZONE store_zone());
+    suffix TEXT;
+    created INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('sales_partitions'));
+    WHILE month AT TIME ZONE store_zone() <= through_ts LOOP
+        suffix := to_char(month, '"y"YYYY"m"MM');
+        IF to_regclass('sales_' || suffix) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF sales FOR VALUES FROM (%L) TO (%L)', 'sales_' || suffix,
+                month AT TIME ZONE store_zone(), (month + interval '1 month') AT TIME ZONE store_zone());
+            EXECUTE format('CREATE TABLE %I PARTITION OF sale_items FOR VALUES FROM (%L) TO (%L)',
+                'sale_items_' || suffix,
+                month AT TIME ZONE store_zone(), (month + interval '1 month') AT TIME ZONE store_zone());
+            created := created + 1;
+        END IF;
+        month := month + interval '1 month';
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Detaching takes an exclusive lock on both parents for a moment, so run it outside busy hours.
+CREATE FUNCTION detach_sales_partitions(before_ts TIMESTAMPTZ, drop_detached BOOLEAN) RETURNS INTEGER AS $$
+DECLARE
+    cutoff TEXT := to_char(date_trunc('month', before_ts AT TIME ZONE store_zone()), '"y"YYYY"m"MM');
+    suffix TEXT;
+    fk TEXT;
+    detached INTEGER := 0;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('sales_partitions'));
+    FOR suffix IN
+        SELECT right(c.relname, 8) FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'sales'::regclass AND right(c.relname, 8) < cutoff
+        ORDER BY 1
+    LOOP
+        -- A detached items partition keeps its own copy of the foreign key to sales, which would still point at
+        -- the month about to leave; drop it (or the whole table) before the sales partition goes.
+        IF to_regclass('sale_items_' || suffix) IS NOT NULL THEN
+            EXECUTE format('ALTER TABLE sale_items DETACH PARTITION %I', 'sale_items_' || suffix);
+            IF drop_detached THEN
+                EXECUTE format('DROP TABLE %I', 'sale_items_' || suffix);
+            ELSE
+                FOR fk IN
+                    SELECT conname FROM pg_constraint
+                    WHERE conrelid = to_regclass('sale_items_' || suffix) AND contype = 'f'
+                        AND confrelid = 'sales'::regclass
+                LOOP
+                    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', 'sale_items_' || suffix, fk);
+                END LOOP;
+            END IF;
+        END IF;
+        EXECUTE format('ALTER TABLE sales DETACH PARTITION %I', 'sales_' || suffix);
+        IF drop_detached THEN
+            EXECUTE format('DROP TABLE %I', 'sales_' || suffix);
+        END IF;
+        detached := detached + 1;
+    END LOOP;
+    RETURN detached;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT create_sales_partitions(now() - interval '1 month', now() + interval '3 months');
 
 -- INDEXES
 
-CREATE INDEX idx_products_name ON products(name);
+CREATE INDEX idx_products_name_id ON products(name, id);
+CREATE INDEX idx_products_price_id ON products(price, id);
+CREATE INDEX idx_products_quantity_id ON products(quantity, id);
+CREATE INDEX idx_products_category_id ON products(category, id);
+CREATE INDEX idx_products_needs_restock ON products(id) WHERE quantity <= min_stock;
 CREATE INDEX idx_sales_created_at ON sales(created_at);
 CREATE INDEX idx_sale_items_product_id ON sale_items(product_id);
-CREATE INDEX idx_mv_sales_date ON mv_sales_stats(sale_date);
+CREATE INDEX idx_sale_items_sale_id ON sale_items(sale_id, sale_created_at);
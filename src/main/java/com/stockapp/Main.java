@@ -1,5 +1,7 @@
 package com.stockapp;
 
+import com.stockapp.services.impl.SaleServiceImpl;
+import com.stockapp.services.impl.SalesPartitions;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -10,6 +12,8 @@ import javafx.stage.StageStyle;
 public class Main extends Application {
 	@Override
 	public void start(Stage primaryStage) throws Exception {
+		SalesPartitions.start();
+		SaleServiceImpl.startJournal();
 		Parent root = FXMLLoader.load(getClass().getResource("/fxml/Login.fxml"));
 		primaryStage.initStyle(StageStyle.DECORATED);
 		primaryStage.setScene(new Scene(root, 500, 400));
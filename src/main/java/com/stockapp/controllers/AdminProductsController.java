@@ -1,17 +1,25 @@
 package com.stockapp.controllers;
 
+import com.stockapp.models.dto.ChangeEvent;
 import com.stockapp.models.entities.Product;
 import com.stockapp.models.entities.User;
+import com.stockapp.models.enums.ProductSortColumn;
+import com.stockapp.models.enums.SortDirection;
 import com.stockapp.services.impl.ProductServiceImpl;
 import com.stockapp.services.interfaces.ProductService;
+import com.stockapp.utils.BackgroundExecutor;
+import com.stockapp.utils.ChangeFeed;
+import com.stockapp.utils.DatabaseUtils;
+import com.stockapp.utils.PagedObservableList;
+import com.stockapp.utils.ViewLoader;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.EnumSet;
 import java.util.List;
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -47,8 +55,27 @@ public class AdminProductsController {
 	@FXML
 	private Button usersButton;
 	private User loggedUser;
-	private final Timeline refreshTimeline = new Timeline(new KeyFrame(Duration.ZERO, e -> refreshProducts()),
-			new KeyFrame(Duration.seconds(2), e -> refreshProducts()));
+	private static final int PAGE_SIZE = 100;
+
+	private final ProductService productService = new ProductServiceImpl();
+	private final PagedObservableList<Product> products = new PagedObservableList<>(PAGE_SIZE,
+			BackgroundExecutor.executor(), Platform::runLater, Product::getId, Product::getUpdatedAt);
+	private final ViewLoader productLoader = ViewLoader
+			.onFxThread(e -> System.err.println("Warning: Could not load products: " + e.getMessage()));
+	// Separate from productLoader so a feed or poll refresh can't supersede a new sort or filter that is loading.
+	private final ViewLoader windowLoader = ViewLoader
+			.onFxThread(e -> System.err.println("Warning: Could not refresh products: " + e.getMessage()));
+	private PagedObservableList.PageLoader<Product> pageLoader;
+	private boolean refreshAfterLoad;
+	private ProductSortColumn sortColumn = ProductSortColumn.ID;
+	private SortDirection sortDirection = SortDirection.ASC;
+	private final Timeline refreshTimeline = new Timeline(new KeyFrame(
+			Duration.millis(DatabaseUtils.config().getInt("changefeed.fallbackPollMs")), e -> {
+				if (!ChangeFeed.isLive()) {
+					refreshProducts();
+				}
+			}));
+	private ChangeFeed.Subscription changes;
 
 	public void setLoggedUser(String username) {
 		userNameLabel.setText("Hi, " + username);
@@ -61,6 +88,12 @@ public class AdminProductsController {
 		priceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
 		quantityColumn.setCellValueFactory(new PropertyValueFactory<>("quantity"));
 		categoryColumn.setCellValueFactory(new PropertyValueFactory<>("category"));
+		productsTable.setSortPolicy(table -> {
+			applySort(table.getSortOrder());
+			return true;
+		});
+		productsTable.setItems(products);
+		loadProducts();
 
 		addButton.setOnAction(e -> openProductForm(0));
 		modifyButton.setOnAction(e -> {
@@ -77,12 +110,24 @@ public class AdminProductsController {
 				showAlert("Select a product to delete.");
 				return;
 			}
-			ProductService productService = new ProductServiceImpl();
-			productService.delete(selected.getId());
-			refreshProducts();
+			deleteButton.setDisable(true);
+			BackgroundExecutor.submit(() -> {
+				productService.delete(selected.getId());
+				return null;
+			}).whenCompleteAsync((ignored, error) -> {
+				deleteButton.setDisable(false);
+				if (error != null) {
+					showAlert("Error deleting product: " + BackgroundExecutor.unwrap(error).getMessage());
+				}
+				refreshProducts();
+			}, BackgroundExecutor.fxThread());
+		});
+		sighOutButton.setOnAction(e -> {
+			stopRefreshing();
+			signOut();
 		});
-		sighOutButton.setOnAction(e -> signOut());
 		usersButton.setOnAction(e -> {
+			stopRefreshing();
 			try {
 				FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/AdminUsersDashboard.fxml"));
 				Parent root = loader.load();
@@ -96,8 +141,9 @@ public class AdminProductsController {
 			}
 		});
 
-        refreshProducts();
-        refreshTimeline.setCycleCount(Animation.INDEFINITE);
+		changes = ChangeFeed.subscribe(EnumSet.of(ChangeEvent.Table.PRODUCTS), Platform::runLater,
+				events -> refreshProducts());
+		refreshTimeline.setCycleCount(Animation.INDEFINITE);
 		refreshTimeline.play();
 	}
 
@@ -144,18 +190,66 @@ public class AdminProductsController {
         }
     }
 
+	private void applySort(List<TableColumn<Product, ?>> sortOrder) {
+		ProductSortColumn column = ProductSortColumn.ID;
+		SortDirection direction = SortDirection.ASC;
+		if (!sortOrder.isEmpty()) {
+			TableColumn<Product, ?> first = sortOrder.get(0);
+			if (first == nameColumn) {
+				column = ProductSortColumn.NAME;
+			} else if (first == priceColumn) {
+				column = ProductSortColumn.PRICE;
+			} else if (first == quantityColumn) {
+				column = ProductSortColumn.QUANTITY;
+			} else if (first == categoryColumn) {
+				column = ProductSortColumn.CATEGORY;
+			}
+			direction = first.getSortType() == TableColumn.SortType.ASCENDING ? SortDirection.ASC : SortDirection.DESC;
+		}
+		if (column != sortColumn || direction != sortDirection) {
+			sortColumn = column;
+			sortDirection = direction;
+			loadProducts();
+		}
+	}
+
+	private void loadProducts() {
+		ProductSortColumn column = sortColumn;
+		SortDirection direction = sortDirection;
+		PagedObservableList.PageLoader<Product> loader = (after, limit) -> productService
+				.readPage(after == null ? null : column.keyOf(after), limit, column, direction);
+		pageLoader = loader;
+		productLoader.request(() -> loader.load(null, PAGE_SIZE), page -> {
+			products.applySnapshot(loader, page, PAGE_SIZE);
+			if (refreshAfterLoad) {
+				refreshAfterLoad = false;
+				refreshProducts();
+			}
+		});
+	}
+
+	private void stopRefreshing() {
+		refreshTimeline.stop();
+		changes.close();
+		productLoader.close();
+		windowLoader.close();
+	}
 
-    private void refreshProducts() {
-		Product selected = productsTable.getSelectionModel().getSelectedItem();
-		ProductService productService = new ProductServiceImpl();
-		List<Product> products = productService.readAll();
-		ObservableList<Product> data = FXCollections.observableArrayList(products);
-		productsTable.setItems(data);
-		if (selected != null) {
-			data.stream()
-					.filter(p -> p.getId() == selected.getId())
-					.findFirst()
-					.ifPresent(p -> productsTable.getSelectionModel().select(p));
+	private void refreshProducts() {
+		PagedObservableList.PageLoader<Product> loader = pageLoader;
+		if (!products.isLoadedBy(loader)) {
+			// The list would drop a window read for a loader it isn't showing yet, so refresh once it is.
+			refreshAfterLoad = true;
+			return;
 		}
+		PagedObservableList.Window<Product> window = products.refreshWindow();
+		windowLoader.request(() -> loader.load(window.after(), window.limit()), fresh -> {
+			Product selected = productsTable.getSelectionModel().getSelectedItem();
+			products.applyWindow(loader, window, fresh);
+			if (selected != null) {
+				products.findLoaded(p -> p.getId() == selected.getId())
+						.ifPresent(p -> productsTable.getSelectionModel().select(p));
+			}
+		});
 	}
 }
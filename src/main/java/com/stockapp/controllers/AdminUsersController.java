@@ -1,13 +1,20 @@
 package com.stockapp.controllers;
 
+import com.stockapp.models.dto.ChangeEvent;
 import com.stockapp.models.entities.User;
 import com.stockapp.services.impl.UserServiceImpl;
 import com.stockapp.services.interfaces.UserService;
+import com.stockapp.utils.ChangeFeed;
+import com.stockapp.utils.DatabaseUtils;
+import com.stockapp.utils.ListReconciler;
+import com.stockapp.utils.ViewLoader;
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.List;
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -45,9 +52,16 @@ public class AdminUsersController {
 	@FXML
 	private Button productsButton;
 	private User loggedUser;
-	private final Timeline refreshTimeline = new Timeline(
-            new KeyFrame(Duration.ZERO, e -> refreshUsers()),
-			new KeyFrame(Duration.seconds(2), e -> refreshUsers()));
+	private final Timeline refreshTimeline = new Timeline(new KeyFrame(
+			Duration.millis(DatabaseUtils.config().getInt("changefeed.fallbackPollMs")), e -> {
+				if (!ChangeFeed.isLive()) {
+					refreshUsers();
+				}
+			}));
+	private ChangeFeed.Subscription changes;
+	private final ObservableList<User> users = FXCollections.observableArrayList();
+	private final ViewLoader usersLoader = ViewLoader
+			.onFxThread(e -> System.err.println("Warning: Could not load users: " + e.getMessage()));
 
 	public void setLoggedUser(String username) {
 		userNameLabel.setText("Hi, " + username);
@@ -60,6 +74,7 @@ public class AdminUsersController {
 		fullNameColumn.setCellValueFactory(new PropertyValueFactory<>("fullName"));
 		roleColumn.setCellValueFactory(new PropertyValueFactory<>("role"));
 		createdAtColumn.setCellValueFactory(new PropertyValueFactory<>("createdAt"));
+		usersTable.setItems(users);
 		addButton.setOnAction(e -> openUserForm(null));
 		modifyButton.setOnAction(e -> {
 			User selected = usersTable.getSelectionModel().getSelectedItem();
@@ -79,8 +94,12 @@ public class AdminUsersController {
 			userService.delete(selected.getId());
 			refreshUsers();
 		});
-		sighOutButton.setOnAction(e -> signOut());
+		sighOutButton.setOnAction(e -> {
+			stopRefreshing();
+			signOut();
+		});
 		productsButton.setOnAction(e -> {
+			stopRefreshing();
 			try {
 				FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/AdminProductsDashboard.fxml"));
 				Parent root = loader.load();
@@ -94,6 +113,8 @@ public class AdminUsersController {
 			}
 		});
 		refreshUsers();
+		changes = ChangeFeed.subscribe(EnumSet.of(ChangeEvent.Table.USERS), Platform::runLater,
+				events -> refreshUsers());
 		refreshTimeline.setCycleCount(Animation.INDEFINITE);
 		refreshTimeline.play();
 	}
@@ -137,20 +158,29 @@ public class AdminUsersController {
 		}
 	}
 
+	private void stopRefreshing() {
+		refreshTimeline.stop();
+		changes.close();
+		usersLoader.close();
+	}
+
 	private void refreshUsers() {
-		UserService userService = new UserServiceImpl();
-		List<User> users = userService.readAll();
-		users.removeIf(u -> u.getId() == userService.findByUsername("admin").getId());
+		usersLoader.request(() -> {
+			List<User> fresh = new UserServiceImpl().readAll();
+			fresh.removeIf(u -> "admin".equals(u.getUserName()));
+			return fresh;
+		}, this::showUsers);
+	}
+
+	private void showUsers(List<User> fresh) {
 		User selected = usersTable.getSelectionModel().getSelectedItem();
-		ObservableList<User> data = FXCollections.observableArrayList(users);
-		usersTable.setItems(data);
-		if (selected != null) {
-			data.stream()
+		ListReconciler.reconcile(users, fresh, User::getId, User::getUpdatedAt);
+		if (selected != null && usersTable.getSelectionModel().getSelectedItem() == null) {
+			users.stream()
 					.filter(u -> u.getId() == selected.getId())
 					.findFirst()
 					.ifPresent(u -> usersTable.getSelectionModel().select(u));
 		}
 	}
 
-
 }
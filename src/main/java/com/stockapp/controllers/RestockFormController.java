@@ -2,8 +2,6 @@ package com.stockapp.controllers;
 
 import com.stockapp.services.impl.ProductServiceImpl;
 import com.stockapp.services.interfaces.ProductService;
-import com.stockapp.utils.DatabaseUtils;
-import java.sql.Connection;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
@@ -36,7 +34,7 @@ public class RestockFormController {
 	}
 
 	private void saveProduct() {
-		try (Connection conn = DatabaseUtils.getConnection()) {
+		try {
 			int amount = Integer.parseInt(restockAmountField.getText().trim());
 			if (amount <= 0) {
 				showAlert("Amount must be positive");
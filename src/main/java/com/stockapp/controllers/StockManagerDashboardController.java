@@ -1,18 +1,30 @@
 package com.stockapp.controllers;
 
+import com.stockapp.models.dto.ChangeEvent;
+import com.stockapp.models.dto.InventoryStats;
+import com.stockapp.models.dto.RestockItem;
 import com.stockapp.models.entities.Product;
 import com.stockapp.models.entities.User;
+import com.stockapp.models.enums.ProductFilter;
+import com.stockapp.models.enums.ProductSortColumn;
+import com.stockapp.models.enums.SortDirection;
 import com.stockapp.services.impl.ProductServiceImpl;
+import com.stockapp.services.impl.RestockQueue;
 import com.stockapp.services.interfaces.ProductService;
+import com.stockapp.utils.BackgroundExecutor;
+import com.stockapp.utils.ChangeFeed;
+import com.stockapp.utils.DatabaseUtils;
+import com.stockapp.utils.PagedObservableList;
+import com.stockapp.utils.ViewLoader;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.EnumSet;
 import java.util.List;
 import javafx.animation.Animation;
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.beans.property.ReadOnlyStringWrapper;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -49,8 +61,16 @@ public class StockManagerDashboardController {
 	@FXML
 	private TableColumn<Product, String> stockCheckColumn;
 	@FXML
+	private CheckBox needsRestockFilter;
+	@FXML
+	private ListView<RestockItem> restockList;
+	@FXML
+	private ChoiceBox<RestockQueue.Ranking> restockRanking;
+	@FXML
 	private Label totalProductsLabel;
 	@FXML
+	private Label stockValueLabel;
+	@FXML
 	private Label lowStockLabel;
 	@FXML
 	private Label inStockLabel;
@@ -65,8 +85,43 @@ public class StockManagerDashboardController {
 	@FXML
 	private User loggedUser;
 
-	private final Timeline refreshTimeline = new Timeline(new KeyFrame(Duration.ZERO, e -> refreshProducts()),
-			new KeyFrame(Duration.seconds(2), e -> refreshProducts()));
+	private static final int PAGE_SIZE = 100;
+	private static final int RESTOCK_PANEL_SIZE = 15;
+
+	private final ProductService productService = new ProductServiceImpl();
+	private final PagedObservableList<Product> products = new PagedObservableList<>(PAGE_SIZE,
+			BackgroundExecutor.executor(), Platform::runLater, Product::getId, Product::getUpdatedAt);
+	private final ViewLoader productLoader = ViewLoader
+			.onFxThread(e -> System.err.println("Warning: Could not load products: " + e.getMessage()));
+	// Separate from productLoader so a feed or poll refresh can't supersede a new sort or filter that is loading.
+	private final ViewLoader windowLoader = ViewLoader
+			.onFxThread(e -> System.err.println("Warning: Could not refresh products: " + e.getMessage()));
+	private PagedObservableList.PageLoader<Product> pageLoader;
+	private boolean refreshAfterLoad;
+	private final ViewLoader statsLoader = ViewLoader
+			.onFxThread(e -> System.err.println("Warning: Could not refresh product stats: " + e.getMessage()));
+	private final ViewLoader restockLoader = ViewLoader
+			.onFxThread(e -> System.err.println("Warning: Could not load restock queue: " + e.getMessage()));
+	// Separate from restockLoader so a poll tick can't supersede a ranking change; the reload notifies the panel.
+	private final ViewLoader restockPollLoader = ViewLoader
+			.onFxThread(e -> System.err.println("Warning: Could not reload restock queue: " + e.getMessage()));
+	private ProductSortColumn sortColumn = ProductSortColumn.ID;
+	private SortDirection sortDirection = SortDirection.ASC;
+	private ProductFilter filter = ProductFilter.ALL;
+	private final Timeline refreshTimeline = new Timeline(new KeyFrame(
+			Duration.millis(DatabaseUtils.config().getInt("changefeed.fallbackPollMs")), e -> {
+				if (!ChangeFeed.isLive()) {
+					refreshProducts();
+					refreshAnalytics();
+					restockPollLoader.request(() -> {
+						RestockQueue.shared().reload();
+						return null;
+					}, ignored -> {
+					});
+				}
+			}));
+	private ChangeFeed.Subscription changes;
+	private ChangeFeed.Subscription restockChanges;
 
 
 	public void setLoggedUser(String username) {
@@ -75,24 +130,36 @@ public class StockManagerDashboardController {
 
 	@FXML
 	private void initialize() {
-		try {
-			new ProductServiceImpl().refreshStats();
-		} catch (Exception e) {
-			System.err.println("Warning: Could not refresh product stats: " + e.getMessage());
-		}
 		idColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
 		nameColumn.setCellValueFactory(new PropertyValueFactory<>("name"));
 		priceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
 		quantityColumn.setCellValueFactory(new PropertyValueFactory<>("quantity"));
 		categoryColumn.setCellValueFactory(new PropertyValueFactory<>("category"));
-		stockCheckColumn.setCellValueFactory(cellData -> {
-			Product product = cellData.getValue();
-			ProductService productService = new ProductServiceImpl();
-			boolean needsRestock = productService.isNeedRestock(product.getId());
-			String value = needsRestock ? "Need Restock" : "Stable";
-			return new ReadOnlyStringWrapper(value);
+		stockCheckColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue() == null ? ""
+				: cellData.getValue().needsRestock() ? "Need Restock" : "Stable"));
+		needsRestockFilter.selectedProperty().addListener((obs, was, selected) -> {
+			filter = selected ? ProductFilter.NEEDS_RESTOCK : ProductFilter.ALL;
+			loadProducts();
 		});
+		stockCheckColumn.setSortable(false);
 		productsTable.setFixedCellSize(40);
+		productsTable.setSortPolicy(table -> {
+			applySort(table.getSortOrder());
+			return true;
+		});
+		productsTable.setItems(products);
+		loadProducts();
+		restockList.setCellFactory(list -> new ListCell<>() {
+			@Override
+			protected void updateItem(RestockItem item, boolean empty) {
+				super.updateItem(item, empty);
+				setText(empty || item == null ? null : formatRestockItem(item));
+			}
+		});
+		restockRanking.getItems().setAll(RestockQueue.Ranking.values());
+		restockRanking.setValue(RestockQueue.Ranking.DEFICIT);
+		restockRanking.valueProperty().addListener((obs, was, ranking) -> refreshRestockQueue());
+		refreshRestockQueue();
 		addButton.setOnAction(e -> openProductForm(0));
 		modifyButton.setOnAction(e -> {
 			Product selected = productsTable.getSelectionModel().getSelectedItem();
@@ -108,18 +175,23 @@ public class StockManagerDashboardController {
 				showAlert("Select a product to delete.");
 				return;
 			}
-			try {
-				ProductService productService = new ProductServiceImpl();
+			deleteButton.setDisable(true);
+			BackgroundExecutor.submit(() -> {
 				productService.delete(selected.getId());
-				refreshProducts();
-			} catch (Exception ex) {
-				String errorMsg = ex.getMessage();
+				return null;
+			}).whenCompleteAsync((ignored, error) -> {
+				deleteButton.setDisable(false);
+				if (error == null) {
+					refreshProducts();
+					return;
+				}
+				String errorMsg = BackgroundExecutor.unwrap(error).getMessage();
 				if (errorMsg != null && (errorMsg.contains("foreign key") || errorMsg.contains("sale_items") || errorMsg.contains("violates"))) {
 					showAlert("Cannot delete this product because it has been sold. Consider modifying it instead.");
 				} else {
 					showAlert("Error deleting product: " + errorMsg);
 				}
-			}
+			}, BackgroundExecutor.fxThread());
 		});
 		restockButton.setOnAction(e -> {
 			Product selected = productsTable.getSelectionModel().getSelectedItem();
@@ -131,6 +203,7 @@ public class StockManagerDashboardController {
 		});
 
 		salesButton.setOnAction(e -> {
+			stopRefreshing();
 			try {
 				FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/StockManagerSalesDashboard.fxml"));
 				Parent root = loader.load();
@@ -144,17 +217,23 @@ public class StockManagerDashboardController {
 				showAlert("Error loading Sales dashboard: " + ex.getMessage());
 			}
 		});
-		sighOutButton.setOnAction(e -> signOut());
+		sighOutButton.setOnAction(e -> {
+			stopRefreshing();
+			signOut();
+		});
 		refreshButton.setOnMouseClicked(e -> refreshAnalytics());
+		// The counters are maintained by the writes themselves, so they are cheap to re-read on every change.
+		changes = ChangeFeed.subscribe(EnumSet.of(ChangeEvent.Table.PRODUCTS), Platform::runLater, events -> {
+			refreshProducts();
+			refreshAnalytics();
+		});
 		refreshTimeline.setCycleCount(Animation.INDEFINITE);
 		refreshTimeline.play();
-		stat();
+		refreshAnalytics();
 	}
 
 	private void refreshAnalytics() {
-		ProductServiceImpl productService = new ProductServiceImpl();
-		productService.refreshStats();
-		stat();
+		statsLoader.request(productService::inventoryStats, this::showStats);
 	}
 
 	private void openProductForm(long productId) {
@@ -215,26 +294,98 @@ public class StockManagerDashboardController {
 		}
 	}
 
+	private void applySort(List<TableColumn<Product, ?>> sortOrder) {
+		ProductSortColumn column = ProductSortColumn.ID;
+		SortDirection direction = SortDirection.ASC;
+		if (!sortOrder.isEmpty()) {
+			TableColumn<Product, ?> first = sortOrder.get(0);
+			if (first == nameColumn) {
+				column = ProductSortColumn.NAME;
+			} else if (first == priceColumn) {
+				column = ProductSortColumn.PRICE;
+			} else if (first == quantityColumn) {
+				column = ProductSortColumn.QUANTITY;
+			} else if (first == categoryColumn) {
+				column = ProductSortColumn.CATEGORY;
+			}
+			direction = first.getSortType() == TableColumn.SortType.ASCENDING ? SortDirection.ASC : SortDirection.DESC;
+		}
+		if (column != sortColumn || direction != sortDirection) {
+			sortColumn = column;
+			sortDirection = direction;
+			loadProducts();
+		}
+	}
+
+	private void loadProducts() {
+		ProductSortColumn column = sortColumn;
+		SortDirection direction = sortDirection;
+		ProductFilter rowFilter = filter;
+		PagedObservableList.PageLoader<Product> loader = (after, limit) -> productService
+				.readPage(after == null ? null : column.keyOf(after), limit, column, direction, rowFilter);
+		pageLoader = loader;
+		productLoader.request(() -> loader.load(null, PAGE_SIZE), page -> {
+			products.applySnapshot(loader, page, PAGE_SIZE);
+			if (refreshAfterLoad) {
+				refreshAfterLoad = false;
+				refreshProducts();
+			}
+		});
+	}
+
+	private void stopRefreshing() {
+		refreshTimeline.stop();
+		changes.close();
+		productLoader.close();
+		windowLoader.close();
+		statsLoader.close();
+		restockLoader.close();
+		restockPollLoader.close();
+		if (restockChanges != null) {
+			restockChanges.close();
+		}
+	}
+
 	private void refreshProducts() {
-		Product selected = productsTable.getSelectionModel().getSelectedItem();
-		ProductService productService = new ProductServiceImpl();
-		List<Product> products = productService.readAll();
-		ObservableList<Product> data = FXCollections.observableArrayList(products);
-		productsTable.setItems(data);
-
-		if (selected != null) {
-			data.stream()
-					.filter(p -> p.getId() == selected.getId())
-					.findFirst()
-					.ifPresent(p -> productsTable.getSelectionModel().select(p));
+		PagedObservableList.PageLoader<Product> loader = pageLoader;
+		if (!products.isLoadedBy(loader)) {
+			// The list would drop a window read for a loader it isn't showing yet, so refresh once it is.
+			refreshAfterLoad = true;
+			return;
 		}
+		PagedObservableList.Window<Product> window = products.refreshWindow();
+		windowLoader.request(() -> loader.load(window.after(), window.limit()), fresh -> {
+			Product selected = productsTable.getSelectionModel().getSelectedItem();
+			products.applyWindow(loader, window, fresh);
+			if (selected != null) {
+				products.findLoaded(p -> p.getId() == selected.getId())
+						.ifPresent(p -> productsTable.getSelectionModel().select(p));
+			}
+		});
+	}
+
+	private void refreshRestockQueue() {
+		RestockQueue.Ranking ranking = restockRanking.getValue();
+		restockLoader.request(() -> RestockQueue.shared().top(RESTOCK_PANEL_SIZE, ranking), items -> {
+			if (restockChanges == null) {
+				restockChanges = RestockQueue.shared().onChange(Platform::runLater, this::refreshRestockQueue);
+			}
+			restockList.getItems().setAll(items);
+		});
+	}
+
+	private static String formatRestockItem(RestockItem item) {
+		String cover = Double.isInfinite(item.daysOfCover()) ? "no recent sales"
+				: String.format("%.1f days of cover", item.daysOfCover());
+		return item.name() + "\n" + item.quantity() + " / " + item.minStock() + " (short " + item.deficit() + "), "
+				+ cover;
 	}
 
-	private void stat() {
-		ProductServiceImpl productServiceImpl = new ProductServiceImpl();
-		totalProductsLabel.setText(String.valueOf(productServiceImpl.totalProducts()));
-		lowStockLabel.setText(String.valueOf(productServiceImpl.lowStock()));
-		inStockLabel.setText(String.valueOf(productServiceImpl.inStock()));
-		outOfStockLabel.setText(String.valueOf(productServiceImpl.outOfStock()));
+	private void showStats(InventoryStats stats) {
+		totalProductsLabel.setText(String.valueOf(stats.total()));
+		stockValueLabel.setText(String.format("Stock value: $%,.2f", stats.stockValue()));
+		lowStockLabel.setText(String.valueOf(stats.lowStock()));
+		inStockLabel.setText(String.valueOf(stats.inStock()));
+		outOfStockLabel.setText(String.valueOf(stats.outOfStock()));
 	}
 }
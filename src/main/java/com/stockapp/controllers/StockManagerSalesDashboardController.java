@@ -1,15 +1,16 @@
 
 package com.stockapp.controllers;
 
+import com.stockapp.models.dto.SalesStats;
 import com.stockapp.models.entities.Sale;
 import com.stockapp.models.entities.User;
 import com.stockapp.services.impl.SaleServiceImpl;
+import com.stockapp.utils.ViewLoader;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -23,6 +24,9 @@ import javafx.stage.Stage;
 import javafx.scene.image.ImageView;
 
 public class StockManagerSalesDashboardController {
+    // The table lists the same days the figures above it cover.
+    private static final int STATS_WINDOW_DAYS = 30;
+
     @FXML
     private Label userNameLabel;
     @FXML
@@ -52,6 +56,11 @@ public class StockManagerSalesDashboardController {
     @FXML
     private User loggedUser;
 
+    private final ViewLoader salesLoader = ViewLoader
+            .onFxThread(e -> System.err.println("Warning: Could not load sales: " + e.getMessage()));
+    private final ViewLoader statsLoader = ViewLoader
+            .onFxThread(e -> System.err.println("Warning: Could not refresh sales stats: " + e.getMessage()));
+
     public void setLoggedUser(String username) {
         userNameLabel.setText("Hi, " + username);
     }
@@ -63,6 +72,7 @@ public class StockManagerSalesDashboardController {
         stat();
 
         productsButton.setOnAction(e -> {
+            stopLoading();
             try {
                 FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/StockManagerDashboard.fxml"));
                 Parent root = loader.load();
@@ -75,22 +85,24 @@ public class StockManagerSalesDashboardController {
                 throw new RuntimeException(ex);
             }
         });
-        refreshButton.setOnMouseClicked(e -> refreshAnalytics());
+        refreshButton.setOnMouseClicked(e -> stat());
 
-        sighOutButton.setOnAction(e -> signOut());
+        sighOutButton.setOnAction(e -> {
+            stopLoading();
+            signOut();
+        });
     }
 
-    private void refreshAnalytics() {
-        SaleServiceImpl saleService = new SaleServiceImpl();
-        saleService.refreshStats();
-        stat();
+    private void stopLoading() {
+        salesLoader.close();
+        statsLoader.close();
     }
 
     private void loadSalesTable() {
-        SaleServiceImpl saleService = new SaleServiceImpl();
-        List<Sale> sales = saleService.readAll();
-
-        ObservableList<Sale> data = FXCollections.observableArrayList(sales);
+        ObservableList<Sale> data = FXCollections.observableArrayList();
+        LocalDate endDate = LocalDate.now();
+        LocalDate startDate = endDate.minusDays(STATS_WINDOW_DAYS);
+        salesLoader.request(() -> new SaleServiceImpl().readBetween(startDate, endDate), data::setAll);
 
         idColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
 
@@ -124,12 +136,15 @@ public class StockManagerSalesDashboardController {
 
 
     private void stat() {
-        SaleServiceImpl saleServiceImpl = new SaleServiceImpl();
         LocalDate endDate = LocalDate.now();
-        LocalDate startDate = endDate.minusDays(30);
-        totalSalesLabel.setText(String.valueOf(saleServiceImpl.totalSales(startDate, endDate)));
-        totalRevenueLabel.setText(String.valueOf(saleServiceImpl.totalRevenue(startDate, endDate)));
-        totalItemsSoldLabel.setText(String.valueOf(saleServiceImpl.totalItemsSold(startDate, endDate)));
-        averageSaleValueLabel.setText(String.valueOf(saleServiceImpl.averageSaleValue(startDate, endDate)));
+        LocalDate startDate = endDate.minusDays(STATS_WINDOW_DAYS);
+        statsLoader.request(() -> new SaleServiceImpl().salesStats(startDate, endDate), this::showStats);
+    }
+
+    private void showStats(SalesStats stats) {
+        totalSalesLabel.setText(String.valueOf(stats.salesCount()));
+        totalRevenueLabel.setText(stats.revenue().toPlainString());
+        totalItemsSoldLabel.setText(String.valueOf(stats.itemsSold()));
+        averageSaleValueLabel.setText(stats.averageSaleValue().toPlainString());
     }
 }
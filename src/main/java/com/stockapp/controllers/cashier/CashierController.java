@@ -4,11 +4,20 @@ import com.stockapp.controllers.cashier.components.ProductListCell;
 import com.stockapp.models.entities.*;
 import com.stockapp.services.impl.*;
 import com.stockapp.services.interfaces.*;
+import com.stockapp.utils.BackgroundExecutor;
 import com.stockapp.utils.CartManager;
+import com.stockapp.utils.ChangeFeed;
+import com.stockapp.utils.ViewLoader;
 import java.io.IOException;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import javafx.animation.PauseTransition;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -20,6 +29,7 @@ import javafx.scene.text.Text;
 import javafx.scene.text.TextFlow;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 public class CashierController {
 	@FXML
@@ -45,10 +55,20 @@ public class CashierController {
 	@FXML
 	private Button btnAddSale;
 
+	private static final int SEARCH_LIMIT = 50;
+	private static final Duration SEARCH_DEBOUNCE = Duration.millis(150);
+
 	private ProductService productService;
 	private SaleService saleService;
 	private CartManager cartManager;
 	private ObservableList<Product> productList;
+	private boolean checkoutInProgress;
+	private String addSaleLabel;
+	private final PauseTransition searchDebounce = new PauseTransition(SEARCH_DEBOUNCE);
+	private final ViewLoader searchLoader = ViewLoader
+			.onFxThread(error -> showError("Search failed", BackgroundExecutor.unwrap(error).getMessage()));
+	private ChangeFeed.Subscription rejectedSales = () -> {
+	};
 
 	@FXML
 	public void initialize() {
@@ -66,47 +86,58 @@ public class CashierController {
 		ProductListView.setItems(productList);
 		ProductListView.setCellFactory(lv -> new ProductListCell(this));
 
-		loadAllProducts();
+		performSearch();
+		// Build the name index in the background so the first keystroke doesn't wait for it.
+		BackgroundExecutor.submit(() -> productService.searchByPrefix("", 0));
 
-		searchField.textProperty().addListener((obs, oldVal, newVal) -> performSearch());
-		searchTypeGroup.selectedToggleProperty().addListener((obs, oldVal, newVal) -> performSearch());
+		// Wait for a pause in typing; a newer search cancels the one still running.
+		searchDebounce.setOnFinished(e -> performSearch());
+		searchField.textProperty().addListener((obs, oldVal, newVal) -> searchDebounce.playFromStart());
+		searchTypeGroup.selectedToggleProperty().addListener((obs, oldVal, newVal) -> {
+			searchDebounce.stop();
+			performSearch();
+		});
 		LogOutButton.setOnAction(e -> handleLogout());
 		btnCart.setOnAction(e -> openCartView());
 		btnClearCart.setOnAction(e -> handleClearCart());
+		addSaleLabel = btnAddSale.getText();
 		btnAddSale.setOnAction(e -> handleAddSale());
+		// Journaled sales are confirmed before they reach the database; one the database refuses must not go unseen.
+		rejectedSales = SaleServiceImpl.onJournalRejected(BackgroundExecutor.fxThread(), this::showRejectedSales);
 
 		updateCartButton();
 	}
 
-	private void loadAllProducts() {
-		try {
-			List<Product> products = productService.readAll();
-			productList.setAll(products);
-		} catch (Exception e) {
-			showError("Failed to load products", e.getMessage());
-		}
-	}
-
 	private void performSearch() {
 		String searchText = searchField.getText().trim();
+		boolean byId = searchByIdButton.isSelected();
+		searchLoader.request(() -> search(searchText, byId), productList::setAll);
+	}
+
+	private List<Product> search(String searchText, boolean byId) {
 		if (searchText.isEmpty()) {
-			loadAllProducts();
-			return;
+			return productService.searchByPrefix("", SEARCH_LIMIT);
 		}
-		try {
-			List<Product> result = new ArrayList<>();
-			if (searchByIdButton.isSelected()) {
-				try {
-					productService.read(Long.parseLong(searchText)).ifPresent(result::add);
-				} catch (NumberFormatException e) {
+		List<Product> result = new ArrayList<>();
+		if (byId) {
+			try {
+				productService.read(Long.parseLong(searchText)).ifPresent(result::add);
+			} catch (NumberFormatException e) {
+			}
+			return result;
+		}
+		result.addAll(productService.searchByPrefix(searchText, SEARCH_LIMIT));
+		if (result.size() < SEARCH_LIMIT) {
+			// Fill up with close matches so a typo still finds the product.
+			Set<Long> shown = new HashSet<>();
+			result.forEach(p -> shown.add(p.getId()));
+			for (Product p : productService.searchFuzzy(searchText, SEARCH_LIMIT)) {
+				if (result.size() < SEARCH_LIMIT && shown.add(p.getId())) {
+					result.add(p);
 				}
-			} else {
-				result = productService.findByPreName(searchText);
 			}
-			productList.setAll(result);
-		} catch (Exception e) {
-			showError("Search failed", e.getMessage());
 		}
+		return result;
 	}
 
 	public void openQuantityForm(Product product) {
@@ -182,21 +213,60 @@ public class CashierController {
 		alert.setHeaderText("Process this sale?");
 		alert.setContentText(String.format("Total: %.2f$", cartManager.getTotalPrice()));
 		Optional<ButtonType> result = alert.showAndWait();
-		if (result.isPresent() && result.get() == ButtonType.OK) {
-			try {
-				List<SaleItem> items = cartManager.getCartItems();
-				Sale sale = new Sale(cartManager.getTotalPrice());
-				saleService.createSaleWithItems(sale, items);
+		if (result.isPresent() && result.get() == ButtonType.OK && !checkoutInProgress) {
+			List<SaleItem> items = new ArrayList<>();
+			for (SaleItem item : cartManager.getCartItems()) {
+				items.add(new SaleItem(item.getProductId(), 0, item.getQuantity(), item.getUnitPrice()));
+			}
+			Sale sale = new Sale(cartManager.getTotalPrice());
+			setCheckoutInProgress(true);
+			saleService.submitSaleWithItems(sale, items).whenCompleteAsync((saved, error) -> {
+				setCheckoutInProgress(false);
+				if (error != null) {
+					showError("Sale Failed", BackgroundExecutor.unwrap(error).getMessage());
+					return;
+				}
 				cartManager.clearCart();
 				updateCartButton();
-				loadAllProducts();
+				applySoldQuantities(items);
 				showInfo("Success", "Sale completed successfully");
-			} catch (Exception e) {
-				showError("Sale Failed", e.getMessage());
+			}, BackgroundExecutor.fxThread());
+		}
+	}
+
+	private void setCheckoutInProgress(boolean inProgress) {
+		checkoutInProgress = inProgress;
+		btnAddSale.setDisable(inProgress);
+		btnAddSale.setText(inProgress ? "Processing..." : addSaleLabel);
+		btnClearCart.setDisable(inProgress);
+		btnCart.setDisable(inProgress);
+		ProductListView.setDisable(inProgress);
+	}
+
+	private void applySoldQuantities(List<SaleItem> soldItems) {
+		Map<Long, Integer> sold = new HashMap<>();
+		for (SaleItem item : soldItems) {
+			sold.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+		}
+		for (int i = 0; i < productList.size(); i++) {
+			Product product = productList.get(i);
+			Integer quantity = sold.get(product.getId());
+			if (quantity != null) {
+				productList.set(i, product.withQuantity(product.getQuantity() - quantity));
 			}
 		}
 	}
 
+	private void showRejectedSales(List<SaleServiceImpl.RejectedSale> rejected) {
+		StringBuilder message = new StringBuilder(rejected.size() == 1 ? "A completed sale could not be recorded:"
+				: rejected.size() + " completed sales could not be recorded:");
+		for (SaleServiceImpl.RejectedSale sale : rejected) {
+			message.append(String.format("%n%.2f$ at %s: %s", sale.totalPrice(),
+					sale.createdAt().atZoneSameInstant(ZoneId.systemDefault()).toLocalTime().withNano(0), sale.reason()));
+		}
+		showError("Sale Rejected", message.toString());
+	}
+
 	private void updateCartButton() {
 		int itemCount = cartManager.getTotalItemCount();
 		btnCart.setText(String.format("Cart (%d)", itemCount));
@@ -210,6 +280,9 @@ public class CashierController {
 		if (result.isPresent() && result.get() == ButtonType.OK) {
 			try {
 				cartManager.clearCart();
+				searchDebounce.stop();
+				searchLoader.close();
+				rejectedSales.close();
 				FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/Login.fxml"));
 				Parent root = loader.load();
 				Stage stage = (Stage) LogOutButton.getScene().getWindow();
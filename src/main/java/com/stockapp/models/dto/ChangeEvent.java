@@ -0,0 +1,36 @@
+package com.stockapp.models.dto;
+
+public record ChangeEvent(Table table, Operation operation, long id) {
+	public enum Table {
+		PRODUCTS,
+		USERS,
+		SALES
+	}
+
+	public enum Operation {
+		INSERT,
+		UPDATE,
+		DELETE,
+		// Notifications may have been missed (listener reconnected); reload everything for this table.
+		RESYNC
+	}
+
+	public static ChangeEvent resync(Table table) {
+		return new ChangeEvent(table, Operation.RESYNC, 0);
+	}
+
+	// Payloads are published by notify_change() as "<table>:<I|U|D>:<id>".
+	public static ChangeEvent parse(String payload) {
+		String[] parts = payload.split(":");
+		if (parts.length != 3) {
+			throw new IllegalArgumentException("Malformed change notification: " + payload);
+		}
+		Operation operation = switch (parts[1]) {
+			case "I" -> Operation.INSERT;
+			case "U" -> Operation.UPDATE;
+			case "D" -> Operation.DELETE;
+			default -> throw new IllegalArgumentException("Unknown change operation: " + payload);
+		};
+		return new ChangeEvent(Table.valueOf(parts[0].toUpperCase()), operation, Long.parseLong(parts[2]));
+	}
+}
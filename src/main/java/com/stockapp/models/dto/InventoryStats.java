@@ -0,0 +1,6 @@
+package com.stockapp.models.dto;
+
+import java.math.BigDecimal;
+
+public record InventoryStats(long total, long lowStock, long inStock, long outOfStock, BigDecimal stockValue) {
+}
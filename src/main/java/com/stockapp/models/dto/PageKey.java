@@ -0,0 +1,4 @@
+package com.stockapp.models.dto;
+
+public record PageKey(Object value, long id) {
+}
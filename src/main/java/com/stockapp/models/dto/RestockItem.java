@@ -0,0 +1,14 @@
+package com.stockapp.models.dto;
+
+public record RestockItem(long productId, String name, int quantity, int minStock, double dailySales) {
+	public int deficit() {
+		return minStock - quantity;
+	}
+
+	public double daysOfCover() {
+		if (quantity <= 0) {
+			return 0;
+		}
+		return dailySales > 0 ? quantity / dailySales : Double.POSITIVE_INFINITY;
+	}
+}
@@ -0,0 +1,9 @@
+package com.stockapp.models.dto;
+
+import com.stockapp.models.enums.Category;
+import java.math.BigDecimal;
+
+// productId and category are null when the grouping doesn't split by them. For a product or category, salesCount
+// counts sale lines and revenue sums line totals; for the whole store they count sales and sum their totals.
+public record SalesBreakdown(Long productId, Category category, long salesCount, long itemsSold, BigDecimal revenue) {
+}
@@ -0,0 +1,6 @@
+package com.stockapp.models.dto;
+
+import java.math.BigDecimal;
+
+public record SalesStats(long salesCount, BigDecimal revenue, long itemsSold, BigDecimal averageSaleValue) {
+}
@@ -0,0 +1,12 @@
+package com.stockapp.models.dto;
+
+public record StockUpdateResult(long productId, int delta, Integer newQuantity, Failure failure) {
+	public enum Failure {
+		NOT_FOUND,
+		INSUFFICIENT_STOCK
+	}
+
+	public boolean isSuccess() {
+		return failure == null;
+	}
+}
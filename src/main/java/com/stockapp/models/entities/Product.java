@@ -5,7 +5,7 @@ import com.stockapp.models.interfaces.*;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 
-public class Product implements Identifiable, Auditable {
+public class Product implements Identifiable, Auditable, Versioned {
 	private long id;
 	private String name;
 	private String description;
@@ -13,6 +13,7 @@ public class Product implements Identifiable, Auditable {
 	private int quantity;
 	private int minStock;
 	private OffsetDateTime createdAt;
+	private OffsetDateTime updatedAt;
 	private Category category;
 
 	public Product(String name, String description, BigDecimal price, int quantity, int minStock, Category category) {
@@ -74,6 +75,24 @@ public class Product implements Identifiable, Auditable {
 		return category;
 	}
 
+	public boolean needsRestock() {
+		return quantity <= minStock;
+	}
+
+	public OffsetDateTime getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public Product withQuantity(int quantity) {
+		return withQuantity(quantity, updatedAt);
+	}
+
+	public Product withQuantity(int quantity, OffsetDateTime updatedAt) {
+		Product copy = new Product(id, name, description, price, quantity, minStock, createdAt, category);
+		copy.updatedAt = updatedAt;
+		return copy;
+	}
+
 	public void setId(Long id) {
 		this.id = id;
 	}
@@ -81,4 +100,8 @@ public class Product implements Identifiable, Auditable {
 	public void setCreatedAt(OffsetDateTime createdAt) {
 		this.createdAt = createdAt;
 	}
+
+	public void setUpdatedAt(OffsetDateTime updatedAt) {
+		this.updatedAt = updatedAt;
+	}
 }
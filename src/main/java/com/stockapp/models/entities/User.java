@@ -4,11 +4,12 @@ import com.stockapp.models.enums.UserRole;
 import com.stockapp.models.interfaces.*;
 import java.time.OffsetDateTime;
 
-public class User implements Identifiable, Auditable {
+public class User implements Identifiable, Auditable, Versioned {
 	private long userId;
 	private String userName, passwordHash, fullName;
 	private UserRole role;
 	private OffsetDateTime createdAt;
+	private OffsetDateTime updatedAt;
 
 	public User() {
 	}
@@ -71,6 +72,14 @@ public class User implements Identifiable, Auditable {
 		this.createdAt = createdAt;
 	}
 
+	public OffsetDateTime getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public void setUpdatedAt(OffsetDateTime updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
 	public void setFullname(String fullName) {
 		this.fullName = fullName;
 	}
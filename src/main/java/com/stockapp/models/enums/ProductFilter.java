@@ -0,0 +1,26 @@
+package com.stockapp.models.enums;
+
+import com.stockapp.models.entities.Product;
+import java.util.function.Predicate;
+
+public enum ProductFilter {
+	ALL(null, product -> true),
+	// Must match the predicate of idx_products_needs_restock so the partial index is usable.
+	NEEDS_RESTOCK("quantity <= min_stock", Product::needsRestock);
+
+	private final String predicate;
+	private final Predicate<Product> matches;
+
+	ProductFilter(String predicate, Predicate<Product> matches) {
+		this.predicate = predicate;
+		this.matches = matches;
+	}
+
+	public String predicate() {
+		return predicate;
+	}
+
+	public boolean matches(Product product) {
+		return matches.test(product);
+	}
+}
@@ -0,0 +1,35 @@
+package com.stockapp.models.enums;
+
+import com.stockapp.models.dto.PageKey;
+import com.stockapp.models.entities.Product;
+import java.util.function.Function;
+
+public enum ProductSortColumn {
+	ID("id", "?", Product::getId),
+	NAME("name", "?", Product::getName),
+	PRICE("price", "?", Product::getPrice),
+	QUANTITY("quantity", "?", Product::getQuantity),
+	CATEGORY("category", "?::category", Product::getCategory);
+
+	private final String column;
+	private final String placeholder;
+	private final Function<Product, Object> value;
+
+	ProductSortColumn(String column, String placeholder, Function<Product, Object> value) {
+		this.column = column;
+		this.placeholder = placeholder;
+		this.value = value;
+	}
+
+	public String column() {
+		return column;
+	}
+
+	public String placeholder() {
+		return placeholder;
+	}
+
+	public PageKey keyOf(Product product) {
+		return new PageKey(value.apply(product), product.getId());
+	}
+}
@@ -0,0 +1,30 @@
+package com.stockapp.models.enums;
+
+public enum SalesGrouping {
+	// Rollup row 0 of each bucket holds the whole-sale totals; the others are per product.
+	TOTAL("product_id = 0", "NULL::bigint", "NULL::category"),
+	CATEGORY("product_id <> 0", "NULL::bigint", "category"),
+	PRODUCT("product_id <> 0", "product_id", "category");
+
+	private final String predicate;
+	private final String productColumn;
+	private final String categoryColumn;
+
+	SalesGrouping(String predicate, String productColumn, String categoryColumn) {
+		this.predicate = predicate;
+		this.productColumn = productColumn;
+		this.categoryColumn = categoryColumn;
+	}
+
+	public String predicate() {
+		return predicate;
+	}
+
+	public String productColumn() {
+		return productColumn;
+	}
+
+	public String categoryColumn() {
+		return categoryColumn;
+	}
+}
@@ -0,0 +1,6 @@
+package com.stockapp.models.enums;
+
+public enum SortDirection {
+	ASC,
+	DESC
+}
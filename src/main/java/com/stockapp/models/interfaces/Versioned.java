@@ -0,0 +1,7 @@
+package com.stockapp.models.interfaces;
+
+import java.time.OffsetDateTime;
+
+public interface Versioned {
+	OffsetDateTime getUpdatedAt();
+}
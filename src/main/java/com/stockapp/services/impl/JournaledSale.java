@@ -0,0 +1,38 @@
+package com.stockapp.services.impl;
+
+import com.stockapp.models.entities.SaleItem;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+record JournaledSale(UUID journalId, OffsetDateTime createdAt, BigDecimal totalPrice, List<SaleItem> items) {
+	String encode() {
+		String lines = items.stream()
+				.map(item -> item.getProductId() + ":" + item.getQuantity() + ":" + item.getUnitPrice().toPlainString())
+				.collect(Collectors.joining(","));
+		return journalId + ";" + createdAt + ";" + totalPrice.toPlainString() + ";" + lines;
+	}
+
+	static JournaledSale decode(String payload) {
+		String[] fields = payload.split(";", -1);
+		if (fields.length != 4 || fields[3].isEmpty()) {
+			throw new IllegalArgumentException("Malformed journaled sale: " + payload);
+		}
+		List<SaleItem> items = new ArrayList<>();
+		for (String line : fields[3].split(",")) {
+			String[] parts = line.split(":");
+			if (parts.length != 3) {
+				throw new IllegalArgumentException("Malformed journaled sale item: " + line);
+			}
+			items.add(new SaleItem(Long.parseLong(parts[0]), 0, Integer.parseInt(parts[1]), new BigDecimal(parts[2])));
+		}
+		return new JournaledSale(UUID.fromString(fields[0]),
+				OffsetDateTime.parse(fields[1]),
+				new BigDecimal(fields[2]),
+				items);
+	}
+}
@@ -0,0 +1,226 @@
+package com.stockapp.services.impl;
+
+import com.stockapp.models.dto.ChangeEvent;
+import com.stockapp.models.entities.Product;
+import com.stockapp.utils.BackgroundExecutor;
+import com.stockapp.utils.ChangeFeed;
+import com.stockapp.utils.DatabaseUtils;
+import com.stockapp.utils.PrefixIndex;
+import com.stockapp.utils.QueryExecutor;
+import com.stockapp.utils.RowMapper;
+import com.stockapp.utils.TrigramIndex;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of the catalog searchable by name prefix and by trigram similarity, so as-you-type search never
+ * goes to the database. Kept current the same way as {@link RestockQueue}: local writes after commit, the change
+ * feed for other clients.
+ */
+class ProductNameIndex {
+	static final double FUZZY_MIN_COVERAGE = 0.4;
+	static final double POPULARITY_WEIGHT = 0.15;
+
+	private static volatile ProductNameIndex shared;
+
+	private final QueryExecutor db;
+	private final PrefixIndex<Long, Product> index = new PrefixIndex<>(Product::getId, Product::getName);
+	private final Map<Long, Long> unitsSold = new ConcurrentHashMap<>();
+	private volatile long maxUnitsSold;
+	private final TrigramIndex<Long> fuzzy = new TrigramIndex<>(FUZZY_MIN_COVERAGE, this::popularity,
+			POPULARITY_WEIGHT);
+	private final Map<Long, OffsetDateTime> versions = new HashMap<>();
+	private final Set<Long> deleted = new HashSet<>();
+
+	ProductNameIndex(QueryExecutor db) {
+		this.db = db;
+	}
+
+	static ProductNameIndex shared() {
+		ProductNameIndex index = shared;
+		if (index == null) {
+			synchronized (ProductNameIndex.class) {
+				if (shared == null) {
+					index = new ProductNameIndex(new QueryExecutor()
+							.withTimeout(DatabaseUtils.config().getDuration("query.indexLoadTimeoutMs")));
+					ChangeFeed.Subscription changes = ChangeFeed.subscribe(EnumSet.of(ChangeEvent.Table.PRODUCTS),
+							BackgroundExecutor.executor(), index::onChanges);
+					try {
+						index.reload();
+					} catch (RuntimeException e) {
+						changes.close();
+						throw e;
+					}
+					shared = index;
+				}
+				index = shared;
+			}
+		}
+		return index;
+	}
+
+	static void productChanged(Product product) {
+		ProductNameIndex index = shared;
+		if (index != null) {
+			index.put(product);
+		}
+	}
+
+	static void stockChanged(Collection<RestockQueue.StockLevel> levels) {
+		ProductNameIndex index = shared;
+		if (index != null) {
+			index.applyStock(levels);
+		}
+	}
+
+	static void sold(Map<Long, Integer> quantities) {
+		ProductNameIndex index = shared;
+		if (index != null) {
+			quantities.forEach((productId, quantity) -> index.recordSale(productId, quantity));
+		}
+	}
+
+	static void productDeleted(long productId) {
+		ProductNameIndex index = shared;
+		if (index != null) {
+			index.remove(productId);
+		}
+	}
+
+	List<Product> search(String prefix, int limit) {
+		return index.search(prefix, limit);
+	}
+
+	// Ranked by trigram similarity, with best sellers nudged up among similar names.
+	List<Product> searchFuzzy(String query, int limit) {
+		List<Product> products = new ArrayList<>(limit);
+		for (TrigramIndex.Match<Long> match : fuzzy.search(query, limit)) {
+			index.get(match.key()).ifPresent(products::add);
+		}
+		return products;
+	}
+
+	Optional<Product> get(long productId) {
+		return index.get(productId);
+	}
+
+	int size() {
+		return index.size();
+	}
+
+	void reload() {
+		String sql = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products";
+		String sqlSold = """
+				SELECT product_id, SUM(items_sold) AS units
+				FROM sales_rollups
+				WHERE grain = 'MONTH' AND product_id <> 0
+				GROUP BY product_id
+				""";
+		Set<Long> known = index.keys();
+		List<Product> products;
+		Map<Long, Long> sold = new HashMap<>();
+		try {
+			products = db.queryList(sql, RowMappers.PRODUCT);
+			db.queryEach(sqlSold, RowMapper.of((rs, col) -> Map.entry(rs.getLong(col[0]), rs.getLong(col[1])),
+					"product_id", "units"), e -> sold.put(e.getKey(), e.getValue()));
+		} catch (SQLException e) {
+			throw new RuntimeException("Failed to load product name index", e);
+		}
+		// Rows go through put() like any other change, so a hook or feed refresh that landed while the snapshot was
+		// read is not rolled back. Only products indexed before the read can be missing because they were deleted.
+		synchronized (this) {
+			unitsSold.clear();
+			unitsSold.putAll(sold);
+			maxUnitsSold = sold.values().stream().mapToLong(Long::longValue).max().orElse(0);
+			Set<Long> missing = new HashSet<>(known);
+			for (Product product : products) {
+				missing.remove(product.getId());
+				put(product);
+			}
+			missing.forEach(this::remove);
+		}
+	}
+
+	// Feed refreshes and post-commit hooks can arrive out of order, so a row older than the last one seen is dropped.
+	synchronized void put(Product product) {
+		if (deleted.contains(product.getId()) || isOlder(product.getId(), product.getUpdatedAt())) {
+			return;
+		}
+		if (product.getUpdatedAt() != null) {
+			versions.put(product.getId(), product.getUpdatedAt());
+		}
+		boolean renamed = index.get(product.getId()).map(p -> !p.getName().equals(product.getName())).orElse(true);
+		index.put(product);
+		if (renamed) {
+			fuzzy.put(product.getId(), product.getName());
+		}
+	}
+
+	synchronized void remove(long productId) {
+		deleted.add(productId);
+		versions.remove(productId);
+		index.remove(productId);
+		fuzzy.remove(productId);
+	}
+
+	private void recordSale(long productId, int quantity) {
+		long units = unitsSold.merge(productId, (long) quantity, Long::sum);
+		if (units > maxUnitsSold) {
+			maxUnitsSold = units;
+		}
+	}
+
+	// Log scale, so a product selling ten times more is not ranked ten times higher.
+	private double popularity(Long productId) {
+		long max = maxUnitsSold;
+		long units = unitsSold.getOrDefault(productId, 0L);
+		return max <= 0 ? 0 : Math.log1p(units) / Math.log1p(max);
+	}
+
+	synchronized void applyStock(Collection<RestockQueue.StockLevel> levels) {
+		for (RestockQueue.StockLevel level : levels) {
+			index.get(level.productId()).ifPresent(p -> put(p.withQuantity(level.quantity(), level.updatedAt())));
+		}
+	}
+
+	void refresh(Collection<Long> productIds) {
+		String sql = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products WHERE id = ANY(?)";
+		List<Product> products;
+		try {
+			products = db.queryList(sql, RowMappers.PRODUCT, (Object) productIds.toArray(Long[]::new));
+		} catch (SQLException e) {
+			throw new RuntimeException("Failed to refresh product name index", e);
+		}
+		synchronized (this) {
+			Set<Long> missing = new HashSet<>(productIds);
+			for (Product product : products) {
+				missing.remove(product.getId());
+				put(product);
+			}
+			missing.forEach(this::remove);
+		}
+	}
+
+	private boolean isOlder(long productId, OffsetDateTime updatedAt) {
+		OffsetDateTime seen = versions.get(productId);
+		return seen != null && updatedAt != null && updatedAt.isBefore(seen);
+	}
+
+	private void onChanges(List<ChangeEvent> events) {
+		if (events.stream().anyMatch(e -> e.operation() == ChangeEvent.Operation.RESYNC)) {
+			reload();
+		} else {
+			refresh(events.stream().map(ChangeEvent::id).distinct().toList());
+		}
+	}
+}
@@ -1,312 +1,398 @@
 package com.stockapp.services.impl;
 
+import com.stockapp.models.dto.InventoryStats;
+import com.stockapp.models.dto.PageKey;
+import com.stockapp.models.dto.StockUpdateResult;
 import com.stockapp.models.entities.Product;
-import com.stockapp.models.enums.Category;
+import com.stockapp.models.enums.ProductFilter;
+import com.stockapp.models.enums.ProductSortColumn;
+import com.stockapp.models.enums.SortDirection;
 import com.stockapp.services.interfaces.ProductService;
 import com.stockapp.utils.*;
-import java.sql.*;
+import java.sql.SQLException;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class ProductServiceImpl implements ProductService {
+	private record Timestamps(OffsetDateTime createdAt, OffsetDateTime updatedAt) {
+	}
+
+	private static final RowMapper<Timestamps> TIMESTAMPS = RowMapper.of((rs, col) -> new Timestamps(
+			rs.getObject(col[0], OffsetDateTime.class), rs.getObject(col[1], OffsetDateTime.class)),
+			"created_at", "updated_at");
+
+	private static final RowMapper<InventoryStats> INVENTORY_STATS = RowMapper.of((rs, col) -> new InventoryStats(
+			rs.getLong(col[0]), rs.getLong(col[1]), rs.getLong(col[2]), rs.getLong(col[3]), rs.getBigDecimal(col[4])),
+			"total_products", "low_stock", "in_stock", "out_of_stock", "stock_value");
+
+	private static final RetryPolicy RETRY = DatabaseUtils.config().retryPolicy();
+	private static final BoundedCache<Long, Product> CACHE = new BoundedCache<>(
+			DatabaseUtils.config().getInt("cache.products.maxEntries"),
+			DatabaseUtils.config().getInt("cache.products.maxBytes"),
+			DatabaseUtils.config().getDuration("cache.products.ttlMs"),
+			ProductServiceImpl::estimateBytes);
+
+	private final QueryExecutor db = new QueryExecutor();
+	private final QueryExecutor lookups = db.withTimeout(DatabaseUtils.config().getDuration("query.lookupTimeoutMs"));
+	private final QueryExecutor lists = db.withTimeout(DatabaseUtils.config().getDuration("query.listTimeoutMs"));
+	private final int streamFetchSize = DatabaseUtils.config().getInt("jdbc.streamFetchSize");
+
 	public Product create(Product product) {
 		String sql = """
 				    INSERT INTO products (name, description, price, quantity, min_stock, category)
 				    VALUES (?, ?, ?, ?, ?, ?::category)
-				    RETURNING id, created_at;
+				    RETURNING id, name, description, price, quantity, min_stock, created_at, updated_at, category;
 				""";
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setString(1, product.getName());
-			ps.setString(2, product.getDescription());
-			ps.setBigDecimal(3, product.getPrice());
-			ps.setInt(4, product.getQuantity());
-			ps.setInt(5, product.getMinStock());
-			ps.setString(6, product.getCategory().name());
-			try (ResultSet rs = ps.executeQuery()) {
-				if (rs.next()) {
-					long id = rs.getLong("id");
-					OffsetDateTime createdAt = rs.getObject("created_at", OffsetDateTime.class);
-					return new Product(id,
-							product.getName(),
-							product.getDescription(),
-							product.getPrice(),
-							product.getQuantity(),
-							product.getMinStock(),
-							createdAt,
-							product.getCategory());
-				} else
-					throw new RuntimeException("Failed to retrieve generated product ID and creation timestamp.");
-			}
+		try {
+			Product created = db.queryOne(sql, RowMappers.PRODUCT,
+					product.getName(),
+					product.getDescription(),
+					product.getPrice(),
+					product.getQuantity(),
+					product.getMinStock(),
+					product.getCategory())
+					.orElseThrow(() -> new RuntimeException(
+							"Failed to retrieve generated product ID and creation timestamp."));
+			RestockQueue.stockChanged(List.of(stockLevel(created)));
+			ProductNameIndex.productChanged(created);
+			return created;
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to add product", e);
 		}
 	}
 
 	public Optional<Product> read(Long id) {
-		String sql_query = """
-				    SELECT id, name, description, price, quantity, min_stock, created_at, category
-				    FROM products
-				    WHERE id = ?
-				""";
-		try (Connection c = DatabaseUtils.getConnection()) {
-			PreparedStatement ps = c.prepareStatement(sql_query);
-			ps.setLong(1, id);
-			try (ResultSet rs = ps.executeQuery()) {
-				if (rs.next()) {
-					Product product = new Product(rs.getLong("id"),
-							rs.getString("name"),
-							rs.getString("description"),
-							rs.getBigDecimal("price"),
-							rs.getInt("quantity"),
-							rs.getInt("min_stock"),
-							rs.getObject("created_at", OffsetDateTime.class),
-							Category.valueOf(rs.getString("category")));
-					return Optional.of(product);
-				} else
-					return Optional.empty();
-			}
+		return CACHE.get(id, this::load);
+	}
+
+	private Optional<Product> load(Long id) {
+		String sql_query = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products WHERE id = ?";
+		try {
+			return lookups.queryOne(sql_query, RowMappers.PRODUCT, id);
 		} catch (SQLException e) {
 			throw new RuntimeException("Error reading product with ID : " + id, e);
 		}
 	}
 
+	public static BoundedCache.Stats cacheStats() {
+		return CACHE.stats();
+	}
+
+	static void invalidate(Collection<Long> productIds) {
+		CACHE.invalidateAll(productIds);
+	}
+
+	static void stockChanged(Collection<RestockQueue.StockLevel> levels) {
+		RestockQueue.stockChanged(levels);
+		ProductNameIndex.stockChanged(levels);
+	}
+
+	static void sold(Map<Long, Integer> quantities) {
+		RestockQueue.sold(quantities);
+		ProductNameIndex.sold(quantities);
+	}
+
+	private static RestockQueue.StockLevel stockLevel(Product product) {
+		return new RestockQueue.StockLevel(product.getId(), product.getName(), product.getQuantity(),
+				product.getMinStock(), product.getUpdatedAt());
+	}
+
+	private static long estimateBytes(Product product) {
+		long text = (product.getName() == null ? 0 : product.getName().length())
+				+ (product.getDescription() == null ? 0 : product.getDescription().length());
+		return 160 + 2 * text;
+	}
+
 	public Product update(Product product) {
 		String sql = """
 				    UPDATE products
 				    SET name = ?, description = ?, price = ?, quantity = ?, min_stock = ?, category = ?::category
 				    WHERE id = ?
-				    RETURNING id,created_at;
+				    RETURNING created_at, updated_at;
 				""";
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setString(1, product.getName());
-			ps.setString(2, product.getDescription());
-			ps.setBigDecimal(3, product.getPrice());
-			ps.setInt(4, product.getQuantity());
-			ps.setInt(5, product.getMinStock());
-			ps.setString(6, product.getCategory().name());
-			ps.setLong(7, product.getId());
-			try (ResultSet rs = ps.executeQuery()) {
-				if (rs.next()) {
-					long id = rs.getLong("id");
-					OffsetDateTime createdAt = rs.getObject("created_at", OffsetDateTime.class);
-					return new Product(id,
-							product.getName(),
-							product.getDescription(),
-							product.getPrice(),
-							product.getQuantity(),
-							product.getMinStock(),
-							createdAt,
-							product.getCategory());
-				} else {
-					throw new RuntimeException("Can not update : product with ID : " + product.getId() + " not found");
-				}
-			}
+		try {
+			Timestamps timestamps = db.queryOne(sql, TIMESTAMPS,
+					product.getName(),
+					product.getDescription(),
+					product.getPrice(),
+					product.getQuantity(),
+					product.getMinStock(),
+					product.getCategory(),
+					product.getId())
+					.orElseThrow(() -> new RuntimeException(
+							"Can not update : product with ID : " + product.getId() + " not found"));
+			Product updated = new Product(product.getId(),
+					product.getName(),
+					product.getDescription(),
+					product.getPrice(),
+					product.getQuantity(),
+					product.getMinStock(),
+					timestamps.createdAt(),
+					product.getCategory());
+			updated.setUpdatedAt(timestamps.updatedAt());
+			RestockQueue.stockChanged(List.of(stockLevel(updated)));
+			ProductNameIndex.productChanged(updated);
+			return updated;
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to update product", e);
+		} finally {
+			CACHE.invalidate(product.getId());
 		}
 	}
 
 	public void delete(Long id) {
-		String sql = "DELETE FROM products WHERE id = ?";
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setLong(1, id);
-			int deleted = ps.executeUpdate();
-			if (deleted == 0) {
+		try {
+			if (db.update("DELETE FROM products WHERE id = ?", id) == 0) {
 				throw new RuntimeException("No product deleted (id=" + id + ")");
 			}
+			RestockQueue.productDeleted(id);
+			ProductNameIndex.productDeleted(id);
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to delete product", e);
+		} finally {
+			CACHE.invalidate(id);
 		}
 	}
 
 	public List<Product> readAll() {
-		String sql = """
-				    SELECT id, name, description, price, quantity, min_stock, created_at, category
-				    FROM products
-				    ORDER BY id ASC
-				""";
-		List<Product> products = new ArrayList<>();
-		try (Connection c = DatabaseUtils.getConnection();
-				PreparedStatement ps = c.prepareStatement(sql);
-				ResultSet rs = ps.executeQuery()) {
-			while (rs.next()) {
-				products.add(new Product(rs.getLong("id"),
-						rs.getString("name"),
-						rs.getString("description"),
-						rs.getBigDecimal("price"),
-						rs.getInt("quantity"),
-						rs.getInt("min_stock"),
-						rs.getObject("created_at", OffsetDateTime.class),
-						Category.valueOf(rs.getString("category"))));
-			}
-			return products;
+		String sql = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products ORDER BY id ASC";
+		try {
+			return lists.queryList(sql, RowMappers.PRODUCT);
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to fetch products", e);
 		}
 	}
 
-	public Optional<Product> findByName(String name) {
-		String sql = """
-				    SELECT id, name, description, price, quantity, min_stock, created_at, category
-				    FROM products
-				    WHERE name = ?
-				""";
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setString(1, name);
-			try (ResultSet rs = ps.executeQuery()) {
-				if (rs.next()) {
-					return Optional.of(new Product(rs.getLong("id"),
-							rs.getString("name"),
-							rs.getString("description"),
-							rs.getBigDecimal("price"),
-							rs.getInt("quantity"),
-							rs.getInt("min_stock"),
-							rs.getObject("created_at", OffsetDateTime.class),
-							Category.valueOf(rs.getString("category"))));
-				} else {
-					return Optional.empty();
-				}
+	public List<Product> readPage(PageKey afterKey, int limit, ProductSortColumn sortColumn, SortDirection direction) {
+		return readPage(afterKey, limit, sortColumn, direction, ProductFilter.ALL);
+	}
+
+	public List<Product> readPage(PageKey afterKey, int limit, ProductSortColumn sortColumn, SortDirection direction,
+			ProductFilter filter) {
+		if (limit <= 0) {
+			throw new IllegalArgumentException("Page limit must be positive");
+		}
+		String cmp = direction == SortDirection.ASC ? ">" : "<";
+		String order = direction.name();
+		List<String> conditions = new ArrayList<>();
+		List<Object> params = new ArrayList<>();
+		if (filter.predicate() != null) {
+			conditions.add(filter.predicate());
+		}
+		String orderBy;
+		if (sortColumn == ProductSortColumn.ID) {
+			if (afterKey != null) {
+				conditions.add("id " + cmp + " ?");
+				params.add(afterKey.id());
 			}
+			orderBy = " ORDER BY id " + order;
+		} else {
+			String col = sortColumn.column();
+			if (afterKey != null) {
+				conditions.add("(" + col + ", id) " + cmp + " (" + sortColumn.placeholder() + ", ?)");
+				params.add(afterKey.value());
+				params.add(afterKey.id());
+			}
+			orderBy = " ORDER BY " + col + " " + order + ", id " + order;
+		}
+		params.add(limit);
+		String sql = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products"
+				+ (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+				+ orderBy + " LIMIT ?";
+		try {
+			return lists.queryList(sql, RowMappers.PRODUCT, params.toArray());
+		} catch (SQLException e) {
+			throw new RuntimeException("Failed to fetch product page", e);
+		}
+	}
+
+	public Stream<Product> streamAll() {
+		String sql = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products ORDER BY id ASC";
+		try {
+			return db.stream(sql, RowMappers.PRODUCT, streamFetchSize);
+		} catch (SQLException e) {
+			throw new RuntimeException("Failed to stream products", e);
+		}
+	}
+
+	public void forEach(Consumer<? super Product> action) {
+		try (Stream<Product> products = streamAll()) {
+			products.forEach(action);
+		}
+	}
+
+	public Optional<Product> findByName(String name) {
+		String sql = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products WHERE name = ?";
+		try {
+			return lookups.queryOne(sql, RowMappers.PRODUCT, name);
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to fetch product", e);
 		}
 	}
 
 	public List<Product> findByCategory(String category) {
-		String sql_query = "SELECT id, name, description, price, quantity, min_stock, created_at, category FROM products WHERE category = ?";
-		List<Product> products = new ArrayList<>();
-		try (Connection c = DatabaseUtils.getConnection()) {
-			PreparedStatement ps = c.prepareStatement(sql_query);
-            ps.setString(1, category.toUpperCase());
-			ResultSet rs = ps.executeQuery();
-			while (rs.next()) {
-				Product product = new Product(rs.getLong("id"),
-						rs.getString("name"),
-						rs.getString("description"),
-						rs.getBigDecimal("price"),
-						rs.getInt("quantity"),
-						rs.getInt("min_stock"),
-						rs.getObject("created_at", OffsetDateTime.class),
-						Category.valueOf(rs.getString("category")));
-				products.add(product);
-			}
-			return products;
+		String sql_query = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products WHERE category = ?::category";
+		try {
+			return lists.queryList(sql_query, RowMappers.PRODUCT, category.toUpperCase());
 		} catch (SQLException e) {
 			throw new RuntimeException("Error reading all products", e);
 		}
 	}
 
 	public boolean isNeedRestock(Long productId) {
-		String sql = "SELECT quantity,min_stock from products where id = ?";
-		int quantity, min_stock;
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setLong(1, productId);
-			ResultSet rs = ps.executeQuery();
-			rs.next();
-			quantity = rs.getInt("quantity");
-			min_stock = rs.getInt("min_stock");
-			return quantity <= min_stock;
+		String sql = "SELECT quantity <= min_stock AS need_restock FROM products WHERE id = ?";
+		try {
+			return lookups.queryOne(sql, RowMapper.of((rs, col) -> rs.getBoolean(col[0]), "need_restock"), productId)
+					.orElseThrow(() -> new RuntimeException("Failed to check product"));
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to check product", e);
 		}
 	}
 
-	public void updateStock(Long productId, int amount) {
-		String selectSql = "SELECT quantity FROM products WHERE id = ?";
-		String updateSql = "UPDATE products SET quantity = quantity + ? WHERE id = ?";
-		try (Connection c = DatabaseUtils.getConnection()) {
-			int currentQuantity;
-			try (PreparedStatement ps = c.prepareStatement(selectSql)) {
-				ps.setLong(1, productId);
-				try (ResultSet rs = ps.executeQuery()) {
-					if (!rs.next()) {
-						throw new RuntimeException("Product not found (id=" + productId + ")");
-					}
-					currentQuantity = rs.getInt("quantity");
-				}
+	public int updateStock(Long productId, int amount) {
+		String sql = """
+				    WITH updated AS (
+				        UPDATE products SET quantity = quantity + ?
+				        WHERE id = ? AND quantity + ? >= 0
+				        RETURNING name, quantity, min_stock, updated_at
+				    )
+				    SELECT EXISTS (SELECT 1 FROM products WHERE id = ?) AS found,
+				           u.name, u.quantity, u.min_stock, u.updated_at
+				    FROM (SELECT 1) one
+				    LEFT JOIN updated u ON true
+				""";
+		RowMapper<RestockQueue.StockLevel> newLevel = RowMapper.of((rs, col) -> {
+			if (!rs.getBoolean(col[0])) {
+				throw new RuntimeException("Product not found (id=" + productId + ")");
 			}
-			if (amount < 0 && currentQuantity + amount < 0) {
+			int quantity = rs.getInt(col[2]);
+			if (rs.wasNull()) {
 				throw new RuntimeException("Not enough stock for product (id=" + productId + ")");
 			}
-			try (PreparedStatement ps = c.prepareStatement(updateSql)) {
-				ps.setInt(1, amount);
-				ps.setLong(2, productId);
-				ps.executeUpdate();
+			return new RestockQueue.StockLevel(productId, rs.getString(col[1]), quantity, rs.getInt(col[3]),
+					rs.getObject(col[4], OffsetDateTime.class));
+		}, "found", "name", "quantity", "min_stock", "updated_at");
+		try {
+			RestockQueue.StockLevel level = db.queryOne(sql, newLevel, amount, productId, amount, productId)
+					.orElseThrow();
+			stockChanged(List.of(level));
+			return level.quantity();
+		} catch (SQLException e) {
+			throw new RuntimeException("Failed to update product stock", e);
+		} finally {
+			CACHE.invalidate(productId);
+		}
+	}
+
+	public List<StockUpdateResult> updateStockBatch(Map<Long, Integer> deltas) {
+		if (deltas.isEmpty()) {
+			return List.of();
+		}
+		String sql = """
+				    WITH deltas AS (
+				        SELECT * FROM unnest(?::bigint[], ?::int[]) AS d(product_id, delta)
+				    ), updated AS (
+				        UPDATE products p SET quantity = p.quantity + d.delta
+				        FROM deltas d
+				        WHERE p.id = d.product_id AND p.quantity + d.delta >= 0
+				        RETURNING p.id, p.name, p.quantity, p.min_stock, p.updated_at
+				    )
+				    SELECT d.product_id, d.delta, u.quantity AS new_quantity, p.id IS NOT NULL AS found,
+				           u.name, u.min_stock, u.updated_at
+				    FROM deltas d
+				    LEFT JOIN updated u ON u.id = d.product_id
+				    LEFT JOIN products p ON p.id = d.product_id
+				    ORDER BY d.product_id
+				""";
+		Map<Long, RestockQueue.StockLevel> levels = new HashMap<>();
+		RowMapper<StockUpdateResult> result = RowMapper.of((rs, col) -> {
+			long productId = rs.getLong(col[0]);
+			int delta = rs.getInt(col[1]);
+			int quantity = rs.getInt(col[2]);
+			if (!rs.wasNull()) {
+				levels.put(productId, new RestockQueue.StockLevel(productId, rs.getString(col[4]), quantity,
+						rs.getInt(col[5]), rs.getObject(col[6], OffsetDateTime.class)));
+				return new StockUpdateResult(productId, delta, quantity, null);
 			}
+			return new StockUpdateResult(productId, delta, null, rs.getBoolean(col[3])
+					? StockUpdateResult.Failure.INSUFFICIENT_STOCK
+					: StockUpdateResult.Failure.NOT_FOUND);
+		}, "product_id", "delta", "new_quantity", "found", "name", "min_stock",
+				"updated_at");
+		Long[] ids = deltas.keySet().toArray(Long[]::new);
+		Integer[] amounts = new Integer[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			amounts[i] = deltas.get(ids[i]);
+		}
+		try {
+			List<StockUpdateResult> results = db.inTransaction(RETRY, tx -> {
+				levels.clear();
+				tx.queryList("SELECT id FROM products WHERE id = ANY(?) ORDER BY id FOR UPDATE",
+						RowMapper.longColumn("id"), (Object) ids);
+				return tx.queryList(sql, result, ids, amounts);
+			});
+			stockChanged(levels.values());
+			return results;
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to update product stock", e);
+		} finally {
+			CACHE.invalidateAll(deltas.keySet());
 		}
 	}
 
+	@Override
+	public List<Product> searchByPrefix(String prefix, int limit) {
+		return ProductNameIndex.shared().search(prefix, limit);
+	}
+
+	@Override
+	public List<Product> searchFuzzy(String query, int limit) {
+		return ProductNameIndex.shared().searchFuzzy(query, limit);
+	}
+
 	@Override
 	public List<Product> findByPreName(String preName) {
-		String sql = "SELECT * FROM products WHERE name LIKE ?";
-		List<Product> listResult = new ArrayList<>();
-
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setString(1, preName + "%");
-			try {
-				ResultSet rs = ps.executeQuery();
-				while (rs.next()) {
-					listResult.add(
-							new Product(
-									rs.getLong("id"),
-									rs.getString("name"),
-									rs.getString("description"),
-									rs.getBigDecimal("price"),
-									rs.getInt("quantity"),
-									rs.getInt("min_stock"),
-									rs.getObject("created_at", OffsetDateTime.class),
-									Category.valueOf(rs.getString("category"))));
-				}
-				return listResult;
-			} catch (SQLException e) {
-				throw new RuntimeException("error executing query", e);
-			}
+		String sql = "SELECT " + RowMappers.PRODUCT_COLUMNS + " FROM products WHERE name LIKE ?";
+		try {
+			return lookups.queryList(sql, RowMappers.PRODUCT, preName + "%");
 		} catch (SQLException e) {
-			throw new RuntimeException("error connecting to the database", e);
+			throw new RuntimeException("error executing query", e);
 		}
 	}
 
     public int totalProducts() {
-        return getStatFromView("total_products");
+        return (int) inventoryStats().total();
     }
 
     public int lowStock() {
-        return getStatFromView("low_stock");
+        return (int) inventoryStats().lowStock();
     }
 
     public int inStock() {
-        return getStatFromView("in_stock");
+        return (int) inventoryStats().inStock();
     }
 
     public int outOfStock() {
-        return getStatFromView("out_of_stock");
-    }
-
-    private int getStatFromView(String columnName) {
-        String sql = "SELECT " + columnName + " FROM mv_product_stats";
-        try (Connection c = DatabaseUtils.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-            return 0;
-        } catch (SQLException e) {
-            throw new RuntimeException("Failed to fetch stat: " + columnName, e);
-        }
+        return (int) inventoryStats().outOfStock();
     }
 
-    public void refreshStats() {
-        try (Connection c = DatabaseUtils.getConnection();
-             Statement s = c.createStatement()) {
-            s.execute("REFRESH MATERIALIZED VIEW mv_product_stats");
+    public InventoryStats inventoryStats() {
+        String sql = """
+                SELECT SUM(total_products) AS total_products, SUM(low_stock) AS low_stock, SUM(in_stock) AS in_stock,
+                       SUM(out_of_stock) AS out_of_stock, SUM(stock_value) AS stock_value
+                FROM inventory_counters
+                """;
+        try {
+            return lookups.queryOne(sql, INVENTORY_STATS).orElseThrow();
         } catch (SQLException e) {
-            throw new RuntimeException("Failed to refresh product stats", e);
+            throw new RuntimeException("Failed to fetch inventory stats", e);
         }
     }
 }
@@ -0,0 +1,259 @@
+package com.stockapp.services.impl;
+
+import com.stockapp.models.dto.ChangeEvent;
+import com.stockapp.models.dto.RestockItem;
+import com.stockapp.utils.BackgroundExecutor;
+import com.stockapp.utils.ChangeFeed;
+import com.stockapp.utils.DatabaseUtils;
+import com.stockapp.utils.QueryExecutor;
+import com.stockapp.utils.RowMapper;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Products at or below min_stock, kept ranked as stock moves. Local writes update it directly after commit and the
+ * change feed covers writes made by other clients, so the table is only scanned once, on first use.
+ */
+public class RestockQueue {
+	public enum Ranking {
+		DEFICIT(Comparator.comparingInt(RestockItem::deficit).reversed()),
+		DAYS_OF_COVER(Comparator.comparingDouble(RestockItem::daysOfCover)
+				.thenComparing(Comparator.comparingInt(RestockItem::deficit).reversed()));
+
+		private final Comparator<RestockItem> order;
+
+		Ranking(Comparator<RestockItem> order) {
+			this.order = order.thenComparingLong(RestockItem::productId);
+		}
+	}
+
+	static final int VELOCITY_WINDOW_DAYS = 30;
+
+	private static volatile RestockQueue shared;
+
+	private final QueryExecutor db;
+	private final Map<Ranking, TreeSet<RestockItem>> rankings = new EnumMap<>(Ranking.class);
+	private final Map<Long, RestockItem> byProduct = new HashMap<>();
+	private final Map<Long, Double> dailySales = new HashMap<>();
+	private final Map<Long, OffsetDateTime> versions = new HashMap<>();
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+	RestockQueue(QueryExecutor db) {
+		this.db = db;
+		for (Ranking ranking : Ranking.values()) {
+			rankings.put(ranking, new TreeSet<>(ranking.order));
+		}
+	}
+
+	public static RestockQueue shared() {
+		RestockQueue queue = shared;
+		if (queue == null) {
+			synchronized (RestockQueue.class) {
+				if (shared == null) {
+					queue = new RestockQueue(new QueryExecutor()
+							.withTimeout(DatabaseUtils.config().getDuration("query.indexLoadTimeoutMs")));
+					// Subscribe before the initial scan so nothing committed in between is missed.
+					ChangeFeed.Subscription changes = ChangeFeed.subscribe(EnumSet.of(ChangeEvent.Table.PRODUCTS),
+							BackgroundExecutor.executor(), queue::onChanges);
+					try {
+						queue.reload();
+					} catch (RuntimeException e) {
+						changes.close();
+						throw e;
+					}
+					shared = queue;
+				}
+				queue = shared;
+			}
+		}
+		return queue;
+	}
+
+	// Hooks for the services, called after commit; they do nothing until some view has asked for the queue.
+	static void stockChanged(Collection<StockLevel> levels) {
+		RestockQueue queue = shared;
+		if (queue != null) {
+			queue.apply(levels);
+		}
+	}
+
+	static void sold(Map<Long, Integer> quantities) {
+		RestockQueue queue = shared;
+		if (queue != null) {
+			queue.recordSales(quantities);
+		}
+	}
+
+	static void productDeleted(long productId) {
+		RestockQueue queue = shared;
+		if (queue != null) {
+			queue.remove(productId);
+			queue.changed();
+		}
+	}
+
+	// Called after every change to the queue, so views refresh from the queue rather than racing it on the feed.
+	public ChangeFeed.Subscription onChange(Executor executor, Runnable listener) {
+		Runnable dispatch = () -> executor.execute(listener);
+		listeners.add(dispatch);
+		return () -> listeners.remove(dispatch);
+	}
+
+	public synchronized List<RestockItem> top(int n, Ranking ranking) {
+		List<RestockItem> items = new ArrayList<>(Math.min(n, byProduct.size()));
+		Iterator<RestockItem> it = rankings.get(ranking).iterator();
+		while (items.size() < n && it.hasNext()) {
+			items.add(it.next());
+		}
+		return items;
+	}
+
+	public synchronized int size() {
+		return byProduct.size();
+	}
+
+	public void reload() {
+		String sqlVelocity = """
+				SELECT product_id, SUM(quantity)::float8 / ? AS daily_sales
+				FROM sale_items
+				WHERE sale_created_at >= now() - make_interval(days => ?)
+				GROUP BY product_id
+				""";
+		String sqlLevels = """
+				SELECT id, name, quantity, min_stock, updated_at
+				FROM products
+				WHERE quantity <= min_stock OR id = ANY(?)
+				""";
+		Long[] queued;
+		synchronized (this) {
+			queued = byProduct.keySet().toArray(Long[]::new);
+		}
+		Map<Long, Double> velocity = new HashMap<>();
+		List<StockLevel> rows;
+		try {
+			db.queryEach(sqlVelocity, RowMapper.of((rs, col) -> Map.entry(rs.getLong(col[0]), rs.getDouble(col[1])),
+					"product_id", "daily_sales"), e -> velocity.put(e.getKey(), e.getValue()),
+					VELOCITY_WINDOW_DAYS, VELOCITY_WINDOW_DAYS);
+			rows = db.queryList(sqlLevels, STOCK_LEVEL, (Object) queued);
+		} catch (SQLException e) {
+			throw new RuntimeException("Failed to load restock queue", e);
+		}
+		// The snapshot goes through update() like any other change, so a hook or feed refresh that landed while it
+		// was read is not rolled back. Products already queued are read again so the ones that left can go.
+		synchronized (this) {
+			dailySales.clear();
+			dailySales.putAll(velocity);
+			Set<Long> missing = new HashSet<>(Arrays.asList(queued));
+			for (StockLevel row : rows) {
+				missing.remove(row.productId());
+				update(row);
+			}
+			missing.forEach(this::remove);
+		}
+		changed();
+	}
+
+	void apply(Collection<StockLevel> levels) {
+		synchronized (this) {
+			levels.forEach(this::update);
+		}
+		changed();
+	}
+
+	// Feed refreshes and post-commit hooks can arrive out of order, so a row older than the last one seen is dropped.
+	synchronized void update(StockLevel level) {
+		OffsetDateTime seen = versions.get(level.productId());
+		if (seen != null && level.updatedAt() != null && level.updatedAt().isBefore(seen)) {
+			return;
+		}
+		if (level.updatedAt() != null) {
+			versions.put(level.productId(), level.updatedAt());
+		}
+		remove(level.productId());
+		if (level.quantity() <= level.minStock()) {
+			add(new RestockItem(level.productId(), level.name(), level.quantity(), level.minStock(),
+					dailySales.getOrDefault(level.productId(), 0.0)));
+		}
+	}
+
+	synchronized void remove(long productId) {
+		RestockItem old = byProduct.remove(productId);
+		if (old != null) {
+			rankings.values().forEach(ranked -> ranked.remove(old));
+		}
+	}
+
+	private void add(RestockItem item) {
+		rankings.values().forEach(ranked -> ranked.add(item));
+		byProduct.put(item.productId(), item);
+	}
+
+	// Sales only move the velocity estimate here; the stock level itself arrives through update().
+	void recordSales(Map<Long, Integer> quantities) {
+		synchronized (this) {
+			quantities.forEach((productId, quantity) -> {
+				dailySales.merge(productId, (double) quantity / VELOCITY_WINDOW_DAYS, Double::sum);
+				RestockItem old = byProduct.get(productId);
+				if (old != null) {
+					remove(productId);
+					add(new RestockItem(productId, old.name(), old.quantity(), old.minStock(),
+							dailySales.get(productId)));
+				}
+			});
+		}
+		changed();
+	}
+
+	void refresh(Collection<Long> productIds) {
+		String sql = "SELECT id, name, quantity, min_stock, updated_at FROM products WHERE id = ANY(?)";
+		List<StockLevel> rows;
+		try {
+			rows = db.queryList(sql, STOCK_LEVEL, (Object) productIds.toArray(Long[]::new));
+		} catch (SQLException e) {
+			throw new RuntimeException("Failed to refresh restock queue", e);
+		}
+		synchronized (this) {
+			Set<Long> missing = new HashSet<>(productIds);
+			for (StockLevel row : rows) {
+				missing.remove(row.productId());
+				update(row);
+			}
+			missing.forEach(this::remove);
+		}
+		changed();
+	}
+
+	private void onChanges(List<ChangeEvent> events) {
+		if (events.stream().anyMatch(e -> e.operation() == ChangeEvent.Operation.RESYNC)) {
+			reload();
+		} else {
+			refresh(events.stream().map(ChangeEvent::id).distinct().toList());
+		}
+	}
+
+	private void changed() {
+		listeners.forEach(Runnable::run);
+	}
+
+	record StockLevel(long productId, String name, int quantity, int minStock, OffsetDateTime updatedAt) {
+	}
+
+	static final RowMapper<StockLevel> STOCK_LEVEL = RowMapper.of((rs, col) -> new StockLevel(rs.getLong(col[0]),
+			rs.getString(col[1]), rs.getInt(col[2]), rs.getInt(col[3]), rs.getObject(col[4], OffsetDateTime.class)),
+			"id", "name", "quantity", "min_stock", "updated_at");
+}
@@ -0,0 +1,68 @@
+package com.stockapp.services.impl;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+// Splits a time range into the fewest sales_rollups buckets: whole months in the middle, whole days around them
+// and hours at the ends. Ranges are widened to whole hours, the finest buckets there are.
+final class RollupBuckets {
+	enum Grain {
+		HOUR,
+		DAY,
+		MONTH
+	}
+
+	record Span(Grain grain, LocalDateTime from, LocalDateTime to) {
+	}
+
+	private RollupBuckets() {
+	}
+
+	static List<Span> cover(LocalDateTime from, LocalDateTime to) {
+		List<Span> spans = new ArrayList<>();
+		cover(floor(from, Grain.HOUR), ceil(to, Grain.HOUR), Grain.MONTH, spans);
+		return spans;
+	}
+
+	private static void cover(LocalDateTime from, LocalDateTime to, Grain grain, List<Span> spans) {
+		if (!from.isBefore(to)) {
+			return;
+		}
+		if (grain == Grain.HOUR) {
+			spans.add(new Span(grain, from, to));
+			return;
+		}
+		Grain finer = Grain.values()[grain.ordinal() - 1];
+		LocalDateTime start = ceil(from, grain);
+		LocalDateTime end = floor(to, grain);
+		if (start.isBefore(end)) {
+			spans.add(new Span(grain, start, end));
+			cover(from, start, finer, spans);
+			cover(end, to, finer, spans);
+		} else {
+			cover(from, to, finer, spans);
+		}
+	}
+
+	static LocalDateTime floor(LocalDateTime time, Grain grain) {
+		return switch (grain) {
+			case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+			case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+			case MONTH -> time.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
+		};
+	}
+
+	static LocalDateTime ceil(LocalDateTime time, Grain grain) {
+		LocalDateTime floor = floor(time, grain);
+		if (floor.equals(time)) {
+			return time;
+		}
+		return switch (grain) {
+			case HOUR -> floor.plusHours(1);
+			case DAY -> floor.plusDays(1);
+			case MONTH -> floor.plusMonths(1);
+		};
+	}
+}
@@ -0,0 +1,65 @@
+package com.stockapp.services.impl;
+
+import com.stockapp.models.entities.Product;
+import com.stockapp.models.entities.Sale;
+import com.stockapp.models.entities.SaleItem;
+import com.stockapp.models.entities.User;
+import com.stockapp.models.enums.Category;
+import com.stockapp.models.enums.UserRole;
+import com.stockapp.utils.RowMapper;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+final class RowMappers {
+	static final String PRODUCT_COLUMNS = "id, name, description, price, quantity, min_stock, created_at, updated_at, category";
+	static final String SALE_ITEM_COLUMNS = "id, sale_id, product_id, quantity, unit_price, line_total";
+	static final String USER_COLUMNS = "id, username, password_hash, full_name, role, created_at, updated_at";
+
+	static final RowMapper<Product> PRODUCT = RowMapper.of((rs, col) -> {
+		Product product = new Product(rs.getLong(col[0]),
+				rs.getString(col[1]),
+				rs.getString(col[2]),
+				rs.getBigDecimal(col[3]),
+				rs.getInt(col[4]),
+				rs.getInt(col[5]),
+				rs.getObject(col[6], OffsetDateTime.class),
+				Category.valueOf(rs.getString(col[7])));
+		product.setUpdatedAt(rs.getObject(col[8], OffsetDateTime.class));
+		return product;
+	}, "id", "name", "description", "price", "quantity", "min_stock", "created_at", "category", "updated_at");
+
+	static final RowMapper<Sale> SALE = RowMapper.of((rs, col) -> new Sale(rs.getLong(col[0]),
+			rs.getBigDecimal(col[1]),
+			rs.getTimestamp(col[2]).toInstant().atOffset(ZoneOffset.UTC)),
+			"id", "total_price", "created_at");
+
+	static final RowMapper<Sale> SALE_WITH_TOTAL_ITEMS = RowMapper.of((rs, col) -> {
+		Sale sale = new Sale(rs.getLong(col[0]),
+				rs.getBigDecimal(col[1]),
+				rs.getTimestamp(col[2]).toInstant().atOffset(ZoneOffset.UTC));
+		sale.setTotalItems(rs.getInt(col[3]));
+		return sale;
+	}, "id", "total_price", "created_at", "total_items");
+
+	static final RowMapper<SaleItem> SALE_ITEM = RowMapper.of((rs, col) -> new SaleItem(rs.getLong(col[0]),
+			rs.getLong(col[1]),
+			rs.getLong(col[2]),
+			rs.getInt(col[3]),
+			rs.getBigDecimal(col[4]),
+			rs.getBigDecimal(col[5])),
+			"id", "sale_id", "product_id", "quantity", "unit_price", "line_total");
+
+	static final RowMapper<User> USER = RowMapper.of((rs, col) -> {
+		User user = new User(rs.getLong(col[0]),
+				rs.getString(col[1]),
+				rs.getString(col[2]),
+				rs.getString(col[3]),
+				UserRole.valueOf(rs.getString(col[4])),
+				rs.getObject(col[5], OffsetDateTime.class));
+		user.setUpdatedAt(rs.getObject(col[6], OffsetDateTime.class));
+		return user;
+	}, "id", "username", "password_hash", "full_name", "role", "created_at", "updated_at");
+
+	private RowMappers() {
+	}
+}
@@ -1,66 +1,58 @@
 package com.stockapp.services.impl;
 
+import com.stockapp.models.entities.Sale;
 import com.stockapp.models.entities.SaleItem;
 import com.stockapp.services.interfaces.SaleItemService;
 import com.stockapp.utils.DatabaseUtils;
-import java.sql.*;
-import java.util.ArrayList;
+import com.stockapp.utils.QueryExecutor;
+import com.stockapp.utils.RowMapper;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class SaleItemServiceImpl implements SaleItemService {
+	private final QueryExecutor db = new QueryExecutor();
+	private final int streamFetchSize = DatabaseUtils.config().getInt("jdbc.streamFetchSize");
+
 	public SaleItem create(SaleItem saleItem) {
 		String sql = """
-				INSERT INTO sale_items (sale_id, product_id, quantity, unit_price)
-				VALUES (?, ?, ?, ?)
-				RETURNING id, line_total;
+				INSERT INTO sale_items (sale_id, sale_created_at, product_id, quantity, unit_price)
+				SELECT s.id, s.created_at, ?, ?, ?
+				FROM sales s
+				WHERE s.id = ?
+				RETURNING id, sale_id, product_id, quantity, unit_price, line_total;
 				""";
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setLong(1, saleItem.getSaleId());
-			ps.setLong(2, saleItem.getProductId());
-			ps.setInt(3, saleItem.getQuantity());
-			ps.setBigDecimal(4, saleItem.getUnitPrice());
-			try (ResultSet rs = ps.executeQuery()) {
-				if (rs.next()) {
-					saleItem.setId(rs.getLong("id"));
-					saleItem.setLineTotal(rs.getBigDecimal("line_total"));
-					return saleItem;
-				} else {
-					throw new RuntimeException("Failed to insert sale item");
-				}
-			}
+		try {
+			SaleItem created = db.queryOne(sql, RowMappers.SALE_ITEM,
+					saleItem.getProductId(),
+					saleItem.getQuantity(),
+					saleItem.getUnitPrice(),
+					saleItem.getSaleId())
+					.orElseThrow(() -> new RuntimeException("Failed to insert sale item"));
+			saleItem.setId(created.getId());
+			saleItem.setLineTotal(created.getLineTotal());
+			SaleServiceImpl.salesChanged();
+			return saleItem;
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to add sale item", e);
 		}
 	}
 
 	public void delete(Long Id) {
-		String sql = "DELETE FROM sale_items WHERE id = ?";
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setLong(1, Id);
-			ps.executeUpdate();
+		try {
+			db.update("DELETE FROM sale_items WHERE id = ?", Id);
+			SaleServiceImpl.salesChanged();
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to delete sale item  : " + Id, e);
 		}
 	}
 
 	public Optional<SaleItem> read(Long id) {
-		String sql = "SELECT id, sale_id, product_id, quantity, unit_price, line_total FROM sale_items WHERE id = ?";
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setLong(1, id);
-			try (ResultSet rs = ps.executeQuery()) {
-				if (rs.next()) {
-					SaleItem saleItem = new SaleItem(rs.getLong("id"),
-							rs.getLong("sale_id"),
-							rs.getLong("product_id"),
-							rs.getInt("quantity"),
-							rs.getBigDecimal("unit_price"),
-							rs.getBigDecimal("line_total"));
-					return Optional.of(saleItem);
-				} else {
-					return Optional.empty();
-				}
-			}
+		String sql = "SELECT " + RowMappers.SALE_ITEM_COLUMNS + " FROM sale_items WHERE id = ?";
+		try {
+			return db.queryOne(sql, RowMappers.SALE_ITEM, id);
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to read sale item with ID: " + id, e);
 		}
@@ -68,92 +60,77 @@ public class SaleItemServiceImpl implements SaleItemService {
 
 	public SaleItem update(SaleItem saleItem) {
 		String sql = """
-				UPDATE sale_items
-				SET sale_id = ?, product_id = ?, quantity = ?, unit_price = ?
-				WHERE id = ?
-				RETURNING line_total;
+				UPDATE sale_items si
+				SET sale_id = s.id, sale_created_at = s.created_at, product_id = ?, quantity = ?, unit_price = ?
+				FROM sales s
+				WHERE s.id = ? AND si.id = ?
+				RETURNING si.line_total;
 				""";
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setLong(1, saleItem.getSaleId());
-			ps.setLong(2, saleItem.getProductId());
-			ps.setInt(3, saleItem.getQuantity());
-			ps.setBigDecimal(4, saleItem.getUnitPrice());
-			ps.setLong(5, saleItem.getId());
-			try (ResultSet rs = ps.executeQuery()) {
-				if (rs.next()) {
-					saleItem.setLineTotal(rs.getBigDecimal("line_total"));
-					return saleItem;
-				} else {
-					throw new RuntimeException("Failed to update sale item with ID: " + saleItem.getId());
-				}
-			}
+		try {
+			saleItem.setLineTotal(db.queryOne(sql, RowMapper.of((rs, col) -> rs.getBigDecimal(col[0]), "line_total"),
+					saleItem.getProductId(),
+					saleItem.getQuantity(),
+					saleItem.getUnitPrice(),
+					saleItem.getSaleId(),
+					saleItem.getId())
+					.orElseThrow(() -> new RuntimeException("Failed to update sale item with ID: " + saleItem.getId())));
+			SaleServiceImpl.salesChanged();
+			return saleItem;
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to update sale item", e);
 		}
 	}
 
 	public List<SaleItem> readAll() {
-		String sql = "SELECT id, sale_id, product_id, quantity, unit_price, line_total FROM sale_items";
-		List<SaleItem> saleItems = new ArrayList<>();
-		try (Connection c = DatabaseUtils.getConnection();
-				PreparedStatement ps = c.prepareStatement(sql);
-				ResultSet rs = ps.executeQuery()) {
-			while (rs.next()) {
-				SaleItem saleItem = new SaleItem(rs.getLong("id"),
-						rs.getLong("sale_id"),
-						rs.getLong("product_id"),
-						rs.getInt("quantity"),
-						rs.getBigDecimal("unit_price"),
-						rs.getBigDecimal("line_total"));
-				saleItems.add(saleItem);
-			}
+		String sql = "SELECT " + RowMappers.SALE_ITEM_COLUMNS + " FROM sale_items";
+		try {
+			return db.queryList(sql, RowMappers.SALE_ITEM);
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to read all sale items", e);
 		}
-		return saleItems;
+	}
+
+	public Stream<SaleItem> streamAll() {
+		String sql = "SELECT " + RowMappers.SALE_ITEM_COLUMNS + " FROM sale_items ORDER BY id ASC";
+		try {
+			return db.stream(sql, RowMappers.SALE_ITEM, streamFetchSize);
+		} catch (SQLException e) {
+			throw new RuntimeException("Failed to stream sale items", e);
+		}
+	}
+
+	public void forEach(Consumer<? super SaleItem> action) {
+		try (Stream<SaleItem> saleItems = streamAll()) {
+			saleItems.forEach(action);
+		}
 	}
 
 	public List<SaleItem> findByProductId(Long productId) {
-		String sql = "SELECT id, sale_id, product_id, quantity, unit_price, line_total FROM sale_items WHERE product_id = ?";
-		List<SaleItem> saleItems = new ArrayList<>();
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setLong(1, productId);
-			try (ResultSet rs = ps.executeQuery()) {
-				while (rs.next()) {
-					SaleItem saleItem = new SaleItem(rs.getLong("id"),
-							rs.getLong("sale_id"),
-							rs.getLong("product_id"),
-							rs.getInt("quantity"),
-							rs.getBigDecimal("unit_price"),
-							rs.getBigDecimal("line_total"));
-					saleItems.add(saleItem);
-				}
-			}
+		String sql = "SELECT " + RowMappers.SALE_ITEM_COLUMNS + " FROM sale_items WHERE product_id = ?";
+		try {
+			return db.queryList(sql, RowMappers.SALE_ITEM, productId);
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to find sale items by product ID: " + productId, e);
 		}
-		return saleItems;
+	}
+
+	// Unlike findBySaleId, reads only the partition of the month the sale was made in.
+	public List<SaleItem> findBySale(Sale sale) {
+		String sql = "SELECT " + RowMappers.SALE_ITEM_COLUMNS
+				+ " FROM sale_items WHERE sale_id = ? AND sale_created_at = ?";
+		try {
+			return db.queryList(sql, RowMappers.SALE_ITEM, sale.getId(), sale.getCreatedAt());
+		} catch (SQLException e) {
+			throw new RuntimeException("Failed to find sale items by sale ID: " + sale.getId(), e);
+		}
 	}
 
 	public List<SaleItem> findBySaleId(Long saleId) {
-		String sql = "SELECT id, sale_id, product_id, quantity, unit_price, line_total FROM sale_items WHERE sale_id = ?";
-		List<SaleItem> saleItems = new ArrayList<>();
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setLong(1, saleId);
-			try (ResultSet rs = ps.executeQuery()) {
-				while (rs.next()) {
-					SaleItem saleItem = new SaleItem(rs.getLong("id"),
-							rs.getLong("sale_id"),
-							rs.getLong("product_id"),
-							rs.getInt("quantity"),
-							rs.getBigDecimal("unit_price"),
-							rs.getBigDecimal("line_total"));
-					saleItems.add(saleItem);
-				}
-			}
+		String sql = "SELECT " + RowMappers.SALE_ITEM_COLUMNS + " FROM sale_items WHERE sale_id = ?";
+		try {
+			return db.queryList(sql, RowMappers.SALE_ITEM, saleId);
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to find sale items by sale ID: " + saleId, e);
 		}
-		return saleItems;
 	}
 }
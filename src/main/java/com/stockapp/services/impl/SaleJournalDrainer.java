@@ -0,0 +1,128 @@
+package com.stockapp.services.impl;
+
+import com.stockapp.utils.Journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+final class SaleJournalDrainer implements AutoCloseable {
+	private static final Duration POLL_WAIT = Duration.ofMillis(500);
+	private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+	private final Journal journal;
+	private final SaleServiceImpl saleService;
+	private final int batchSize;
+	private final Path rejectedFile;
+	private final Consumer<Map<JournaledSale, String>> onRejected;
+	private final Thread thread;
+	private volatile boolean closed;
+
+	SaleJournalDrainer(Journal journal, SaleServiceImpl saleService, int batchSize, Path rejectedFile,
+			Consumer<Map<JournaledSale, String>> onRejected) {
+		this.journal = journal;
+		this.saleService = saleService;
+		this.batchSize = batchSize;
+		this.rejectedFile = rejectedFile;
+		this.onRejected = onRejected;
+		this.thread = new Thread(this::drainLoop, "sale-journal-drainer");
+		thread.setDaemon(true);
+	}
+
+	void start() {
+		if (thread.getState() == Thread.State.NEW) {
+			thread.start();
+		}
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			thread.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void drainLoop() {
+		long backoff = 0;
+		List<Journal.Entry> batch = List.of();
+		while (!closed) {
+			try {
+				if (batch.isEmpty()) {
+					batch = journal.poll(batchSize, POLL_WAIT);
+					if (batch.isEmpty()) {
+						continue;
+					}
+				}
+				drain(batch);
+				batch = List.of();
+				backoff = 0;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException e) {
+				backoff = Math.min(MAX_BACKOFF_MILLIS, Math.max(250, backoff * 2));
+				System.err.println("Sale journal drain failed, retrying in " + backoff + " ms: " + e.getMessage());
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException ie) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	void drain(List<Journal.Entry> batch) {
+		Map<JournaledSale, String> sales = new LinkedHashMap<>();
+		List<String> deadLetters = new ArrayList<>();
+		Map<JournaledSale, String> rejected = Map.of();
+		for (Journal.Entry entry : batch) {
+			try {
+				sales.put(JournaledSale.decode(entry.payload()), entry.payload());
+			} catch (RuntimeException e) {
+				deadLetters.add("-\t" + e.getMessage() + "\t" + entry.payload());
+			}
+		}
+		if (!sales.isEmpty()) {
+			rejected = saleService.applyJournaledSales(new ArrayList<>(sales.keySet()));
+			rejected.forEach((sale, reason) -> deadLetters.add(sale.journalId() + "\t" + reason + "\t" + sales.get(sale)));
+		}
+		if (!deadLetters.isEmpty()) {
+			writeRejected(deadLetters);
+		}
+		journal.markDrained(batch);
+		if (!rejected.isEmpty()) {
+			onRejected.accept(rejected);
+		}
+	}
+
+	private void writeRejected(List<String> lines) {
+		StringBuilder text = new StringBuilder();
+		lines.forEach(line -> text.append(line.replace('\n', ' ')).append('\n'));
+		try (FileChannel out = FileChannel.open(rejectedFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND)) {
+			ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+			while (buffer.hasRemaining()) {
+				out.write(buffer);
+			}
+			out.force(false);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to record rejected journaled sales", e);
+		}
+		System.err.println(lines.size() + " journaled sale(s) rejected, see " + rejectedFile);
+	}
+}
@@ -1,33 +1,124 @@
 package com.stockapp.services.impl;
 
+import com.stockapp.models.dto.SalesBreakdown;
+import com.stockapp.models.dto.SalesStats;
 import com.stockapp.models.entities.Sale;
 import com.stockapp.models.entities.SaleItem;
+import com.stockapp.models.enums.Category;
+import com.stockapp.models.enums.SalesGrouping;
 import com.stockapp.services.interfaces.SaleService;
+import com.stockapp.utils.BackgroundExecutor;
+import com.stockapp.utils.BoundedCache;
+import com.stockapp.utils.ChangeFeed;
 import com.stockapp.utils.DatabaseUtils;
+import com.stockapp.utils.Journal;
+import com.stockapp.utils.QueryExecutor;
+import com.stockapp.utils.RetryPolicy;
+import com.stockapp.utils.RowMapper;
 
-import java.sql.*;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 public class SaleServiceImpl implements SaleService {
+	public record CheckoutStats(long committed, long failed, long retries, double averageLockWaitMillis,
+			double maxLockWaitMillis) {
+	}
+
+	// A journaled sale that was acknowledged at the terminal but could not be written to Postgres.
+	public record RejectedSale(UUID journalId, OffsetDateTime createdAt, BigDecimal totalPrice, String reason) {
+	}
+
+	private static final RetryPolicy RETRY = DatabaseUtils.config().retryPolicy();
+	private static final boolean JOURNAL_ENABLED = DatabaseUtils.config().getBoolean("journal.enabled");
+	private static final LongAdder CHECKOUTS_COMMITTED = new LongAdder();
+	private static final LongAdder CHECKOUTS_FAILED = new LongAdder();
+	private static final LongAdder CHECKOUT_RETRIES = new LongAdder();
+	private static final LongAdder LOCK_WAITS = new LongAdder();
+	private static final LongAdder LOCK_WAIT_NANOS = new LongAdder();
+	private static final AtomicLong MAX_LOCK_WAIT_NANOS = new AtomicLong();
+	private static final StockReservations RESERVED = new StockReservations();
+	private static final List<RejectionListener> REJECTION_LISTENERS = new CopyOnWriteArrayList<>();
+
+	private record RejectionListener(Executor executor, Consumer<List<RejectedSale>> listener) {
+	}
+
+	private static final RowMapper<OffsetDateTime> CREATED_AT = RowMapper
+			.of((rs, col) -> rs.getTimestamp(col[0]).toInstant().atOffset(ZoneOffset.UTC), "created_at");
+
+	private record DateRange(LocalDate start, LocalDate end) {
+	}
+
+	private static final RowMapper<SalesBreakdown> SALES_BREAKDOWN = RowMapper.of((rs, col) -> new SalesBreakdown(
+			rs.getObject(col[0], Long.class),
+			rs.getString(col[1]) == null ? null : Category.valueOf(rs.getString(col[1])),
+			rs.getLong(col[2]), rs.getLong(col[3]), rs.getBigDecimal(col[4])),
+			"product_id", "category", "sales_count", "items_sold", "revenue");
+	private static final RowMapper<SalesStats> SALES_STATS = RowMapper.of((rs, col) -> new SalesStats(
+			rs.getLong(col[0]), rs.getBigDecimal(col[1]), rs.getLong(col[2]), rs.getBigDecimal(col[3])),
+			"sales_count", "revenue", "items_sold", "average_sale");
+	private static final BoundedCache<DateRange, SalesStats> STATS_CACHE = new BoundedCache<>(16, 16 * 256,
+			DatabaseUtils.config().getDuration("cache.salesStats.ttlMs"), stats -> 256);
+
+	private final QueryExecutor db = new QueryExecutor();
+	private final QueryExecutor lookups = db.withTimeout(DatabaseUtils.config().getDuration("query.lookupTimeoutMs"));
+	private final QueryExecutor lists = db.withTimeout(DatabaseUtils.config().getDuration("query.listTimeoutMs"));
+
+	private static final class Journaling {
+		static final Path FILE = journalFile();
+		static final Journal JOURNAL = new Journal(FILE,
+				DatabaseUtils.config().getInt("journal.maxPending"),
+				DatabaseUtils.config().getDuration("journal.appendTimeoutMs"));
+		static final SaleJournalDrainer DRAINER = new SaleJournalDrainer(JOURNAL,
+				new SaleServiceImpl(),
+				DatabaseUtils.config().getInt("journal.drainBatchSize"),
+				FILE.resolveSibling(FILE.getFileName() + ".rejected"),
+				SaleServiceImpl::journalRejected);
+
+		static {
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				DRAINER.close();
+				JOURNAL.close();
+			}, "sale-journal-shutdown"));
+		}
+
+		private static Path journalFile() {
+			String file = DatabaseUtils.config().getString("journal.file");
+			return file.isEmpty() ? Path.of(System.getProperty("user.home"), ".stockapp", "sales.journal") : Path.of(file);
+		}
+	}
 
 	@Override
 	public Sale create(Sale sale) {
-		String sql = "INSERT INTO sales (total_price) VALUES (?) RETURNING id, created_at";
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setBigDecimal(1, sale.getTotalPrice());
-			try (ResultSet rs = ps.executeQuery()) {
-				if (rs.next()) {
-					sale.setId(rs.getLong("id"));
-					sale.setCreatedAt(rs.getTimestamp("created_at").toInstant().atOffset(ZoneOffset.UTC));
-					return sale;
-				} else {
-					throw new RuntimeException("Failed to create sale");
-				}
-			}
+		String sql = "INSERT INTO sales (total_price) VALUES (?) RETURNING id, total_price, created_at";
+		try {
+			Sale created = db.queryOne(sql, RowMappers.SALE, sale.getTotalPrice())
+					.orElseThrow(() -> new RuntimeException("Failed to create sale"));
+			sale.setId(created.getId());
+			sale.setCreatedAt(created.getCreatedAt());
+			salesChanged();
+			return sale;
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to create sale", e);
 		}
@@ -36,18 +127,8 @@ public class SaleServiceImpl implements SaleService {
 	@Override
 	public Optional<Sale> read(Long id) {
 		String sql = "SELECT id, total_price, created_at FROM sales WHERE id = ?";
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setLong(1, id);
-			try (ResultSet rs = ps.executeQuery()) {
-				if (rs.next()) {
-					Sale sale = new Sale(rs.getLong("id"),
-							rs.getBigDecimal("total_price"),
-							rs.getTimestamp("created_at").toInstant().atOffset(ZoneOffset.UTC));
-					return Optional.of(sale);
-				} else {
-					return Optional.empty();
-				}
-			}
+		try {
+			return lookups.queryOne(sql, RowMappers.SALE, id);
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to read sale with ID: " + id, e);
 		}
@@ -61,17 +142,11 @@ public class SaleServiceImpl implements SaleService {
 				WHERE id = ?
 				RETURNING created_at;
 				""";
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setBigDecimal(1, sale.getTotalPrice());
-			ps.setLong(2, sale.getId());
-			try (ResultSet rs = ps.executeQuery()) {
-				if (rs.next()) {
-					sale.setCreatedAt(rs.getTimestamp("created_at").toInstant().atOffset(ZoneOffset.UTC));
-					return sale;
-				} else {
-					throw new RuntimeException("Failed to update sale with ID: " + sale.getId());
-				}
-			}
+		try {
+			sale.setCreatedAt(db.queryOne(sql, CREATED_AT, sale.getTotalPrice(), sale.getId())
+					.orElseThrow(() -> new RuntimeException("Failed to update sale with ID: " + sale.getId())));
+			salesChanged();
+			return sale;
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to update sale", e);
 		}
@@ -79,13 +154,11 @@ public class SaleServiceImpl implements SaleService {
 
 	@Override
 	public void delete(Long id) {
-		String sql = "DELETE FROM sales WHERE id = ?";
-		try (Connection c = DatabaseUtils.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-			ps.setLong(1, id);
-			int rowsAffected = ps.executeUpdate();
-			if (rowsAffected == 0) {
+		try {
+			if (db.update("DELETE FROM sales WHERE id = ?", id) == 0) {
 				throw new RuntimeException("No sale found with ID: " + id);
 			}
+			salesChanged();
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to delete sale with ID: " + id, e);
 		}
@@ -96,155 +169,336 @@ public class SaleServiceImpl implements SaleService {
 		String sql = """
 				SELECT s.id, s.total_price, s.created_at, COALESCE(SUM(si.quantity), 0) as total_items
 				FROM sales s
-				LEFT JOIN sale_items si ON s.id = si.sale_id
+				LEFT JOIN sale_items si ON s.id = si.sale_id AND s.created_at = si.sale_created_at
 				GROUP BY s.id, s.total_price, s.created_at
 				ORDER BY s.created_at DESC
 				""";
-		List<Sale> sales = new ArrayList<>();
-		try (Connection c = DatabaseUtils.getConnection();
-				PreparedStatement ps = c.prepareStatement(sql);
-				ResultSet rs = ps.executeQuery()) {
-			while (rs.next()) {
-				Sale sale = new Sale(rs.getLong("id"),
-						rs.getBigDecimal("total_price"),
-						rs.getTimestamp("created_at").toInstant().atOffset(ZoneOffset.UTC));
-				sale.setTotalItems(rs.getInt("total_items"));
-				sales.add(sale);
-			}
+		try {
+			return lists.queryList(sql, RowMappers.SALE_WITH_TOTAL_ITEMS);
 		} catch (SQLException e) {
 			throw new RuntimeException("Failed to read all sales", e);
 		}
-		return sales;
+	}
+
+	// Sales made on the store-local days start..end. Both tables are bounded by date, so only those months'
+	// partitions are read however much history the tables hold.
+	public List<Sale> readBetween(LocalDate start, LocalDate end) {
+		String sql = """
+				SELECT s.id, s.total_price, s.created_at, COALESCE(SUM(si.quantity), 0) as total_items
+				FROM sales s
+				LEFT JOIN sale_items si ON s.id = si.sale_id AND s.created_at = si.sale_created_at
+				    AND si.sale_created_at >= ?::timestamp AT TIME ZONE store_zone()
+				    AND si.sale_created_at < ?::timestamp AT TIME ZONE store_zone()
+				WHERE s.created_at >= ?::timestamp AT TIME ZONE store_zone()
+				    AND s.created_at < ?::timestamp AT TIME ZONE store_zone()
+				GROUP BY s.id, s.total_price, s.created_at
+				ORDER BY s.created_at DESC
+				""";
+		LocalDateTime from = start.atStartOfDay();
+		LocalDateTime to = end.plusDays(1).atStartOfDay();
+		try {
+			return lists.queryList(sql, RowMappers.SALE_WITH_TOTAL_ITEMS, from, to, from, to);
+		} catch (SQLException e) {
+			throw new RuntimeException("Failed to read sales from " + start + " to " + end, e);
+		}
 	}
 
 	@Override
 	public Sale createSaleWithItems(Sale sale, List<SaleItem> items) {
-		Connection c = null;
-		PreparedStatement psSale = null;
-		PreparedStatement psItem = null;
-		PreparedStatement psStock = null;
+		int[] attempts = new int[1];
+		List<RestockQueue.StockLevel> levels = new ArrayList<>();
 		try {
-			c = DatabaseUtils.getConnection();
-			c.setAutoCommit(false);
-			String sqlSale = "INSERT INTO sales (total_price) VALUES (?) RETURNING id, created_at";
-			psSale = c.prepareStatement(sqlSale);
-			psSale.setBigDecimal(1, sale.getTotalPrice());
-			ResultSet rsSale = psSale.executeQuery();
-			if (rsSale.next()) {
-				sale.setId(rsSale.getLong("id"));
-				sale.setCreatedAt(rsSale.getTimestamp("created_at").toInstant().atOffset(ZoneOffset.UTC));
-			} else {
-				throw new RuntimeException("Failed to insert sale header");
-			}
-			String sqlItem = "INSERT INTO sale_items (sale_id, product_id, quantity, unit_price) VALUES (?, ?, ?, ?) "
-					+ "RETURNING id";
-			psItem = c.prepareStatement(sqlItem);
-			String sqlStock = "UPDATE products SET quantity = quantity + ? WHERE id = ?";
-			psStock = c.prepareStatement(sqlStock);
-			for (SaleItem item : items) {
-				psItem.setLong(1, sale.getId());
-				psItem.setLong(2, item.getProductId());
-				psItem.setInt(3, item.getQuantity());
-				psItem.setBigDecimal(4, item.getUnitPrice());
-				ResultSet rsItem = psItem.executeQuery();
-				if (rsItem.next()) {
-					item.setId(rsItem.getLong("id"));
-				}
-				// Note: Your logic here adds a negative number to reduce stock
-				psStock.setInt(1, -item.getQuantity());
-				psStock.setLong(2, item.getProductId());
-				int rowsUpdated = psStock.executeUpdate();
-				if (rowsUpdated == 0) {
-					throw new SQLException("Product not found or failed to update stock for Product ID: " +
-							item.getProductId());
+			db.inTransaction(RETRY, tx -> {
+				if (attempts[0]++ > 0) {
+					CHECKOUT_RETRIES.increment();
 				}
-			}
-			c.commit();
+				levels.clear();
+				return writeSale(tx, sale, items, null, null, levels);
+			});
+			CHECKOUTS_COMMITTED.increment();
+			ProductServiceImpl.stockChanged(levels);
+			ProductServiceImpl.sold(soldQuantities(items));
+			salesChanged();
 			return sale;
 		} catch (Exception e) {
-			if (c != null) {
-				try {
-					System.out.println("Transaction failed. Rolling back...");
-					c.rollback();
-				} catch (SQLException rollbackEx) {
-					rollbackEx.printStackTrace();
-				}
-			}
+			CHECKOUTS_FAILED.increment();
+			System.out.println("Transaction failed after " + attempts[0] + " attempt(s). Rolled back.");
 			throw new RuntimeException("Failed to create sale with items", e);
 		} finally {
-			closeQuietly(psSale);
-			closeQuietly(psItem);
-			closeQuietly(psStock);
-			if (c != null) {
+			ProductServiceImpl.invalidate(items.stream().map(SaleItem::getProductId).toList());
+		}
+	}
+
+	@Override
+	public CompletableFuture<Sale> submitSaleWithItems(Sale sale, List<SaleItem> items) {
+		List<SaleItem> snapshot = List.copyOf(items);
+		if (JOURNAL_ENABLED) {
+			return BackgroundExecutor.submit(() -> {
+				JournaledSale journaled = new JournaledSale(UUID.randomUUID(),
+						OffsetDateTime.now(ZoneOffset.UTC),
+						sale.getTotalPrice(),
+						snapshot);
+				// Postgres only sees the sale later, so the stock check has to happen before it is acknowledged.
+				RESERVED.reserve(journaled.journalId(), soldQuantities(snapshot), SaleServiceImpl::knownStock);
 				try {
-					c.setAutoCommit(true);
-					c.close();
-				} catch (SQLException closeEx) {
-					closeEx.printStackTrace();
+					Journaling.JOURNAL.append(journaled.encode()).join();
+				} catch (RuntimeException e) {
+					RESERVED.release(List.of(journaled.journalId()));
+					throw e;
 				}
-			}
+				sale.setCreatedAt(journaled.createdAt());
+				return sale;
+			});
 		}
+		return BackgroundExecutor.submit(() -> createSaleWithItems(sale, snapshot));
 	}
 
-	private void closeQuietly(AutoCloseable resource) {
-		if (resource != null) {
-			try {
-				resource.close();
-			} catch (Exception ignored) {
+	Map<JournaledSale, String> applyJournaledSales(List<JournaledSale> sales) {
+		Long[] productIds = sales.stream()
+				.flatMap(js -> js.items().stream())
+				.map(SaleItem::getProductId)
+				.distinct()
+				.sorted()
+				.toArray(Long[]::new);
+		Map<Long, RestockQueue.StockLevel> levels = new HashMap<>();
+		List<SaleItem> sold = new ArrayList<>();
+		try {
+			Map<JournaledSale, String> result = db.inTransaction(RETRY, tx -> {
+				levels.clear();
+				sold.clear();
+				tx.queryList("SELECT id FROM products WHERE id = ANY(?) ORDER BY id FOR UPDATE",
+						RowMapper.longColumn("id"), (Object) productIds);
+				Map<JournaledSale, String> rejected = new LinkedHashMap<>();
+				for (JournaledSale journaled : sales) {
+					List<RestockQueue.StockLevel> saleLevels = new ArrayList<>();
+					tx.execute("SAVEPOINT journaled_sale");
+					try {
+						if (writeSale(tx, new Sale(journaled.totalPrice()), journaled.items(), journaled.journalId(),
+								journaled.createdAt(), saleLevels)) {
+							sold.addAll(journaled.items());
+						}
+						tx.execute("RELEASE SAVEPOINT journaled_sale");
+						saleLevels.forEach(level -> levels.put(level.productId(), level));
+					} catch (SQLException e) {
+						if (RetryPolicy.isRetryable(e)) {
+							throw e;
+						}
+						tx.execute("ROLLBACK TO SAVEPOINT journaled_sale");
+						rejected.put(journaled, e.getMessage());
+					}
+				}
+				return rejected;
+			});
+			ProductServiceImpl.stockChanged(levels.values());
+			ProductServiceImpl.sold(soldQuantities(sold));
+			RESERVED.release(sales.stream().map(JournaledSale::journalId).toList());
+			salesChanged();
+			return result;
+		} catch (SQLException e) {
+			throw new RuntimeException("Failed to apply journaled sales", e);
+		} finally {
+			ProductServiceImpl.invalidate(Arrays.asList(productIds));
+		}
+	}
+
+	// The stock the terminal's product index holds, which the feed and local checkouts keep current.
+	private static OptionalInt knownStock(long productId) {
+		return ProductNameIndex.shared().get(productId).map(p -> OptionalInt.of(p.getQuantity()))
+				.orElse(OptionalInt.empty());
+	}
+
+	// Drainer rejections are delivered on the listener's executor (the FX thread for an alert).
+	public static ChangeFeed.Subscription onJournalRejected(Executor executor,
+			Consumer<List<RejectedSale>> listener) {
+		RejectionListener subscriber = new RejectionListener(executor, listener);
+		REJECTION_LISTENERS.add(subscriber);
+		return () -> REJECTION_LISTENERS.remove(subscriber);
+	}
+
+	static void journalRejected(Map<JournaledSale, String> rejected) {
+		List<RejectedSale> sales = rejected.entrySet().stream()
+				.map(e -> new RejectedSale(e.getKey().journalId(), e.getKey().createdAt(), e.getKey().totalPrice(),
+						e.getValue()))
+				.toList();
+		REJECTION_LISTENERS.forEach(subscriber -> subscriber.executor().execute(() -> subscriber.listener().accept(sales)));
+	}
+
+	private static Map<Long, Integer> soldQuantities(List<SaleItem> items) {
+		Map<Long, Integer> quantities = new HashMap<>();
+		items.forEach(item -> quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+		return quantities;
+	}
+
+	private boolean writeSale(QueryExecutor tx, Sale sale, List<SaleItem> items, UUID journalId,
+			OffsetDateTime createdAt, List<RestockQueue.StockLevel> levels) throws SQLException {
+		// A replayed journal entry carries its original created_at, so (journal_id, created_at) still spots it.
+		String sqlSale = """
+				INSERT INTO sales (total_price, journal_id, created_at)
+				VALUES (?, ?::uuid, COALESCE(?::timestamptz, now()))
+				ON CONFLICT (journal_id, created_at) DO NOTHING
+				RETURNING id, total_price, created_at
+				""";
+		String sqlLock = """
+				SELECT p.id, p.quantity >= d.quantity AS sufficient
+				FROM products p
+				JOIN (
+				    SELECT product_id, SUM(quantity) AS quantity
+				    FROM unnest(?::bigint[], ?::int[]) AS t(product_id, quantity)
+				    GROUP BY product_id
+				) d ON d.product_id = p.id
+				ORDER BY p.id
+				FOR UPDATE OF p
+				""";
+		String sqlApplied = "SELECT 1 AS applied FROM sales WHERE journal_id = ?::uuid AND created_at = ?::timestamptz";
+		String sqlStock = """
+				UPDATE products p SET quantity = p.quantity - d.quantity
+				FROM (
+				    SELECT product_id, SUM(quantity) AS quantity
+				    FROM unnest(?::bigint[], ?::int[]) AS t(product_id, quantity)
+				    GROUP BY product_id
+				) d
+				WHERE p.id = d.product_id
+				RETURNING p.id, p.name, p.quantity, p.min_stock, p.updated_at
+				""";
+		String sqlItems = """
+				INSERT INTO sale_items (sale_id, sale_created_at, product_id, quantity, unit_price)
+				SELECT ?, ?::timestamptz, t.product_id, t.quantity, t.unit_price
+				FROM unnest(?::bigint[], ?::int[], ?::numeric[]) WITH ORDINALITY AS t(product_id, quantity, unit_price, ord)
+				ORDER BY t.ord
+				RETURNING id
+				""";
+		RowMapper<Long> sufficientId = RowMapper.of((rs, col) -> rs.getBoolean(col[1]) ? rs.getLong(col[0]) : null,
+				"id", "sufficient");
+		Long[] productIds = new Long[items.size()];
+		Integer[] quantities = new Integer[items.size()];
+		BigDecimal[] unitPrices = new BigDecimal[items.size()];
+		for (int i = 0; i < items.size(); i++) {
+			SaleItem item = items.get(i);
+			productIds[i] = item.getProductId();
+			quantities[i] = item.getQuantity();
+			unitPrices[i] = item.getUnitPrice();
+		}
+		long lockStart = System.nanoTime();
+		List<Long> lockable = tx.queryList(sqlLock, sufficientId, productIds, quantities);
+		recordLockWait(System.nanoTime() - lockStart);
+		Set<Long> rejected = new TreeSet<>(Arrays.asList(productIds));
+		rejected.removeAll(lockable);
+		if (!rejected.isEmpty()) {
+			// A replayed entry may have been applied already and sold the stock it now finds missing.
+			if (journalId != null && tx.queryOne(sqlApplied, RowMapper.intColumn("applied"), journalId, createdAt)
+					.isPresent()) {
+				return false;
 			}
+			throw new SQLException("Not enough stock or product not found for Product IDs: " + rejected);
+		}
+		Optional<Sale> header = tx.queryOne(sqlSale, RowMappers.SALE, sale.getTotalPrice(), journalId, createdAt);
+		if (header.isEmpty()) {
+			return false;
+		}
+		sale.setId(header.get().getId());
+		sale.setCreatedAt(header.get().getCreatedAt());
+		levels.addAll(tx.queryList(sqlStock, RestockQueue.STOCK_LEVEL, productIds, quantities));
+		List<Long> itemIds = tx.queryList(sqlItems, RowMapper.longColumn("id"),
+				sale.getId(), header.get().getCreatedAt(), productIds, quantities, unitPrices);
+		itemIds.sort(null);
+		for (int i = 0; i < items.size(); i++) {
+			items.get(i).setId(itemIds.get(i));
+			items.get(i).setSaleId(sale.getId());
 		}
+		return true;
+	}
+
+	public static void startJournal() {
+		if (JOURNAL_ENABLED) {
+			Journaling.DRAINER.start();
+		}
+	}
+
+	public static Optional<Journal.Stats> journalStats() {
+		return JOURNAL_ENABLED ? Optional.of(Journaling.JOURNAL.stats()) : Optional.empty();
+	}
+
+	public static CheckoutStats checkoutStats() {
+		long waits = LOCK_WAITS.sum();
+		return new CheckoutStats(CHECKOUTS_COMMITTED.sum(),
+				CHECKOUTS_FAILED.sum(),
+				CHECKOUT_RETRIES.sum(),
+				waits == 0 ? 0 : LOCK_WAIT_NANOS.sum() / 1_000_000.0 / waits,
+				MAX_LOCK_WAIT_NANOS.get() / 1_000_000.0);
+	}
+
+	private static void recordLockWait(long nanos) {
+		LOCK_WAITS.increment();
+		LOCK_WAIT_NANOS.add(nanos);
+		MAX_LOCK_WAIT_NANOS.accumulateAndGet(nanos, Math::max);
 	}
 
     public int totalSales(LocalDate start, LocalDate end) {
-        return getSalesStat("SUM(total_sales_count)", start, end);
+        return (int) salesStats(start, end).salesCount();
     }
 
     public int totalRevenue(LocalDate start, LocalDate end) {
-        return getSalesStat("SUM(total_revenue)", start, end);
+        return salesStats(start, end).revenue().intValue();
     }
 
     public int totalItemsSold(LocalDate start, LocalDate end) {
-        return getSalesStat("SUM(total_items_sold)", start, end);
+        return (int) salesStats(start, end).itemsSold();
     }
 
     public int averageSaleValue(LocalDate start, LocalDate end) {
-        String expression = """
-        CASE
-            WHEN SUM(total_sales_count) = 0 THEN 0
-            ELSE SUM(total_revenue) / SUM(total_sales_count)
-        END
-        """;
-        return getSalesStat(expression, start, end);
+        return salesStats(start, end).averageSaleValue().intValue();
     }
 
-    private int getSalesStat(String columnExpression, LocalDate start, LocalDate end) {
-        String sql = "SELECT " + columnExpression + " FROM mv_sales_stats WHERE sale_date BETWEEN ? AND ?";
-
-        try (Connection c = DatabaseUtils.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-
-            ps.setObject(1, start);
-            ps.setObject(2, end);
+    // All figures for the range come from one statement over the rollups, so they agree with each other. Sales
+    // written here clear the cache; the short TTL bounds how long another terminal's sales can be missing.
+    public SalesStats salesStats(LocalDate start, LocalDate end) {
+        return STATS_CACHE.get(new DateRange(start, end), this::loadSalesStats).orElseThrow();
+    }
 
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return rs.getInt(1);
-                }
-                return 0;
-            }
+    private Optional<SalesStats> loadSalesStats(DateRange range) {
+        List<Object> params = new ArrayList<>();
+        String sql = """
+                SELECT COALESCE(SUM(sales_count), 0) AS sales_count,
+                       COALESCE(SUM(revenue), 0) AS revenue,
+                       COALESCE(SUM(items_sold), 0) AS items_sold,
+                       COALESCE(ROUND(SUM(revenue) / NULLIF(SUM(sales_count), 0), 2), 0) AS average_sale
+                FROM sales_rollups
+                WHERE product_id = 0 AND (%s)
+                """.formatted(bucketFilter(range.start().atStartOfDay(), range.end().plusDays(1).atStartOfDay(),
+                params));
+        try {
+            return lookups.queryOne(sql, SALES_STATS, params.toArray());
         } catch (SQLException e) {
-            throw new RuntimeException("Failed to fetch sales stat: " + columnExpression, e);
+            throw new RuntimeException("Failed to fetch sales stats", e);
         }
     }
 
-
-    public void refreshStats() {
-        try (Connection c = DatabaseUtils.getConnection();
-             Statement s = c.createStatement()) {
-            s.execute("REFRESH MATERIALIZED VIEW mv_sales_stats");
+    // Sales in [from, to), store-local time widened to whole hours, read from the coarsest rollup buckets that fit.
+    public List<SalesBreakdown> salesBreakdown(LocalDateTime from, LocalDateTime to, SalesGrouping grouping) {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT " + grouping.productColumn() + " AS product_id, " + grouping.categoryColumn()
+                + " AS category, SUM(sales_count) AS sales_count, SUM(items_sold) AS items_sold,"
+                + " SUM(revenue) AS revenue FROM sales_rollups WHERE " + grouping.predicate()
+                + " AND (" + bucketFilter(from, to, params) + ") GROUP BY 1, 2 ORDER BY revenue DESC, 1, 2";
+        try {
+            return lists.queryList(sql, SALES_BREAKDOWN, params.toArray());
         } catch (SQLException e) {
-            throw new RuntimeException("Failed to refresh sales stats", e);
+            throw new RuntimeException("Failed to fetch sales breakdown", e);
         }
     }
 
+    private static String bucketFilter(LocalDateTime from, LocalDateTime to, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        for (RollupBuckets.Span span : RollupBuckets.cover(from, to)) {
+            conditions.add("(grain = ?::rollup_grain AND bucket >= ? AND bucket < ?)");
+            params.add(span.grain());
+            params.add(span.from());
+            params.add(span.to());
+        }
+        return conditions.isEmpty() ? "FALSE" : String.join(" OR ", conditions);
+    }
+
+    static void salesChanged() {
+        STATS_CACHE.clear();
+    }
 }
@@ -0,0 +1,74 @@
+package com.stockapp.services.impl;
+
+import com.stockapp.utils.DatabaseUtils;
+import com.stockapp.utils.QueryExecutor;
+import com.stockapp.utils.RowMapper;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the monthly partitions of sales and sale_items in shape: months up to {@code monthsAhead} from now exist
+ * before any sale needs them, and with a retention set, months older than that are detached (and dropped if
+ * configured). Every running app does this on a timer; the database functions take an advisory lock, so terminals
+ * don't trip over each other.
+ */
+public final class SalesPartitions {
+	private static volatile ScheduledExecutorService scheduler;
+
+	private final QueryExecutor db;
+	private final int monthsAhead;
+	private final int retentionMonths;
+	private final boolean dropDetached;
+
+	SalesPartitions(QueryExecutor db, int monthsAhead, int retentionMonths, boolean dropDetached) {
+		this.db = db;
+		this.monthsAhead = monthsAhead;
+		this.retentionMonths = retentionMonths;
+		this.dropDetached = dropDetached;
+	}
+
+	public static void start() {
+		synchronized (SalesPartitions.class) {
+			if (scheduler != null) {
+				return;
+			}
+			scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "sales-partitions");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		SalesPartitions partitions = new SalesPartitions(new QueryExecutor(),
+				DatabaseUtils.config().getInt("partitions.salesMonthsAhead"),
+				DatabaseUtils.config().getInt("partitions.salesRetentionMonths"),
+				DatabaseUtils.config().getBoolean("partitions.dropDetached"));
+		Duration period = DatabaseUtils.config().getDuration("partitions.maintenancePeriodMs");
+		scheduler.scheduleWithFixedDelay(partitions::maintain, 0, period.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	void maintain() {
+		try {
+			createAhead();
+			if (retentionMonths > 0) {
+				detachBefore(OffsetDateTime.now().minusMonths(retentionMonths));
+			}
+		} catch (SQLException | RuntimeException e) {
+			System.err.println("Sales partition maintenance failed: " + e.getMessage());
+		}
+	}
+
+	int createAhead() throws SQLException {
+		return db.queryOne("SELECT create_sales_partitions(now(), now() + make_interval(months => ?)) AS created",
+				RowMapper.intColumn("created"), monthsAhead).orElse(0);
+	}
+
+	// Detaches every month before the one the cutoff falls in; the rollups keep their totals.
+	int detachBefore(OffsetDateTime cutoff) throws SQLException {
+		return db.queryOne("SELECT detach_sales_partitions(?, ?) AS detached", RowMapper.intColumn("detached"),
+				cutoff, dropDetached).orElse(0);
+	}
+}
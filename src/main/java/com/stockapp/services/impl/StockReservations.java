@@ -0,0 +1,48 @@
+package com.stockapp.services.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.LongFunction;
+
+// Stock held by journaled sales that the drainer has not applied yet. A journaled sale is acknowledged before
+// Postgres sees it, so it is checked here against the stock this terminal knows less what is already held.
+final class StockReservations {
+	private final Map<UUID, Map<Long, Integer>> bySale = new HashMap<>();
+	private final Map<Long, Integer> byProduct = new HashMap<>();
+
+	// Holds quantities for the sale, or throws naming the products the known stock can't cover.
+	synchronized void reserve(UUID journalId, Map<Long, Integer> quantities, LongFunction<OptionalInt> knownStock) {
+		Set<Long> uncovered = new TreeSet<>();
+		quantities.forEach((productId, quantity) -> {
+			OptionalInt known = knownStock.apply(productId);
+			if (known.isEmpty() || known.getAsInt() - held(productId) < quantity) {
+				uncovered.add(productId);
+			}
+		});
+		if (!uncovered.isEmpty()) {
+			throw new IllegalStateException("Not enough stock or product not found for Product IDs: " + uncovered);
+		}
+		bySale.put(journalId, Map.copyOf(quantities));
+		quantities.forEach((productId, quantity) -> byProduct.merge(productId, quantity, Integer::sum));
+	}
+
+	// Ids that were never reserved here, such as entries recovered after a restart, are ignored.
+	synchronized void release(Collection<UUID> journalIds) {
+		for (UUID journalId : journalIds) {
+			Map<Long, Integer> quantities = bySale.remove(journalId);
+			if (quantities != null) {
+				quantities.forEach((productId, quantity) -> byProduct.computeIfPresent(productId,
+						(id, held) -> held == quantity ? null : held - quantity));
+			}
+		}
+	}
+
+	synchronized int held(long productId) {
+		return byProduct.getOrDefault(productId, 0);
+	}
+}
@@ -4,30 +4,33 @@ import com.stockapp.models.entities.User;
 import com.stockapp.models.enums.UserRole;
 import com.stockapp.services.interfaces.UserService;
 import com.stockapp.utils.*;
-import java.sql.*;
+import java.sql.SQLException;
 import java.time.OffsetDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 public class UserServiceImpl implements UserService {
+	private static final RowMapper<User> GENERATED = RowMapper.of((rs, col) -> {
+		User user = new User();
+		user.setId(rs.getLong(col[0]));
+		user.setCreatedAt(rs.getObject(col[1], OffsetDateTime.class));
+		return user;
+	}, "id", "created_at");
+
+	private final QueryExecutor db = new QueryExecutor();
+
 	public User create(User user) {
 		String sql_query = """
 					INSERT INTO users (username, password_hash, full_name,role)
 					VALUES (?, ?, ?, ?::user_role)
 					RETURNING id, created_at;
 				""";
-		try (Connection c = DatabaseUtils.getConnection();) {
-			PreparedStatement ps = c.prepareStatement(sql_query);
-			ps.setString(1, user.getUserName());
-			ps.setString(2, user.getPasswordHash());
-			ps.setString(3, user.getFullName());
-			ps.setString(4, user.getRole().name());
-			ResultSet rs = ps.executeQuery();
-			if (rs.next()) {
-				user.setId(rs.getLong("id"));
-				user.setCreatedAt(rs.getObject("created_at", OffsetDateTime.class));
-			}
+		try {
+			db.queryOne(sql_query, GENERATED, user.getUserName(), user.getPasswordHash(), user.getFullName(),
+					user.getRole()).ifPresent(generated -> {
+						user.setId(generated.getId());
+						user.setCreatedAt(generated.getCreatedAt());
+					});
 			return user;
 		} catch (SQLException e) {
 			throw new RuntimeException("Error creating user", e);
@@ -35,22 +38,9 @@ public class UserServiceImpl implements UserService {
 	}
 
 	public Optional<User> read(Long id) {
-		String sql_query = "SELECT id, username, password_hash, full_name, role, created_at FROM users WHERE id = ?;";
-		try (Connection c = DatabaseUtils.getConnection();) {
-			PreparedStatement ps = c.prepareStatement(sql_query);
-			ps.setLong(1, id);
-			ResultSet rs = ps.executeQuery();
-			if (rs.next()) {
-				User user = new User(rs.getLong("id"),
-						rs.getString("username"),
-						rs.getString("password_hash"),
-						rs.getString("full_name"),
-						UserRole.valueOf(rs.getString("role")),
-						rs.getObject("created_at", OffsetDateTime.class));
-				return Optional.of(user);
-			} else {
-				return Optional.empty();
-			}
+		String sql_query = "SELECT " + RowMappers.USER_COLUMNS + " FROM users WHERE id = ?;";
+		try {
+			return db.queryOne(sql_query, RowMappers.USER, id);
 		} catch (SQLException e) {
 			throw new RuntimeException("Error reading user", e);
 		}
@@ -62,14 +52,9 @@ public class UserServiceImpl implements UserService {
 					SET username = ?, password_hash = ?, full_name = ?, role = ?::user_role
 					WHERE id = ?;
 				""";
-		try (Connection c = DatabaseUtils.getConnection();) {
-			PreparedStatement ps = c.prepareStatement(sql_query);
-			ps.setString(1, user.getUserName());
-			ps.setString(2, user.getPasswordHash());
-			ps.setString(3, user.getFullName());
-			ps.setString(4, user.getRole().name());
-			ps.setLong(5, user.getId());
-			ps.executeUpdate();
+		try {
+			db.update(sql_query, user.getUserName(), user.getPasswordHash(), user.getFullName(), user.getRole(),
+					user.getId());
 			return user;
 		} catch (SQLException e) {
 			throw new RuntimeException("Error updating user", e);
@@ -77,74 +62,35 @@ public class UserServiceImpl implements UserService {
 	}
 
 	public void delete(Long id) {
-		String sql_query = "DELETE FROM users WHERE id = ?;";
-		try (Connection c = DatabaseUtils.getConnection();) {
-			PreparedStatement ps = c.prepareStatement(sql_query);
-			ps.setLong(1, id);
-			ps.executeUpdate();
+		try {
+			db.update("DELETE FROM users WHERE id = ?;", id);
 		} catch (SQLException e) {
 			throw new RuntimeException("Error deleting user", e);
 		}
 	}
 
 	public List<User> readAll() {
-		String sql_query = "SELECT id, username, password_hash, full_name, role, created_at FROM users;";
-		List<User> users = new ArrayList<>();
-		try (Connection c = DatabaseUtils.getConnection();) {
-			PreparedStatement ps = c.prepareStatement(sql_query);
-			ResultSet rs = ps.executeQuery();
-			while (rs.next()) {
-				User user = new User(rs.getLong("id"),
-						rs.getString("username"),
-						rs.getString("password_hash"),
-						rs.getString("full_name"),
-						UserRole.valueOf(rs.getString("role")),
-						rs.getObject("created_at", OffsetDateTime.class));
-				users.add(user);
-			}
-			return users;
+		String sql_query = "SELECT " + RowMappers.USER_COLUMNS + " FROM users ORDER BY id;";
+		try {
+			return db.queryList(sql_query, RowMappers.USER);
 		} catch (SQLException e) {
 			throw new RuntimeException("Error reading all users", e);
 		}
 	}
 
 	public List<User> findByRole(UserRole role) {
-		String sql_query = "SELECT id, username, password_hash, full_name, role, created_at FROM users WHERE role = ?::user_role;";
-		List<User> users = new ArrayList<>();
-		try (Connection c = DatabaseUtils.getConnection();) {
-			PreparedStatement ps = c.prepareStatement(sql_query);
-			ps.setString(1, role.name());
-			ResultSet rs = ps.executeQuery();
-			while (rs.next()) {
-				User user = new User(rs.getLong("id"),
-						rs.getString("username"),
-						rs.getString("password_hash"),
-						rs.getString("full_name"),
-						UserRole.valueOf(rs.getString("role")),
-						rs.getObject("created_at", OffsetDateTime.class));
-				users.add(user);
-			}
-			return users;
+		String sql_query = "SELECT " + RowMappers.USER_COLUMNS + " FROM users WHERE role = ?::user_role;";
+		try {
+			return db.queryList(sql_query, RowMappers.USER, role);
 		} catch (SQLException e) {
 			throw new RuntimeException("Error finding users by role", e);
 		}
 	}
 
 	public User findByUsername(String userName) {
-		String sql_query = "SELECT id, username, password_hash, full_name, role, created_at FROM users WHERE username = ?;";
-		try (Connection c = DatabaseUtils.getConnection();) {
-			PreparedStatement ps = c.prepareStatement(sql_query);
-			ps.setString(1, userName);
-			ResultSet rs = ps.executeQuery();
-			if (rs.next()) {
-				return new User(rs.getLong("id"),
-						rs.getString("username"),
-						rs.getString("password_hash"),
-						rs.getString("full_name"),
-						UserRole.valueOf(rs.getString("role")),
-						rs.getObject("created_at", OffsetDateTime.class));
-			}
-			return null;
+		String sql_query = "SELECT " + RowMappers.USER_COLUMNS + " FROM users WHERE username = ?;";
+		try {
+			return db.queryOne(sql_query, RowMappers.USER, userName).orElse(null);
 		} catch (SQLException e) {
 			throw new RuntimeException("Error finding users by username", e);
 		}
@@ -1,8 +1,17 @@
 package com.stockapp.services.interfaces;
 
+import com.stockapp.models.dto.InventoryStats;
+import com.stockapp.models.dto.PageKey;
+import com.stockapp.models.dto.StockUpdateResult;
 import com.stockapp.models.entities.Product;
+import com.stockapp.models.enums.ProductFilter;
+import com.stockapp.models.enums.ProductSortColumn;
+import com.stockapp.models.enums.SortDirection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface ProductService extends CrudService<Product> {
 	List<Product> findByCategory(String category);
@@ -11,7 +20,24 @@ public interface ProductService extends CrudService<Product> {
 
 	List<Product> findByPreName(String keyword);
 
-	void updateStock(Long productId, int ammount);
+	List<Product> searchByPrefix(String prefix, int limit);
+
+	List<Product> searchFuzzy(String query, int limit);
+
+	int updateStock(Long productId, int ammount);
+
+	List<StockUpdateResult> updateStockBatch(Map<Long, Integer> deltas);
 
 	boolean isNeedRestock(Long productId);
+
+	List<Product> readPage(PageKey afterKey, int limit, ProductSortColumn sortColumn, SortDirection direction);
+
+	List<Product> readPage(PageKey afterKey, int limit, ProductSortColumn sortColumn, SortDirection direction,
+			ProductFilter filter);
+
+	Stream<Product> streamAll();
+
+	void forEach(Consumer<? super Product> action);
+
+	InventoryStats inventoryStats();
 }
@@ -1,10 +1,19 @@
 package com.stockapp.services.interfaces;
 
+import com.stockapp.models.entities.Sale;
 import com.stockapp.models.entities.SaleItem;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface SaleItemService extends CrudService<SaleItem> {
 	List<SaleItem> findByProductId(Long productId);
 
 	List<SaleItem> findBySaleId(Long saleId);
+
+	List<SaleItem> findBySale(Sale sale);
+
+	Stream<SaleItem> streamAll();
+
+	void forEach(Consumer<? super SaleItem> action);
 }
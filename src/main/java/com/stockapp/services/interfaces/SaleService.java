@@ -3,7 +3,10 @@ package com.stockapp.services.interfaces;
 import com.stockapp.models.entities.Sale;
 import com.stockapp.models.entities.SaleItem;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface SaleService extends CrudService<Sale> {
 	Sale createSaleWithItems(Sale sale, List<SaleItem> items);
+
+	CompletableFuture<Sale> submitSaleWithItems(Sale sale, List<SaleItem> items);
 }
@@ -0,0 +1,44 @@
+package com.stockapp.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.application.Platform;
+
+public final class BackgroundExecutor {
+	private static final ExecutorService EXECUTOR = Executors
+			.newThreadPerTaskExecutor(Thread.ofVirtual().name("background-", 0).factory());
+
+	private BackgroundExecutor() {
+	}
+
+	public static <T> CompletableFuture<T> submit(Callable<T> task) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return task.call();
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new CompletionException(e);
+			}
+		}, EXECUTOR);
+	}
+
+	public static Executor executor() {
+		return EXECUTOR;
+	}
+
+	public static Executor fxThread() {
+		return Platform::runLater;
+	}
+
+	public static Throwable unwrap(Throwable failure) {
+		while (failure instanceof CompletionException && failure.getCause() != null) {
+			failure = failure.getCause();
+		}
+		return failure;
+	}
+}
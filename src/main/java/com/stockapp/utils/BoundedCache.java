@@ -0,0 +1,187 @@
+package com.stockapp.utils;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+public class BoundedCache<K, V> {
+	public record Stats(long hits, long misses, long evictions, long rejections, long expirations, int size,
+			long weightBytes) {
+		public double hitRatio() {
+			long requests = hits + misses;
+			return requests == 0 ? 0 : (double) hits / requests;
+		}
+	}
+
+	private record Node<V>(V value, long weight, long expiresAtNanos) {
+	}
+
+	private final LinkedHashMap<K, Node<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final int maxEntries;
+	private final long maxBytes;
+	private final long ttlNanos;
+	private final ToLongFunction<? super V> weigher;
+	private final LongSupplier clock;
+	private final FrequencySketch sketch;
+	private long weightBytes;
+	private long invalidations;
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long rejections;
+	private long expirations;
+
+	public BoundedCache(int maxEntries, long maxBytes, Duration ttl, ToLongFunction<? super V> weigher) {
+		this(maxEntries, maxBytes, ttl, weigher, System::nanoTime);
+	}
+
+	BoundedCache(int maxEntries, long maxBytes, Duration ttl, ToLongFunction<? super V> weigher, LongSupplier clock) {
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.ttlNanos = ttl.toNanos();
+		this.weigher = weigher;
+		this.clock = clock;
+		this.sketch = new FrequencySketch(Math.max(16, maxEntries));
+	}
+
+	public boolean isEnabled() {
+		return maxEntries > 0 && maxBytes > 0 && ttlNanos > 0;
+	}
+
+	public Optional<V> get(K key, Function<? super K, Optional<V>> loader) {
+		long stamp;
+		synchronized (this) {
+			if (isEnabled()) {
+				sketch.increment(key.hashCode());
+				Node<V> node = entries.get(key);
+				if (node != null) {
+					if (node.expiresAtNanos() - clock.getAsLong() > 0) {
+						hits++;
+						return Optional.of(node.value());
+					}
+					removeNode(key);
+					expirations++;
+				}
+			}
+			misses++;
+			stamp = invalidations;
+		}
+		Optional<V> loaded = loader.apply(key);
+		loaded.ifPresent(value -> admit(key, value, stamp));
+		return loaded;
+	}
+
+	public synchronized void invalidate(K key) {
+		invalidations++;
+		removeNode(key);
+	}
+
+	public synchronized void invalidateAll(Collection<? extends K> keys) {
+		invalidations++;
+		keys.forEach(this::removeNode);
+	}
+
+	public synchronized void clear() {
+		invalidations++;
+		entries.clear();
+		weightBytes = 0;
+	}
+
+	public synchronized Stats stats() {
+		return new Stats(hits, misses, evictions, rejections, expirations, entries.size(), weightBytes);
+	}
+
+	private synchronized void admit(K key, V value, long stamp) {
+		// A write invalidated something while we were loading, so the loaded value may already be stale.
+		if (!isEnabled() || stamp != invalidations) {
+			return;
+		}
+		long weight = weigher.applyAsLong(value);
+		if (weight > maxBytes) {
+			rejections++;
+			return;
+		}
+		removeNode(key);
+		int candidateFrequency = sketch.frequency(key.hashCode());
+		long now = clock.getAsLong();
+		Iterator<Map.Entry<K, Node<V>>> lru = entries.entrySet().iterator();
+		while (entries.size() >= maxEntries || weightBytes + weight > maxBytes) {
+			Map.Entry<K, Node<V>> victim = lru.next();
+			if (victim.getValue().expiresAtNanos() - now <= 0) {
+				expirations++;
+			} else if (sketch.frequency(victim.getKey().hashCode()) >= candidateFrequency) {
+				rejections++;
+				return;
+			} else {
+				evictions++;
+			}
+			weightBytes -= victim.getValue().weight();
+			lru.remove();
+		}
+		entries.put(key, new Node<>(value, weight, now + ttlNanos));
+		weightBytes += weight;
+	}
+
+	private void removeNode(K key) {
+		Node<V> removed = entries.remove(key);
+		if (removed != null) {
+			weightBytes -= removed.weight();
+		}
+	}
+
+	// Count-min sketch of recent access frequencies, halved periodically so old popularity fades.
+	private static final class FrequencySketch {
+		private static final int MAX_COUNT = 15;
+		private static final int[] SEEDS = { 0x9E3779B1, 0x85EBCA77, 0xC2B2AE3D, 0x27D4EB2F };
+
+		private final int[][] counters;
+		private final int mask;
+		private final int sampleSize;
+		private int additions;
+
+		FrequencySketch(int expectedEntries) {
+			int width = Integer.highestOneBit(Math.min(expectedEntries, 1 << 24) * 2 - 1) << 1;
+			counters = new int[SEEDS.length][width];
+			mask = width - 1;
+			sampleSize = width * 10;
+		}
+
+		void increment(int hash) {
+			boolean added = false;
+			for (int i = 0; i < SEEDS.length; i++) {
+				int slot = index(hash, i);
+				if (counters[i][slot] < MAX_COUNT) {
+					counters[i][slot]++;
+					added = true;
+				}
+			}
+			if (added && ++additions >= sampleSize) {
+				for (int[] row : counters) {
+					for (int j = 0; j < row.length; j++) {
+						row[j] >>>= 1;
+					}
+				}
+				additions /= 2;
+			}
+		}
+
+		int frequency(int hash) {
+			int min = MAX_COUNT;
+			for (int i = 0; i < SEEDS.length; i++) {
+				min = Math.min(min, counters[i][index(hash, i)]);
+			}
+			return min;
+		}
+
+		private int index(int hash, int row) {
+			int h = hash * SEEDS[row];
+			return (h ^ (h >>> 16)) & mask;
+		}
+	}
+}
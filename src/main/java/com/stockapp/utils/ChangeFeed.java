@@ -0,0 +1,148 @@
+package com.stockapp.utils;
+
+import com.stockapp.models.dto.ChangeEvent;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+public class ChangeFeed implements AutoCloseable {
+	public static final String CHANNEL = "stockapp_changes";
+
+	@FunctionalInterface
+	public interface Subscription extends AutoCloseable {
+		@Override
+		void close();
+	}
+
+	private record Subscriber(Set<ChangeEvent.Table> tables, Executor executor,
+			Consumer<List<ChangeEvent>> listener) {
+	}
+
+	private static final int POLL_MILLIS = 500;
+	private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+	private final QueryExecutor.ConnectionSource connections;
+	private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+	private final Thread listenerThread;
+	private volatile boolean connected;
+	private volatile boolean closed;
+
+	private static final class Shared {
+		static final ChangeFeed INSTANCE = start();
+
+		private static ChangeFeed start() {
+			DatabaseConfig config = DatabaseUtils.config();
+			ChangeFeed feed = new ChangeFeed(() -> DriverManager.getConnection(config.url(), config.driverProperties()));
+			Runtime.getRuntime().addShutdownHook(new Thread(feed::close, "change-feed-shutdown"));
+			return feed;
+		}
+	}
+
+	public ChangeFeed(QueryExecutor.ConnectionSource connections) {
+		this.connections = connections;
+		listenerThread = new Thread(this::listenLoop, "change-feed");
+		listenerThread.setDaemon(true);
+		listenerThread.start();
+	}
+
+	public static Subscription subscribe(Set<ChangeEvent.Table> tables, Executor executor,
+			Consumer<List<ChangeEvent>> listener) {
+		if (!DatabaseUtils.config().getBoolean("changefeed.enabled")) {
+			return () -> {
+			};
+		}
+		return Shared.INSTANCE.listen(tables, executor, listener);
+	}
+
+	public static boolean isLive() {
+		return DatabaseUtils.config().getBoolean("changefeed.enabled") && Shared.INSTANCE.isConnected();
+	}
+
+	public Subscription listen(Set<ChangeEvent.Table> tables, Executor executor,
+			Consumer<List<ChangeEvent>> listener) {
+		Subscriber subscriber = new Subscriber(EnumSet.copyOf(tables), executor, listener);
+		subscribers.add(subscriber);
+		return () -> subscribers.remove(subscriber);
+	}
+
+	public boolean isConnected() {
+		return connected;
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		listenerThread.interrupt();
+	}
+
+	private void listenLoop() {
+		long backoff = 0;
+		boolean firstConnect = true;
+		while (!closed) {
+			try (Connection conn = connections.get(); Statement st = conn.createStatement()) {
+				st.execute("LISTEN " + CHANNEL);
+				PGConnection pg = conn.unwrap(PGConnection.class);
+				connected = true;
+				backoff = 0;
+				if (!firstConnect) {
+					List<ChangeEvent> resync = new ArrayList<>();
+					for (ChangeEvent.Table table : ChangeEvent.Table.values()) {
+						resync.add(ChangeEvent.resync(table));
+					}
+					dispatch(resync);
+				}
+				firstConnect = false;
+				while (!closed) {
+					PGNotification[] notifications = pg.getNotifications(POLL_MILLIS);
+					if (notifications != null && notifications.length > 0) {
+						dispatch(parse(notifications));
+					}
+				}
+			} catch (SQLException e) {
+				connected = false;
+				if (closed) {
+					return;
+				}
+				backoff = Math.min(MAX_BACKOFF_MILLIS, Math.max(500, backoff * 2));
+				System.err.println("Change feed disconnected, retrying in " + backoff + " ms: " + e.getMessage());
+				try {
+					Thread.sleep(backoff);
+				} catch (InterruptedException ie) {
+					return;
+				}
+			}
+		}
+		connected = false;
+	}
+
+	private static List<ChangeEvent> parse(PGNotification[] notifications) {
+		List<ChangeEvent> events = new ArrayList<>(notifications.length);
+		for (PGNotification notification : notifications) {
+			try {
+				events.add(ChangeEvent.parse(notification.getParameter()));
+			} catch (IllegalArgumentException e) {
+				System.err.println("Ignoring change notification: " + e.getMessage());
+			}
+		}
+		return events;
+	}
+
+	private void dispatch(List<ChangeEvent> events) {
+		for (Subscriber subscriber : subscribers) {
+			List<ChangeEvent> matching = events.stream().filter(e -> subscriber.tables().contains(e.table())).toList();
+			if (!matching.isEmpty()) {
+				subscriber.executor().execute(() -> subscriber.listener().accept(matching));
+			}
+		}
+	}
+}
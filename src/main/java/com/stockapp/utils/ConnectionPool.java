@@ -0,0 +1,608 @@
+package com.stockapp.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.postgresql.PGStatement;
+
+public class ConnectionPool implements AutoCloseable {
+	// Connections used this recently are handed out without an isValid() round trip.
+	private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+	public record Settings(int maxSize,
+			int minIdle,
+			Duration connectionTimeout,
+			Duration validationTimeout,
+			Duration idleTimeout,
+			Duration maxLifetime,
+			Duration leakDetectionThreshold,
+			Duration housekeepingPeriod,
+			int statementCacheSize,
+			int prepareThreshold) {
+
+		public Settings {
+			if (maxSize <= 0) {
+				throw new IllegalArgumentException("maxSize must be greater than 0");
+			}
+			if (minIdle < 0 || minIdle > maxSize) {
+				throw new IllegalArgumentException("minIdle must be between 0 and maxSize");
+			}
+			if (statementCacheSize < 0) {
+				throw new IllegalArgumentException("statementCacheSize must not be negative");
+			}
+		}
+	}
+
+	public record Stats(int active,
+			int idle,
+			int total,
+			int waiting,
+			long borrows,
+			long timeouts,
+			double averageWaitMillis,
+			double p99BorrowMillis,
+			long leaksDetected,
+			long statementCacheHits,
+			long statementCacheMisses) {
+
+		public double statementCacheHitRatio() {
+			long lookups = statementCacheHits + statementCacheMisses;
+			return lookups == 0 ? 0 : statementCacheHits / (double) lookups;
+		}
+	}
+
+	private final String url;
+	private final Properties connectionProperties;
+	private final Settings settings;
+	private final Semaphore permits;
+	private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+	private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+	private final AtomicInteger totalConnections = new AtomicInteger();
+	private final AtomicInteger waitingThreads = new AtomicInteger();
+	private final AtomicLong borrowCount = new AtomicLong();
+	private final AtomicLong timeoutCount = new AtomicLong();
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+	private final AtomicLong leakCount = new AtomicLong();
+	private final AtomicLong statementCacheHits = new AtomicLong();
+	private final AtomicLong statementCacheMisses = new AtomicLong();
+	private final LatencyRecorder borrowLatency = new LatencyRecorder(2048);
+	private final ScheduledExecutorService housekeeper;
+	private volatile boolean closed;
+
+	public ConnectionPool(String url, Properties connectionProperties, Settings settings) {
+		this.url = url;
+		this.connectionProperties = connectionProperties;
+		this.settings = settings;
+		this.permits = new Semaphore(settings.maxSize(), true);
+		this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "connection-pool-housekeeper");
+			t.setDaemon(true);
+			return t;
+		});
+		long period = settings.housekeepingPeriod().toMillis();
+		housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+	}
+
+	public Connection getConnection() throws SQLException {
+		if (closed) {
+			throw new SQLException("Connection pool is closed");
+		}
+		long start = System.nanoTime();
+		boolean acquired;
+		waitingThreads.incrementAndGet();
+		try {
+			acquired = permits.tryAcquire(settings.connectionTimeout().toNanos(), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a database connection", e);
+		} finally {
+			waitingThreads.decrementAndGet();
+		}
+		if (!acquired) {
+			timeoutCount.incrementAndGet();
+			throw new SQLTransientConnectionException("Timed out after " + settings.connectionTimeout().toMillis()
+					+ "ms waiting for a database connection (active=" + borrowed.size() + ", max="
+					+ settings.maxSize() + ")");
+		}
+		long waited = System.nanoTime() - start;
+		try {
+			PooledConnection pc = takeIdleOrCreate();
+			pc.borrowedAt = System.nanoTime();
+			pc.borrowSite = settings.leakDetectionThreshold().isZero() ? null
+					: new Exception("Connection borrowed here");
+			pc.leakReported = false;
+			borrowed.add(pc);
+			borrowCount.incrementAndGet();
+			totalWaitNanos.addAndGet(waited);
+			borrowLatency.record(System.nanoTime() - start);
+			return pc.newHandle();
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	public Stats stats() {
+		long borrows = borrowCount.get();
+		double averageWait = borrows == 0 ? 0 : totalWaitNanos.get() / (double) borrows / 1_000_000.0;
+		return new Stats(borrowed.size(),
+				idle.size(),
+				totalConnections.get(),
+				waitingThreads.get(),
+				borrows,
+				timeoutCount.get(),
+				averageWait,
+				borrowLatency.percentile(0.99) / 1_000_000.0,
+				leakCount.get(),
+				statementCacheHits.get(),
+				statementCacheMisses.get());
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		housekeeper.shutdownNow();
+		PooledConnection pc;
+		while ((pc = idle.pollFirst()) != null) {
+			destroy(pc);
+		}
+	}
+
+	private PooledConnection takeIdleOrCreate() throws SQLException {
+		while (true) {
+			PooledConnection pc = idle.pollFirst();
+			if (pc != null) {
+				if (isExpired(pc, System.nanoTime()) || !isAlive(pc)) {
+					destroy(pc);
+					continue;
+				}
+				return pc;
+			}
+			if (reserveSlot()) {
+				try {
+					return open();
+				} catch (SQLException | RuntimeException e) {
+					totalConnections.decrementAndGet();
+					throw e;
+				}
+			}
+			// Every slot is taken by idle connections that another thread is about to hand back.
+			try {
+				pc = idle.pollFirst(100, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new SQLException("Interrupted while waiting for a database connection", e);
+			}
+			if (pc != null) {
+				idle.offerFirst(pc);
+			}
+		}
+	}
+
+	private boolean reserveSlot() {
+		while (true) {
+			int current = totalConnections.get();
+			if (current >= settings.maxSize()) {
+				return false;
+			}
+			if (totalConnections.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	private PooledConnection open() throws SQLException {
+		return new PooledConnection(DriverManager.getConnection(url, connectionProperties));
+	}
+
+	private boolean isAlive(PooledConnection pc) {
+		if (System.nanoTime() - pc.lastUsed < VALIDATION_BYPASS_NANOS) {
+			return true;
+		}
+		try {
+			int timeout = (int) Math.max(1, settings.validationTimeout().toSeconds());
+			return pc.raw.isValid(timeout);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private boolean isExpired(PooledConnection pc, long now) {
+		Duration maxLifetime = settings.maxLifetime();
+		return !maxLifetime.isZero() && now - pc.createdAt > maxLifetime.toNanos();
+	}
+
+	private void release(PooledConnection pc) {
+		borrowed.remove(pc);
+		try {
+			if (!closed && !pc.broken && !isExpired(pc, System.nanoTime()) && pc.reset()) {
+				pc.lastUsed = System.nanoTime();
+				idle.offerFirst(pc);
+			} else {
+				destroy(pc);
+			}
+		} finally {
+			permits.release();
+		}
+	}
+
+	private void destroy(PooledConnection pc) {
+		totalConnections.decrementAndGet();
+		try {
+			pc.raw.close();
+		} catch (SQLException e) {
+			System.err.println("Warning: failed to close pooled connection: " + e.getMessage());
+		}
+	}
+
+	private void housekeep() {
+		try {
+			long now = System.nanoTime();
+			long idleTimeout = settings.idleTimeout().toNanos();
+			for (PooledConnection pc : idle) {
+				boolean idleTooLong = idleTimeout > 0 && now - pc.lastUsed > idleTimeout
+						&& totalConnections.get() > settings.minIdle();
+				if ((isExpired(pc, now) || idleTooLong) && idle.remove(pc)) {
+					destroy(pc);
+				}
+			}
+			while (!closed && idle.size() < settings.minIdle() && reserveSlot()) {
+				try {
+					idle.offerLast(open());
+				} catch (SQLException e) {
+					totalConnections.decrementAndGet();
+					System.err.println("Warning: could not open idle connection: " + e.getMessage());
+					break;
+				}
+			}
+			detectLeaks(now);
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void detectLeaks(long now) {
+		long threshold = settings.leakDetectionThreshold().toNanos();
+		if (threshold <= 0) {
+			return;
+		}
+		for (PooledConnection pc : borrowed) {
+			if (!pc.leakReported && now - pc.borrowedAt > threshold) {
+				pc.leakReported = true;
+				leakCount.incrementAndGet();
+				System.err.println("Warning: connection held for more than "
+						+ settings.leakDetectionThreshold().toMillis() + "ms, possible leak");
+				if (pc.borrowSite != null) {
+					pc.borrowSite.printStackTrace();
+				}
+			}
+		}
+	}
+
+	private static boolean isFatal(SQLException e) {
+		String state = e.getSQLState();
+		return state != null && (state.startsWith("08") || state.equals("57P01") || state.equals("57P02"));
+	}
+
+	private final class PooledConnection {
+		private final Connection raw;
+		private final long createdAt = System.nanoTime();
+		private volatile long lastUsed = createdAt;
+		private volatile long borrowedAt;
+		private volatile Exception borrowSite;
+		private volatile boolean leakReported;
+		private volatile boolean broken;
+		private boolean autoCommitChanged;
+		private boolean readOnlyChanged;
+		private boolean isolationChanged;
+		private final int defaultIsolation;
+		private final StatementCache statements = new StatementCache(settings.statementCacheSize());
+
+		private PooledConnection(Connection raw) throws SQLException {
+			this.raw = raw;
+			this.defaultIsolation = raw.getTransactionIsolation();
+		}
+
+		private Connection newHandle() {
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class },
+					new Handle(this));
+		}
+
+		private boolean reset() {
+			try {
+				if (autoCommitChanged && !raw.getAutoCommit()) {
+					raw.rollback();
+					raw.setAutoCommit(true);
+				}
+				if (readOnlyChanged) {
+					raw.setReadOnly(false);
+				}
+				if (isolationChanged) {
+					raw.setTransactionIsolation(defaultIsolation);
+				}
+				raw.clearWarnings();
+				autoCommitChanged = false;
+				readOnlyChanged = false;
+				isolationChanged = false;
+				return true;
+			} catch (SQLException e) {
+				return false;
+			}
+		}
+	}
+
+	private final class Handle implements InvocationHandler {
+		private final PooledConnection pc;
+		private final List<Statement> openStatements = new ArrayList<>();
+		private boolean closed;
+
+		private Handle(PooledConnection pc) {
+			this.pc = pc;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close":
+					if (!closed) {
+						closed = true;
+						closeStatements();
+						release(pc);
+					}
+					return null;
+				case "isClosed":
+					return closed || pc.raw.isClosed();
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Pooled" + pc.raw;
+				default:
+					break;
+			}
+			if (closed) {
+				throw new SQLException("Connection is closed");
+			}
+			switch (method.getName()) {
+				case "setAutoCommit" -> pc.autoCommitChanged = true;
+				case "setReadOnly" -> pc.readOnlyChanged = true;
+				case "setTransactionIsolation" -> pc.isolationChanged = true;
+				case "prepareStatement" -> {
+					if (isCacheable(args)) {
+						return prepareCached((Connection) proxy, method, args);
+					}
+				}
+				default -> {
+				}
+			}
+			try {
+				Object result = method.invoke(pc.raw, args);
+				if (result instanceof Statement statement) {
+					openStatements.add(statement);
+				}
+				return result;
+			} catch (InvocationTargetException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof SQLException sqlException && isFatal(sqlException)) {
+					pc.broken = true;
+				}
+				throw cause;
+			}
+		}
+
+		private boolean isCacheable(Object[] args) {
+			if (settings.statementCacheSize() == 0) {
+				return false;
+			}
+			for (Object arg : args) {
+				if (arg != null && arg.getClass().isArray()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private PreparedStatement prepareCached(Connection proxy, Method method, Object[] args) throws Throwable {
+			List<Object> key = Arrays.asList(args);
+			PreparedStatement raw = pc.statements.take(key);
+			if (raw != null) {
+				statementCacheHits.incrementAndGet();
+			} else {
+				statementCacheMisses.incrementAndGet();
+				try {
+					raw = (PreparedStatement) method.invoke(pc.raw, args);
+				} catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+				if (settings.prepareThreshold() > 0 && raw.isWrapperFor(PGStatement.class)) {
+					raw.unwrap(PGStatement.class).setPrepareThreshold(settings.prepareThreshold());
+				}
+			}
+			PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(
+					PreparedStatement.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class },
+					new CachedStatementHandle(pc, key, raw, proxy));
+			openStatements.add(statement);
+			return statement;
+		}
+
+		private void closeStatements() {
+			for (Statement statement : openStatements) {
+				try {
+					statement.close();
+				} catch (SQLException e) {
+					pc.broken = true;
+				}
+			}
+			openStatements.clear();
+		}
+	}
+
+	private final class CachedStatementHandle implements InvocationHandler {
+		private final PooledConnection pc;
+		private final List<Object> key;
+		private final PreparedStatement raw;
+		private final Connection connection;
+		private boolean closed;
+		private boolean settingsChanged;
+
+		private CachedStatementHandle(PooledConnection pc, List<Object> key, PreparedStatement raw,
+				Connection connection) {
+			this.pc = pc;
+			this.key = key;
+			this.raw = raw;
+			this.connection = connection;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "close":
+					if (!closed) {
+						closed = true;
+						checkIn();
+					}
+					return null;
+				case "isClosed":
+					return closed || raw.isClosed();
+				case "getConnection":
+					return connection;
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Cached" + raw;
+				default:
+					break;
+			}
+			if (closed) {
+				throw new SQLException("Statement is closed");
+			}
+			if (method.getName().startsWith("set") && !method.getName().equals("setCursorName")
+					&& method.getDeclaringClass() == Statement.class) {
+				settingsChanged = true;
+			}
+			try {
+				return method.invoke(raw, args);
+			} catch (InvocationTargetException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof SQLException sqlException && isFatal(sqlException)) {
+					pc.broken = true;
+				}
+				throw cause;
+			}
+		}
+
+		private void checkIn() throws SQLException {
+			if (pc.broken || raw.isClosed()) {
+				raw.close();
+				return;
+			}
+			try {
+				ResultSet current = raw.getResultSet();
+				if (current != null) {
+					current.close();
+				}
+				raw.clearParameters();
+				raw.clearBatch();
+				raw.clearWarnings();
+				if (settingsChanged) {
+					raw.setFetchSize(0);
+					raw.setMaxRows(0);
+					raw.setQueryTimeout(0);
+					raw.setFetchDirection(ResultSet.FETCH_FORWARD);
+				}
+			} catch (SQLException e) {
+				raw.close();
+				throw e;
+			}
+			pc.statements.put(key, raw);
+		}
+	}
+
+	private static final class StatementCache {
+		private final int capacity;
+		private final LinkedHashMap<List<Object>, PreparedStatement> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+		private StatementCache(int capacity) {
+			this.capacity = capacity;
+		}
+
+		private synchronized PreparedStatement take(List<Object> key) {
+			return entries.remove(key);
+		}
+
+		private void put(List<Object> key, PreparedStatement statement) throws SQLException {
+			PreparedStatement evicted = null;
+			synchronized (this) {
+				PreparedStatement previous = entries.put(key, statement);
+				if (previous != null && previous != statement) {
+					evicted = previous;
+				} else if (entries.size() > capacity) {
+					Iterator<Map.Entry<List<Object>, PreparedStatement>> eldest = entries.entrySet().iterator();
+					evicted = eldest.next().getValue();
+					eldest.remove();
+				}
+			}
+			if (evicted != null) {
+				evicted.close();
+			}
+		}
+	}
+
+	private static final class LatencyRecorder {
+		private final long[] samples;
+		private int next;
+		private int count;
+
+		private LatencyRecorder(int capacity) {
+			this.samples = new long[capacity];
+		}
+
+		private synchronized void record(long nanos) {
+			samples[next] = nanos;
+			next = (next + 1) % samples.length;
+			if (count < samples.length) {
+				count++;
+			}
+		}
+
+		private synchronized long percentile(double p) {
+			if (count == 0) {
+				return 0;
+			}
+			long[] sorted = Arrays.copyOf(samples, count);
+			Arrays.sort(sorted);
+			int index = (int) Math.ceil(p * count) - 1;
+			return sorted[Math.max(0, Math.min(index, count - 1))];
+		}
+	}
+}
@@ -0,0 +1,162 @@
+package com.stockapp.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+
+public class DatabaseConfig {
+	public static final String PROFILE_PROPERTY = "stockapp.profile";
+	public static final String CONFIG_FILE_PROPERTY = "stockapp.config";
+	private static final String SYSTEM_PREFIX = "stockapp.";
+	private static final String ENV_PREFIX = "STOCKAPP_";
+	private static final String BASE_RESOURCE = "/database.properties";
+
+	private final Properties values;
+	private final String profile;
+
+	DatabaseConfig(Properties values, String profile) {
+		this.values = values;
+		this.profile = profile;
+	}
+
+	public static DatabaseConfig load() {
+		return load(System.getProperties(), System.getenv());
+	}
+
+	static DatabaseConfig load(Properties system, Map<String, String> env) {
+		Properties merged = new Properties();
+		loadResource(merged, BASE_RESOURCE);
+		String profile = firstNonBlank(system.getProperty(PROFILE_PROPERTY), env.get(toEnvName("profile")));
+		if (profile != null && !loadResource(merged, "/database-" + profile + ".properties")) {
+			throw new IllegalStateException("Unknown database profile: " + profile);
+		}
+		String file = firstNonBlank(system.getProperty(CONFIG_FILE_PROPERTY), env.get(toEnvName("config")));
+		if (file != null) {
+			loadFile(merged, Path.of(file));
+		}
+		for (String key : merged.stringPropertyNames()) {
+			String override = firstNonBlank(system.getProperty(SYSTEM_PREFIX + key), env.get(toEnvName(key)));
+			if (override != null) {
+				merged.setProperty(key, override);
+			}
+		}
+		return new DatabaseConfig(merged, profile);
+	}
+
+	public String profile() {
+		return profile == null ? "default" : profile;
+	}
+
+	public String url() {
+		return "jdbc:postgresql://" + getString("db.host") + ":" + getInt("db.port") + "/" + getString("db.name");
+	}
+
+	public Properties driverProperties() {
+		Properties props = new Properties();
+		props.setProperty("user", getString("db.user"));
+		props.setProperty("password", getString("db.password"));
+		props.setProperty("ApplicationName", getString("jdbc.applicationName"));
+		props.setProperty("connectTimeout", String.valueOf(getInt("jdbc.connectTimeoutSeconds")));
+		props.setProperty("socketTimeout", String.valueOf(getInt("jdbc.socketTimeoutSeconds")));
+		props.setProperty("prepareThreshold", String.valueOf(getInt("jdbc.prepareThreshold")));
+		props.setProperty("defaultRowFetchSize", String.valueOf(getInt("jdbc.defaultFetchSize")));
+		props.setProperty("reWriteBatchedInserts", String.valueOf(getBoolean("jdbc.reWriteBatchedInserts")));
+		props.setProperty("binaryTransfer", String.valueOf(getBoolean("jdbc.binaryTransfer")));
+		long statementTimeout = getDuration("jdbc.statementTimeoutMs").toMillis();
+		if (statementTimeout > 0) {
+			props.setProperty("options", "-c statement_timeout=" + statementTimeout);
+		}
+		return props;
+	}
+
+	public ConnectionPool.Settings poolSettings() {
+		return new ConnectionPool.Settings(getInt("pool.maxSize"),
+				getInt("pool.minIdle"),
+				getDuration("pool.connectionTimeoutMs"),
+				getDuration("pool.validationTimeoutMs"),
+				getDuration("pool.idleTimeoutMs"),
+				getDuration("pool.maxLifetimeMs"),
+				getDuration("pool.leakDetectionThresholdMs"),
+				getDuration("pool.housekeepingPeriodMs"),
+				getInt("pool.statementCacheSize"),
+				getInt("jdbc.prepareThreshold"));
+	}
+
+	public RetryPolicy retryPolicy() {
+		return new RetryPolicy(getInt("tx.retryMaxAttempts"),
+				getDuration("tx.retryBaseDelayMs"),
+				getDuration("tx.retryMaxDelayMs"));
+	}
+
+	public String getString(String key) {
+		String value = values.getProperty(key);
+		if (value == null) {
+			throw new IllegalStateException("Missing database setting: " + key);
+		}
+		return value.trim();
+	}
+
+	public int getInt(String key) {
+		try {
+			return Integer.parseInt(getString(key));
+		} catch (NumberFormatException e) {
+			throw new IllegalStateException("Database setting " + key + " must be a number", e);
+		}
+	}
+
+	public boolean getBoolean(String key) {
+		return Boolean.parseBoolean(getString(key));
+	}
+
+	public Duration getDuration(String key) {
+		return Duration.ofMillis(getInt(key));
+	}
+
+	static String toEnvName(String key) {
+		StringBuilder sb = new StringBuilder(ENV_PREFIX);
+		for (char ch : key.toCharArray()) {
+			if (ch == '.' || ch == '-') {
+				sb.append('_');
+			} else if (Character.isUpperCase(ch)) {
+				sb.append('_').append(ch);
+			} else {
+				sb.append(Character.toUpperCase(ch));
+			}
+		}
+		return sb.toString();
+	}
+
+	private static boolean loadResource(Properties target, String resource) {
+		try (InputStream in = DatabaseConfig.class.getResourceAsStream(resource)) {
+			if (in == null) {
+				return false;
+			}
+			target.load(in);
+			return true;
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read " + resource, e);
+		}
+	}
+
+	private static void loadFile(Properties target, Path file) {
+		try (Reader reader = Files.newBufferedReader(file)) {
+			target.load(reader);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to read database config file " + file, e);
+		}
+	}
+
+	private static String firstNonBlank(String... candidates) {
+		for (String candidate : candidates) {
+			if (candidate != null && !candidate.isBlank()) {
+				return candidate.trim();
+			}
+		}
+		return null;
+	}
+}
@@ -3,15 +3,25 @@ package com.stockapp.utils;
 import java.sql.*;
 
 public class DatabaseUtils {
-	private static final String HOST = "localhost";
-	private static final String PORT = "5432";
-	private static final String DATABASE = "stockdb";
-	private static final String URL = "jdbc:postgresql://" + HOST + ":" + PORT + "/" + DATABASE;
-	private static final String USER = "user";
-	private static final String PASSWORD = "user1";
+	private static final DatabaseConfig CONFIG = DatabaseConfig.load();
+	private static final ConnectionPool POOL = createPool();
+
+	private static ConnectionPool createPool() {
+		ConnectionPool pool = new ConnectionPool(CONFIG.url(), CONFIG.driverProperties(), CONFIG.poolSettings());
+		Runtime.getRuntime().addShutdownHook(new Thread(pool::close, "connection-pool-shutdown"));
+		return pool;
+	}
 
 	public static Connection getConnection() throws SQLException {
-		return DriverManager.getConnection(URL, USER, PASSWORD);
+		return POOL.getConnection();
+	}
+
+	public static DatabaseConfig config() {
+		return CONFIG;
+	}
+
+	public static ConnectionPool.Stats poolStats() {
+		return POOL.stats();
 	}
 
 	public static void closeResources(Connection conn, Statement stmt, ResultSet rs) {
@@ -0,0 +1,303 @@
+package com.stockapp.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+public class Journal implements AutoCloseable {
+	public record Entry(long endOffset, long appendedAtMillis, String payload) {
+	}
+
+	public record Stats(int pending, long appended, long drained, long fsyncs, long drainLagMillis) {
+		public double appendsPerFsync() {
+			return fsyncs == 0 ? 0 : (double) appended / fsyncs;
+		}
+	}
+
+	private static final int MAX_GROUP = 512;
+	private static final long COMPACT_THRESHOLD_BYTES = 1 << 20;
+
+	private record PendingAppend(String payload, long appendedAtMillis, CompletableFuture<Void> durable) {
+	}
+
+	private final Path file;
+	private final Path checkpointFile;
+	private final FileChannel channel;
+	private final Semaphore capacity;
+	private final Duration appendTimeout;
+	private final BlockingQueue<PendingAppend> appends = new LinkedBlockingQueue<>();
+	private final BlockingQueue<Entry> ready = new LinkedBlockingQueue<>();
+	private final Object fileLock = new Object();
+	private final Thread writer;
+	private final AtomicLong appended = new AtomicLong();
+	private final AtomicLong drained = new AtomicLong();
+	private final AtomicLong fsyncs = new AtomicLong();
+	private final int maxPending;
+	private volatile long inFlightSinceMillis;
+	private volatile boolean closed;
+	private long writtenEnd;
+
+	public Journal(Path file, int maxPending, Duration appendTimeout) {
+		if (maxPending <= 0) {
+			throw new IllegalArgumentException("maxPending must be positive");
+		}
+		this.file = file;
+		this.checkpointFile = file.resolveSibling(file.getFileName() + ".checkpoint");
+		this.maxPending = maxPending;
+		this.appendTimeout = appendTimeout;
+		try {
+			if (file.getParent() != null) {
+				Files.createDirectories(file.getParent());
+			}
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			int recovered = recover();
+			capacity = new Semaphore(maxPending - recovered, true);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to open journal " + file, e);
+		}
+		writer = new Thread(this::writeLoop, "journal-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	public CompletableFuture<Void> append(String payload) {
+		if (payload.indexOf('\n') >= 0 || payload.indexOf('\r') >= 0) {
+			throw new IllegalArgumentException("Journal payloads must be single-line");
+		}
+		if (closed) {
+			throw new IllegalStateException("Journal is closed");
+		}
+		try {
+			if (!capacity.tryAcquire(appendTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+				throw new IllegalStateException(
+						"Journal backlog is full (" + maxPending + " entries waiting for the database)");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for journal capacity", e);
+		}
+		CompletableFuture<Void> durable = new CompletableFuture<>();
+		appends.add(new PendingAppend(payload, System.currentTimeMillis(), durable));
+		return durable;
+	}
+
+	public List<Entry> poll(int max, Duration wait) throws InterruptedException {
+		List<Entry> batch = new ArrayList<>();
+		Entry first = ready.poll(wait.toMillis(), TimeUnit.MILLISECONDS);
+		if (first == null) {
+			return batch;
+		}
+		batch.add(first);
+		ready.drainTo(batch, max - 1);
+		inFlightSinceMillis = first.appendedAtMillis();
+		return batch;
+	}
+
+	public void markDrained(List<Entry> batch) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		long checkpoint = batch.get(batch.size() - 1).endOffset();
+		try {
+			writeCheckpoint(checkpoint);
+			synchronized (fileLock) {
+				if (checkpoint == writtenEnd && appends.isEmpty() && ready.isEmpty()
+						&& writtenEnd >= COMPACT_THRESHOLD_BYTES) {
+					channel.truncate(0);
+					channel.force(true);
+					writtenEnd = 0;
+					writeCheckpoint(0);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to record journal checkpoint", e);
+		}
+		inFlightSinceMillis = 0;
+		drained.addAndGet(batch.size());
+		capacity.release(batch.size());
+	}
+
+	public Stats stats() {
+		long oldest = inFlightSinceMillis;
+		Entry head = ready.peek();
+		if (oldest == 0 && head != null) {
+			oldest = head.appendedAtMillis();
+		}
+		PendingAppend unwritten = appends.peek();
+		if (oldest == 0 && unwritten != null) {
+			oldest = unwritten.appendedAtMillis();
+		}
+		return new Stats(maxPending - capacity.availablePermits(),
+				appended.get(),
+				drained.get(),
+				fsyncs.get(),
+				oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest));
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			writer.join(TimeUnit.SECONDS.toMillis(5));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		try {
+			channel.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void writeLoop() {
+		List<PendingAppend> group = new ArrayList<>();
+		while (!closed || !appends.isEmpty()) {
+			try {
+				PendingAppend first = appends.poll(200, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				group.add(first);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			appends.drainTo(group, MAX_GROUP - group.size());
+			writeGroup(group);
+			group.clear();
+		}
+	}
+
+	private void writeGroup(List<PendingAppend> group) {
+		List<Entry> entries = new ArrayList<>(group.size());
+		try {
+			synchronized (fileLock) {
+				long offset = writtenEnd;
+				List<byte[]> lines = new ArrayList<>(group.size());
+				for (PendingAppend append : group) {
+					byte[] line = encode(append.appendedAtMillis(), append.payload());
+					offset += line.length;
+					lines.add(line);
+					entries.add(new Entry(offset, append.appendedAtMillis(), append.payload()));
+				}
+				ByteBuffer buffer = ByteBuffer.allocate((int) (offset - writtenEnd));
+				lines.forEach(buffer::put);
+				buffer.flip();
+				long position = writtenEnd;
+				while (buffer.hasRemaining()) {
+					position += channel.write(buffer, position);
+				}
+				channel.force(false);
+				writtenEnd = offset;
+			}
+			fsyncs.incrementAndGet();
+			appended.addAndGet(group.size());
+			ready.addAll(entries);
+			group.forEach(append -> append.durable().complete(null));
+		} catch (IOException e) {
+			capacity.release(group.size());
+			group.forEach(append -> append.durable().completeExceptionally(e));
+		}
+	}
+
+	private int recover() throws IOException {
+		long checkpoint = readCheckpoint();
+		long size = channel.size();
+		if (checkpoint > size) {
+			checkpoint = 0;
+		}
+		byte[] tail = new byte[(int) (size - checkpoint)];
+		ByteBuffer buffer = ByteBuffer.wrap(tail);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, checkpoint + buffer.position()) < 0) {
+				break;
+			}
+		}
+		long offset = checkpoint;
+		int start = 0;
+		int recovered = 0;
+		for (int i = 0; i < tail.length; i++) {
+			if (tail[i] != '\n') {
+				continue;
+			}
+			Entry entry = decode(new String(tail, start, i - start, StandardCharsets.UTF_8), offset + i - start + 1);
+			if (entry == null) {
+				break;
+			}
+			ready.add(entry);
+			recovered++;
+			offset = entry.endOffset();
+			start = i + 1;
+		}
+		if (offset < size) {
+			System.err.println("Journal " + file + ": discarding " + (size - offset) + " bytes of incomplete tail");
+			channel.truncate(offset);
+			channel.force(true);
+		}
+		writtenEnd = offset;
+		return recovered;
+	}
+
+	private long readCheckpoint() throws IOException {
+		if (!Files.exists(checkpointFile)) {
+			return 0;
+		}
+		String value = Files.readString(checkpointFile).trim();
+		return value.isEmpty() ? 0 : Long.parseLong(value);
+	}
+
+	private void writeCheckpoint(long offset) throws IOException {
+		Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+		try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			out.write(ByteBuffer.wrap(Long.toString(offset).getBytes(StandardCharsets.US_ASCII)));
+			out.force(false);
+		}
+		Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static byte[] encode(long appendedAtMillis, String payload) {
+		String body = appendedAtMillis + " " + payload;
+		return String.format("%08x %s\n", crc(body), body).getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static Entry decode(String line, long endOffset) {
+		int space = line.indexOf(' ');
+		if (space != 8) {
+			return null;
+		}
+		String body = line.substring(9);
+		try {
+			if (Long.parseLong(line.substring(0, 8), 16) != crc(body)) {
+				return null;
+			}
+			int split = body.indexOf(' ');
+			return new Entry(endOffset, Long.parseLong(body.substring(0, split)), body.substring(split + 1));
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	private static long crc(String body) {
+		CRC32 crc = new CRC32();
+		crc.update(body.getBytes(StandardCharsets.UTF_8));
+		return crc.getValue();
+	}
+}
@@ -0,0 +1,109 @@
+package com.stockapp.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+public final class ListReconciler {
+	public interface Edits<T> {
+		void remove(int index);
+
+		void insert(int index, T item);
+
+		void replace(int index, T item);
+	}
+
+	private ListReconciler() {
+	}
+
+	public static <T> void reconcile(List<T> target, List<? extends T> fresh, Function<? super T, ?> key,
+			Function<? super T, ?> version) {
+		reconcile(target, fresh, key, version, new Edits<>() {
+			@Override
+			public void remove(int index) {
+				target.remove(index);
+			}
+
+			@Override
+			public void insert(int index, T item) {
+				target.add(index, item);
+			}
+
+			@Override
+			public void replace(int index, T item) {
+				target.set(index, item);
+			}
+		});
+	}
+
+	// Rows are matched by key; unchanged versions are left alone and only rows that moved relative to the
+	// others are removed and re-inserted. Edits are reported with indices into the list as it is at that point.
+	public static <T> void reconcile(List<T> current, List<? extends T> fresh, Function<? super T, ?> key,
+			Function<? super T, ?> version, Edits<T> edits) {
+		Map<Object, Integer> freshIndex = new HashMap<>(fresh.size() * 2);
+		for (int i = 0; i < fresh.size(); i++) {
+			freshIndex.put(key.apply(fresh.get(i)), i);
+		}
+		int[] target = new int[current.size()];
+		for (int i = 0; i < current.size(); i++) {
+			target[i] = freshIndex.getOrDefault(key.apply(current.get(i)), -1);
+		}
+		boolean[] keep = longestIncreasingRun(target);
+
+		List<T> working = new ArrayList<>(current);
+		for (int i = working.size() - 1; i >= 0; i--) {
+			if (!keep[i]) {
+				working.remove(i);
+				edits.remove(i);
+			}
+		}
+		int j = 0;
+		for (T row : fresh) {
+			if (j < working.size() && Objects.equals(key.apply(working.get(j)), key.apply(row))) {
+				if (!Objects.equals(version.apply(working.get(j)), version.apply(row))) {
+					working.set(j, row);
+					edits.replace(j, row);
+				}
+			} else {
+				working.add(j, row);
+				edits.insert(j, row);
+			}
+			j++;
+		}
+	}
+
+	// Marks the longest strictly increasing subsequence of non-negative values (patience sorting).
+	private static boolean[] longestIncreasingRun(int[] values) {
+		int[] tails = new int[values.length];
+		int[] previous = new int[values.length];
+		int length = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] < 0) {
+				continue;
+			}
+			int lo = 0;
+			int hi = length;
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (values[tails[mid]] < values[i]) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			previous[i] = lo > 0 ? tails[lo - 1] : -1;
+			tails[lo] = i;
+			if (lo == length) {
+				length++;
+			}
+		}
+		boolean[] keep = new boolean[values.length];
+		for (int i = length == 0 ? -1 : tails[length - 1]; i >= 0; i = previous[i]) {
+			keep[i] = true;
+		}
+		return keep;
+	}
+}
@@ -0,0 +1,323 @@
+package com.stockapp.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import javafx.collections.ObservableListBase;
+
+/**
+ * A list backed by keyset pages. At most {@code windowPages} pages stay loaded around the last row read; other rows
+ * read as null until their page is fetched again, by keyset from the last row of the page before it, which is kept
+ * for every page even after its rows are dropped.
+ */
+public class PagedObservableList<T> extends ObservableListBase<T> {
+	@FunctionalInterface
+	public interface PageLoader<T> {
+		List<T> load(T after, int limit);
+	}
+
+	// The rows a refresh reloads: limit rows after the key that ends the page before firstPage.
+	public record Window<T>(int firstPage, T after, int limit, int generation) {
+	}
+
+	public static final int DEFAULT_WINDOW_PAGES = 5;
+
+	private final int pageSize;
+	private final int windowPages;
+	private final Executor loadExecutor;
+	private final Executor applyExecutor;
+	private final Function<? super T, ?> key;
+	private final Function<? super T, ?> version;
+	private final Map<Integer, List<T>> pages = new HashMap<>();
+	private final List<T> lastRows = new ArrayList<>();
+	private final Set<Integer> pending = new HashSet<>();
+	private int size;
+	private int focus;
+	private PageLoader<T> loader;
+	private boolean exhausted = true;
+	private int generation;
+
+	public PagedObservableList(int pageSize, Executor executor) {
+		this(pageSize, executor, Function.identity(), Function.identity());
+	}
+
+	public PagedObservableList(int pageSize, Executor executor, Function<? super T, ?> key,
+			Function<? super T, ?> version) {
+		this(pageSize, executor, Runnable::run, key, version);
+	}
+
+	public PagedObservableList(int pageSize, Executor loadExecutor, Executor applyExecutor, Function<? super T, ?> key,
+			Function<? super T, ?> version) {
+		this(pageSize, DEFAULT_WINDOW_PAGES, loadExecutor, applyExecutor, key, version);
+	}
+
+	// Pages are fetched on loadExecutor and applied to the list on applyExecutor (the FX thread for a TableView).
+	public PagedObservableList(int pageSize, int windowPages, Executor loadExecutor, Executor applyExecutor,
+			Function<? super T, ?> key, Function<? super T, ?> version) {
+		if (pageSize <= 0) {
+			throw new IllegalArgumentException("pageSize must be positive");
+		}
+		if (windowPages <= 0) {
+			throw new IllegalArgumentException("windowPages must be positive");
+		}
+		this.pageSize = pageSize;
+		this.windowPages = windowPages;
+		this.loadExecutor = loadExecutor;
+		this.applyExecutor = applyExecutor;
+		this.key = key;
+		this.version = version;
+	}
+
+	public int pageSize() {
+		return pageSize;
+	}
+
+	// Whether the rows shown came from loader, i.e. the last snapshot applied was read with it.
+	public boolean isLoadedBy(PageLoader<T> loader) {
+		return loader == this.loader;
+	}
+
+	// The pages around the last row read, at most windowPages of them, however far down the list that is.
+	public Window<T> refreshWindow() {
+		int known = lastRows.size();
+		int focusPage = Math.min(focus / pageSize, Math.max(known - 1, 0));
+		int first = Math.max(0, Math.min(focusPage - windowPages / 2, known - windowPages));
+		int pageCount = Math.max(1, Math.min(windowPages, known - first));
+		return new Window<>(first, first == 0 ? null : lastRows.get(first - 1), pageCount * pageSize, generation);
+	}
+
+	// Shows rows loaded elsewhere with loader.load(window.after(), window.limit()), reconciled in place so unchanged
+	// rows keep their cells. Dropped when the list was reset or refreshed since the window was taken.
+	public void applyWindow(PageLoader<T> loader, Window<T> window, List<T> fresh) {
+		if (loader != this.loader || window.generation() != generation) {
+			return;
+		}
+		generation++;
+		pending.clear();
+		write(window.firstPage(), fresh, window.limit());
+		evict();
+	}
+
+	// Shows rows loaded elsewhere with loader.load(null, limit): a new loader replaces the list, the current one is
+	// reconciled in place.
+	public void applySnapshot(PageLoader<T> loader, List<T> fresh, int limit) {
+		boolean sameLoader = loader == this.loader;
+		this.loader = loader;
+		generation++;
+		pending.clear();
+		beginChange();
+		if (!sameLoader) {
+			if (size > 0) {
+				nextRemove(0, rows(0, size));
+			}
+			pages.clear();
+			lastRows.clear();
+			size = 0;
+			focus = 0;
+		}
+		write(0, fresh, limit);
+		endChange();
+		evict();
+	}
+
+	public boolean isExhausted() {
+		return exhausted;
+	}
+
+	public Optional<T> findLoaded(Predicate<? super T> match) {
+		return pages.values().stream().flatMap(List::stream).filter(match).findFirst();
+	}
+
+	int loadedPages() {
+		return pages.size();
+	}
+
+	@Override
+	public T get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(index);
+		}
+		focus = index;
+		List<T> page = pages.get(index / pageSize);
+		if (page == null) {
+			request(index / pageSize);
+			return null;
+		}
+		if (!exhausted && index >= size - pageSize / 2) {
+			request(lastRows.size());
+		}
+		return page.get(index % pageSize);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	// Searches loaded rows only; walking every index through get() would fetch every page of the list.
+	@Override
+	public int indexOf(Object o) {
+		return pages.entrySet().stream()
+				.filter(e -> e.getValue().contains(o))
+				.mapToInt(e -> e.getKey() * pageSize + e.getValue().indexOf(o))
+				.min()
+				.orElse(-1);
+	}
+
+	@Override
+	public int lastIndexOf(Object o) {
+		return pages.entrySet().stream()
+				.filter(e -> e.getValue().contains(o))
+				.mapToInt(e -> e.getKey() * pageSize + e.getValue().lastIndexOf(o))
+				.max()
+				.orElse(-1);
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return indexOf(o) >= 0;
+	}
+
+	private void request(int page) {
+		if (!pending.add(page)) {
+			return;
+		}
+		int requested = generation;
+		PageLoader<T> pageLoader = loader;
+		T after = page == 0 ? null : lastRows.get(page - 1);
+		loadExecutor.execute(() -> loadPage(requested, pageLoader, page, after));
+	}
+
+	private void loadPage(int requested, PageLoader<T> pageLoader, int page, T after) {
+		List<T> rows;
+		try {
+			rows = pageLoader.load(after, pageSize);
+		} catch (RuntimeException e) {
+			applyExecutor.execute(() -> {
+				if (requested == generation) {
+					pending.remove(page);
+				}
+			});
+			throw e;
+		}
+		applyExecutor.execute(() -> applyPage(requested, page, rows));
+	}
+
+	private void applyPage(int requested, int page, List<T> rows) {
+		if (requested != generation) {
+			return;
+		}
+		pending.remove(page);
+		if (page > lastRows.size()) {
+			return;
+		}
+		write(page, rows, pageSize);
+		evict();
+	}
+
+	// Puts fresh in place from the start of page first on. A short result means the rows end there, so anything
+	// after it goes; a full one that reaches the end means more may follow.
+	private void write(int first, List<T> fresh, int limit) {
+		int end = first * pageSize + fresh.size();
+		beginChange();
+		if (fresh.size() < limit && end < size) {
+			truncate(end);
+		}
+		for (int from = 0; from < fresh.size(); from += pageSize) {
+			writePage(first + from / pageSize, fresh.subList(from, Math.min(from + pageSize, fresh.size())));
+		}
+		endChange();
+		if (fresh.size() < limit) {
+			exhausted = true;
+		} else if (end >= size) {
+			exhausted = false;
+		}
+	}
+
+	private void writePage(int page, List<T> rows) {
+		int base = page * pageSize;
+		int oldLength = Math.max(0, Math.min(pageSize, size - base));
+		List<T> loaded = pages.get(page);
+		if (loaded != null && loaded.size() == rows.size()) {
+			ListReconciler.reconcile(loaded, rows, key, version, new ListReconciler.Edits<>() {
+				@Override
+				public void remove(int index) {
+					nextRemove(base + index, loaded.remove(index));
+				}
+
+				@Override
+				public void insert(int index, T item) {
+					loaded.add(index, item);
+					nextAdd(base + index, base + index + 1);
+				}
+
+				@Override
+				public void replace(int index, T item) {
+					nextSet(base + index, loaded.set(index, item));
+				}
+			});
+		} else {
+			for (int i = 0; i < oldLength; i++) {
+				nextSet(base + i, loaded == null ? null : loaded.get(i));
+			}
+			if (rows.size() > oldLength) {
+				nextAdd(base + oldLength, base + rows.size());
+			}
+			pages.put(page, new ArrayList<>(rows));
+			size = Math.max(size, base + rows.size());
+		}
+		if (page < lastRows.size()) {
+			lastRows.set(page, rows.get(rows.size() - 1));
+		} else {
+			lastRows.add(rows.get(rows.size() - 1));
+		}
+	}
+
+	private void truncate(int end) {
+		nextRemove(end, rows(end, size));
+		int keep = (end + pageSize - 1) / pageSize;
+		pages.keySet().removeIf(page -> page >= keep);
+		List<T> cut = pages.get(keep - 1);
+		if (cut != null) {
+			cut.subList(end - (keep - 1) * pageSize, cut.size()).clear();
+		}
+		lastRows.subList(keep, lastRows.size()).clear();
+		size = end;
+	}
+
+	private void evict() {
+		if (pages.size() <= windowPages) {
+			return;
+		}
+		int focusPage = focus / pageSize;
+		List<Integer> farthestFirst = pages.keySet().stream()
+				.sorted(Comparator.comparingInt((Integer page) -> Math.abs(page - focusPage)).reversed())
+				.toList();
+		beginChange();
+		for (int i = 0; pages.size() > windowPages; i++) {
+			int page = farthestFirst.get(i);
+			List<T> dropped = pages.remove(page);
+			for (int j = 0; j < dropped.size(); j++) {
+				nextSet(page * pageSize + j, dropped.get(j));
+			}
+		}
+		endChange();
+	}
+
+	private List<T> rows(int from, int to) {
+		List<T> rows = new ArrayList<>(to - from);
+		for (int i = from; i < to; i++) {
+			List<T> page = pages.get(i / pageSize);
+			rows.add(page == null ? null : page.get(i % pageSize));
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,95 @@
+package com.stockapp.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Case- and accent-insensitive prefix lookup over a text attribute. Entries live in a sorted skip list keyed by the
+ * normalized text, so a lookup is one seek plus a scan of at most {@code limit} entries and readers never block.
+ */
+public class PrefixIndex<K extends Comparable<? super K>, T> {
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+	private final Function<? super T, K> key;
+	private final Function<? super T, String> text;
+	private record IndexKey<K>(String text, K id) {
+	}
+
+	// A null id sorts first, so a key with just the text is where a prefix scan starts.
+	private final ConcurrentSkipListMap<IndexKey<K>, T> entries = new ConcurrentSkipListMap<>(
+			Comparator.comparing((IndexKey<K> k) -> k.text())
+					.thenComparing(IndexKey::id, Comparator.nullsFirst(Comparator.naturalOrder())));
+	private final Map<K, IndexKey<K>> indexKeys = new ConcurrentHashMap<>();
+
+	public PrefixIndex(Function<? super T, K> key, Function<? super T, String> text) {
+		this.key = key;
+		this.text = text;
+	}
+
+	public static String normalize(String value) {
+		if (value == null) {
+			return "";
+		}
+		String decomposed = Normalizer.normalize(value.strip(), Normalizer.Form.NFD);
+		return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+	}
+
+	public synchronized void put(T item) {
+		K id = key.apply(item);
+		IndexKey<K> indexKey = new IndexKey<>(normalize(text.apply(item)), id);
+		IndexKey<K> previous = indexKeys.put(id, indexKey);
+		if (previous != null && !previous.equals(indexKey)) {
+			entries.remove(previous);
+		}
+		entries.put(indexKey, item);
+	}
+
+	public synchronized void remove(K id) {
+		IndexKey<K> previous = indexKeys.remove(id);
+		if (previous != null) {
+			entries.remove(previous);
+		}
+	}
+
+	public synchronized void replaceAll(Collection<? extends T> items) {
+		entries.clear();
+		indexKeys.clear();
+		items.forEach(this::put);
+	}
+
+	public Optional<T> get(K id) {
+		IndexKey<K> indexKey = indexKeys.get(id);
+		return indexKey == null ? Optional.empty() : Optional.ofNullable(entries.get(indexKey));
+	}
+
+	public List<T> search(String prefix, int limit) {
+		String from = normalize(prefix);
+		List<T> matches = new ArrayList<>(Math.min(limit, 64));
+		for (Map.Entry<IndexKey<K>, T> entry : entries.tailMap(new IndexKey<>(from, null)).entrySet()) {
+			if (matches.size() >= limit || !entry.getKey().text().startsWith(from)) {
+				break;
+			}
+			matches.add(entry.getValue());
+		}
+		return matches;
+	}
+
+	public int size() {
+		return indexKeys.size();
+	}
+
+	public Set<K> keys() {
+		return Set.copyOf(indexKeys.keySet());
+	}
+}
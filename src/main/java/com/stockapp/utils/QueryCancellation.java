@@ -0,0 +1,76 @@
+package com.stockapp.utils;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Callable;
+
+/**
+ * Lets a caller abandon database work it no longer needs. Statements executed by {@link QueryExecutor} while
+ * {@link #run} is on the stack are registered here, so {@link #cancel} stops the one in flight through
+ * {@link Statement#cancel()} and makes any later one fail before it reaches the server.
+ */
+public final class QueryCancellation {
+	public static final String QUERY_CANCELED = "57014";
+
+	private static final ThreadLocal<QueryCancellation> CURRENT = new ThreadLocal<>();
+
+	interface Registration extends AutoCloseable {
+		@Override
+		void close();
+	}
+
+	private Statement running;
+	private boolean cancelled;
+
+	public <T> T run(Callable<T> work) throws Exception {
+		QueryCancellation outer = CURRENT.get();
+		CURRENT.set(this);
+		try {
+			return work.call();
+		} finally {
+			if (outer == null) {
+				CURRENT.remove();
+			} else {
+				CURRENT.set(outer);
+			}
+		}
+	}
+
+	// Sends a cancel request to the server when a statement is running, so don't call this on the UI thread.
+	// Holding the lock keeps the statement from finishing and its connection from being reused meanwhile.
+	public synchronized void cancel() {
+		if (cancelled) {
+			return;
+		}
+		cancelled = true;
+		if (running != null) {
+			try {
+				running.cancel();
+			} catch (SQLException ignored) {
+				// The query then runs to completion or to its timeout; its result is discarded either way.
+			}
+		}
+	}
+
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	static Registration track(Statement statement) throws SQLException {
+		QueryCancellation current = CURRENT.get();
+		return current == null ? () -> {
+		} : current.register(statement);
+	}
+
+	private synchronized Registration register(Statement statement) throws SQLException {
+		if (cancelled) {
+			throw new SQLException("Query cancelled", QUERY_CANCELED);
+		}
+		running = statement;
+		return this::unregister;
+	}
+
+	private synchronized void unregister() {
+		running = null;
+	}
+}
@@ -0,0 +1,323 @@
+package com.stockapp.utils;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class QueryExecutor {
+	@FunctionalInterface
+	public interface ConnectionSource {
+		Connection get() throws SQLException;
+	}
+
+	@FunctionalInterface
+	public interface BatchBinder<T> {
+		void bind(PreparedStatement ps, T item) throws SQLException;
+	}
+
+	@FunctionalInterface
+	public interface TransactionCallback<T> {
+		T run(QueryExecutor tx) throws SQLException;
+	}
+
+	private final ConnectionSource connections;
+	private final Connection boundConnection;
+	private final int timeoutSeconds;
+
+	public QueryExecutor() {
+		this(DatabaseUtils::getConnection);
+	}
+
+	public QueryExecutor(ConnectionSource connections) {
+		this(connections, null, 0);
+	}
+
+	private QueryExecutor(ConnectionSource connections, Connection boundConnection, int timeoutSeconds) {
+		this.connections = connections;
+		this.boundConnection = boundConnection;
+		this.timeoutSeconds = timeoutSeconds;
+	}
+
+	public static QueryExecutor on(Connection connection) {
+		return new QueryExecutor(null, connection, 0);
+	}
+
+	// The same executor, but every statement it runs is cancelled by the driver after the given time (rounded up
+	// to whole seconds, which is all JDBC offers). Zero means no limit beyond the session's statement_timeout.
+	public QueryExecutor withTimeout(Duration timeout) {
+		int seconds = timeout.isZero() ? 0 : (int) Math.max(1, (timeout.toMillis() + 999) / 1000);
+		return new QueryExecutor(connections, boundConnection, seconds);
+	}
+
+	public <T> Optional<T> queryOne(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+		Connection c = acquire();
+		try (PreparedStatement ps = prepare(c, sql);
+				QueryCancellation.Registration running = QueryCancellation.track(ps)) {
+			bind(ps, params);
+			try (ResultSet rs = ps.executeQuery()) {
+				if (!rs.next()) {
+					return Optional.empty();
+				}
+				return Optional.of(mapper.map(rs, mapper.resolve(rs.getMetaData())));
+			}
+		} finally {
+			release(c);
+		}
+	}
+
+	public <T> List<T> queryList(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+		List<T> rows = new ArrayList<>();
+		queryEach(sql, mapper, rows::add, params);
+		return rows;
+	}
+
+	public <T> void queryEach(String sql, RowMapper<T> mapper, Consumer<? super T> action, Object... params)
+			throws SQLException {
+		Connection c = acquire();
+		try (PreparedStatement ps = prepare(c, sql);
+				QueryCancellation.Registration running = QueryCancellation.track(ps)) {
+			bind(ps, params);
+			try (ResultSet rs = ps.executeQuery()) {
+				int[] columns = mapper.resolve(rs.getMetaData());
+				while (rs.next()) {
+					action.accept(mapper.map(rs, columns));
+				}
+			}
+		} finally {
+			release(c);
+		}
+	}
+
+	public <T> Stream<T> stream(String sql, RowMapper<T> mapper, int fetchSize, Object... params) throws SQLException {
+		Connection c = acquire();
+		boolean ownsTransaction = c != boundConnection && c.getAutoCommit();
+		PreparedStatement ps = null;
+		ResultSet rs = null;
+		try {
+			if (ownsTransaction) {
+				c.setAutoCommit(false);
+			}
+			ps = prepare(c, sql);
+			ps.setFetchSize(fetchSize);
+			bind(ps, params);
+			try (QueryCancellation.Registration running = QueryCancellation.track(ps)) {
+				rs = ps.executeQuery();
+			}
+			Cursor<T> cursor = new Cursor<>(c, ps, rs, mapper, mapper.resolve(rs.getMetaData()), ownsTransaction);
+			return StreamSupport.stream(cursor, false).onClose(cursor::close);
+		} catch (SQLException | RuntimeException e) {
+			new Cursor<>(c, ps, rs, mapper, null, ownsTransaction).close();
+			throw e;
+		}
+	}
+
+	public int update(String sql, Object... params) throws SQLException {
+		Connection c = acquire();
+		try (PreparedStatement ps = prepare(c, sql);
+				QueryCancellation.Registration running = QueryCancellation.track(ps)) {
+			bind(ps, params);
+			return ps.executeUpdate();
+		} finally {
+			release(c);
+		}
+	}
+
+	public <T> int[] batchUpdate(String sql, Collection<T> items, BatchBinder<? super T> binder) throws SQLException {
+		Connection c = acquire();
+		try (PreparedStatement ps = prepare(c, sql);
+				QueryCancellation.Registration running = QueryCancellation.track(ps)) {
+			for (T item : items) {
+				binder.bind(ps, item);
+				ps.addBatch();
+			}
+			return ps.executeBatch();
+		} finally {
+			release(c);
+		}
+	}
+
+	public void execute(String sql) throws SQLException {
+		Connection c = acquire();
+		try (Statement s = c.createStatement();
+				QueryCancellation.Registration running = QueryCancellation.track(s)) {
+			if (timeoutSeconds > 0) {
+				s.setQueryTimeout(timeoutSeconds);
+			}
+			s.execute(sql);
+		} finally {
+			release(c);
+		}
+	}
+
+	public <T> T inTransaction(TransactionCallback<T> work) throws SQLException {
+		if (boundConnection != null) {
+			return work.run(this);
+		}
+		try (Connection c = connections.get()) {
+			c.setAutoCommit(false);
+			try {
+				T result = work.run(new QueryExecutor(null, c, timeoutSeconds));
+				c.commit();
+				return result;
+			} catch (SQLException | RuntimeException e) {
+				try {
+					c.rollback();
+				} catch (SQLException rollbackEx) {
+					e.addSuppressed(rollbackEx);
+				}
+				throw e;
+			}
+		}
+	}
+
+	public <T> T inTransaction(RetryPolicy retry, TransactionCallback<T> work) throws SQLException {
+		for (int attempt = 1;; attempt++) {
+			try {
+				return inTransaction(work);
+			} catch (SQLException e) {
+				if (boundConnection != null || attempt >= retry.maxAttempts() || !RetryPolicy.isRetryable(e)) {
+					throw e;
+				}
+				try {
+					Thread.sleep(retry.backoff(attempt));
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					e.addSuppressed(interrupted);
+					throw e;
+				}
+			}
+		}
+	}
+
+	static void bind(PreparedStatement ps, Object[] params) throws SQLException {
+		for (int i = 0; i < params.length; i++) {
+			Object value = params[i];
+			if (value instanceof Enum<?> e) {
+				ps.setString(i + 1, e.name());
+			} else if (value instanceof Object[] array) {
+				ps.setArray(i + 1, ps.getConnection().createArrayOf(sqlArrayType(array), array));
+			} else {
+				ps.setObject(i + 1, value);
+			}
+		}
+	}
+
+	private final class Cursor<T> extends Spliterators.AbstractSpliterator<T> {
+		private final Connection connection;
+		private final PreparedStatement statement;
+		private final ResultSet rs;
+		private final RowMapper<T> mapper;
+		private final int[] columns;
+		private final boolean ownsTransaction;
+		private boolean closed;
+
+		Cursor(Connection connection, PreparedStatement statement, ResultSet rs, RowMapper<T> mapper, int[] columns,
+				boolean ownsTransaction) {
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+			this.connection = connection;
+			this.statement = statement;
+			this.rs = rs;
+			this.mapper = mapper;
+			this.columns = columns;
+			this.ownsTransaction = ownsTransaction;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (closed) {
+				return false;
+			}
+			try {
+				if (!rs.next()) {
+					return false;
+				}
+				action.accept(mapper.map(rs, columns));
+				return true;
+			} catch (SQLException e) {
+				throw new RuntimeException("Failed to read next row", e);
+			}
+		}
+
+		void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			SQLException failure = null;
+			for (AutoCloseable resource : new AutoCloseable[] { rs, statement }) {
+				try {
+					if (resource != null) {
+						resource.close();
+					}
+				} catch (Exception e) {
+					failure = chain(failure, e);
+				}
+			}
+			try {
+				if (ownsTransaction) {
+					connection.rollback();
+				}
+			} catch (SQLException e) {
+				failure = chain(failure, e);
+			}
+			try {
+				release(connection);
+			} catch (SQLException e) {
+				failure = chain(failure, e);
+			}
+			if (failure != null) {
+				throw new RuntimeException("Failed to close streaming query", failure);
+			}
+		}
+
+		private SQLException chain(SQLException first, Exception next) {
+			if (first == null) {
+				return next instanceof SQLException sql ? sql : new SQLException(next);
+			}
+			first.addSuppressed(next);
+			return first;
+		}
+	}
+
+	private static String sqlArrayType(Object[] array) {
+		return switch (array) {
+			case Long[] ignored -> "int8";
+			case Integer[] ignored -> "int4";
+			case BigDecimal[] ignored -> "numeric";
+			case String[] ignored -> "text";
+			default -> throw new IllegalArgumentException(
+					"Unsupported array parameter type: " + array.getClass().getComponentType().getName());
+		};
+	}
+
+	private PreparedStatement prepare(Connection c, String sql) throws SQLException {
+		PreparedStatement ps = c.prepareStatement(sql);
+		if (timeoutSeconds > 0) {
+			ps.setQueryTimeout(timeoutSeconds);
+		}
+		return ps;
+	}
+
+	private Connection acquire() throws SQLException {
+		return boundConnection != null ? boundConnection : connections.get();
+	}
+
+	private void release(Connection c) throws SQLException {
+		if (c != boundConnection) {
+			c.close();
+		}
+	}
+}
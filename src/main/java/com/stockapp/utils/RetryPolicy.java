@@ -0,0 +1,38 @@
+package com.stockapp.utils;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+public record RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+	private static final Set<String> RETRYABLE_STATES = Set.of("40P01", "40001");
+
+	public RetryPolicy {
+		if (maxAttempts < 1) {
+			throw new IllegalArgumentException("maxAttempts must be at least 1");
+		}
+		if (baseDelay.isNegative() || maxDelay.compareTo(baseDelay) < 0) {
+			throw new IllegalArgumentException("maxDelay must be >= baseDelay >= 0");
+		}
+	}
+
+	public static boolean isRetryable(Throwable failure) {
+		for (Throwable t = failure; t != null; t = t.getCause()) {
+			if (t instanceof SQLException sql) {
+				for (SQLException e = sql; e != null; e = e.getNextException()) {
+					if (e.getSQLState() != null && RETRYABLE_STATES.contains(e.getSQLState())) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	public Duration backoff(int attempt) {
+		long base = baseDelay.toMillis();
+		long ceiling = Math.min(maxDelay.toMillis(), base << Math.min(attempt, 20));
+		return Duration.ofMillis(ThreadLocalRandom.current().nextLong(base, Math.max(base, ceiling) + 1));
+	}
+}
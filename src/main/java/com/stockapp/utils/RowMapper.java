@@ -0,0 +1,56 @@
+package com.stockapp.utils;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public final class RowMapper<T> {
+	@FunctionalInterface
+	public interface RowReader<T> {
+		T read(ResultSet rs, int[] col) throws SQLException;
+	}
+
+	private final String[] columns;
+	private final RowReader<T> reader;
+
+	private RowMapper(String[] columns, RowReader<T> reader) {
+		this.columns = columns;
+		this.reader = reader;
+	}
+
+	public static <T> RowMapper<T> of(RowReader<T> reader, String... columns) {
+		return new RowMapper<>(columns, reader);
+	}
+
+	public static RowMapper<Integer> intColumn(String column) {
+		return of((rs, col) -> rs.getInt(col[0]), column);
+	}
+
+	public static RowMapper<Long> longColumn(String column) {
+		return of((rs, col) -> rs.getLong(col[0]), column);
+	}
+
+	int[] resolve(ResultSetMetaData metaData) throws SQLException {
+		int count = metaData.getColumnCount();
+		Map<String, Integer> positions = new HashMap<>(count * 2);
+		for (int i = count; i >= 1; i--) {
+			positions.put(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+		}
+		int[] resolved = new int[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			Integer position = positions.get(columns[i]);
+			if (position == null) {
+				throw new SQLException("Column '" + columns[i] + "' is not part of the result set");
+			}
+			resolved[i] = position;
+		}
+		return resolved;
+	}
+
+	T map(ResultSet rs, int[] resolved) throws SQLException {
+		return reader.read(rs, resolved);
+	}
+}
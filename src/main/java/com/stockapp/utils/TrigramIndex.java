@@ -0,0 +1,409 @@
+package com.stockapp.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Typo-tolerant search over short texts such as product names.
+ *
+ * <p>Each query word is first matched against the vocabulary of indexed words through an inverted index of
+ * character trigrams (split and padded the way pg_trgm does it), so "samsng" finds "samsung" and "gal" finds
+ * "galaxy". The vocabulary is small even for a large catalog, which keeps this step cheap. Texts are then scored by
+ * how much of the query their words cover, weighted by query word length.
+ *
+ * <p>Texts are collected word by word, starting with the query word whose matches are rarest. A text first met
+ * through the j-th word matched none of the earlier ones, which caps its score; once that cap falls below the
+ * current top K (or too far below the best match) the remaining, more common words are not scanned at all.
+ */
+public class TrigramIndex<K> {
+	public record Match<K>(K key, double similarity, double score) {
+	}
+
+	static final double RELATIVE_CUTOFF = 0.75;
+	static final int MAX_EXPANSIONS = 16;
+	// Same as pg_trgm's default similarity threshold; a swapped pair of letters costs a short word most of its grams.
+	static final double MIN_WORD_COVERAGE = 0.3;
+	static final double EXTRA_WORD_PENALTY = 0.01;
+
+	private final double minCoverage;
+	private final double boostWeight;
+	private final ToDoubleFunction<? super K> boost;
+	private final Map<String, Integer> termIds = new HashMap<>();
+	private final List<Term> terms = new ArrayList<>();
+	private final Map<Long, IntList> termPostings = new HashMap<>();
+	private final Map<K, Integer> slots = new HashMap<>();
+	private final List<K> keys = new ArrayList<>();
+	private final List<int[]> slotTerms = new ArrayList<>();
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+	private int dead;
+
+	private static final class Term {
+		final int gramCount;
+		final IntList slots = new IntList();
+		int live;
+
+		Term(int gramCount) {
+			this.gramCount = gramCount;
+		}
+	}
+
+	// The vocabulary words close enough to one query word, sorted by term id for lookup.
+	private record Expansion(int weight, int[] termIds, double[] similarities, double best, long postings) {
+		double similarityOf(int termId) {
+			int i = Arrays.binarySearch(termIds, termId);
+			return i < 0 ? 0 : similarities[i];
+		}
+	}
+
+	/**
+	 * @param minCoverage share of the query (by trigram weight) a text must cover to match at all
+	 * @param boost popularity of a key in [0, 1], added to the similarity with weight {@code boostWeight}
+	 */
+	public TrigramIndex(double minCoverage, ToDoubleFunction<? super K> boost, double boostWeight) {
+		this.minCoverage = minCoverage;
+		this.boost = boost;
+		this.boostWeight = boostWeight;
+	}
+
+	public static List<String> words(String text) {
+		List<String> words = new ArrayList<>();
+		for (String word : PrefixIndex.normalize(text).split("[^\\p{L}\\p{N}]+")) {
+			if (!word.isEmpty()) {
+				words.add(word);
+			}
+		}
+		return words;
+	}
+
+	public static long[] trigrams(String word) {
+		String padded = "  " + word + " ";
+		long[] grams = new long[padded.length() - 2];
+		for (int i = 0; i < grams.length; i++) {
+			grams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+		}
+		return Arrays.stream(grams).sorted().distinct().toArray();
+	}
+
+	public void put(K key, String text) {
+		lock.writeLock().lock();
+		try {
+			removeSlot(key);
+			Set<String> words = new LinkedHashSet<>(words(text));
+			int slot = keys.size();
+			int[] ids = new int[words.size()];
+			int n = 0;
+			for (String word : words) {
+				Term term = terms.get(ids[n++] = termId(word));
+				term.slots.add(slot);
+				term.live++;
+			}
+			keys.add(key);
+			slotTerms.add(ids);
+			slots.put(key, slot);
+			compactIfSparse();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(K key) {
+		lock.writeLock().lock();
+		try {
+			removeSlot(key);
+			compactIfSparse();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			termIds.clear();
+			terms.clear();
+			termPostings.clear();
+			slots.clear();
+			keys.clear();
+			slotTerms.clear();
+			dead = 0;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return slots.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	public List<Match<K>> search(String query, int limit) {
+		List<String> words = new ArrayList<>(new LinkedHashSet<>(words(query)));
+		if (words.isEmpty() || limit <= 0) {
+			return List.of();
+		}
+		lock.readLock().lock();
+		try {
+			return search(words, limit);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private List<Match<K>> search(List<String> words, int limit) {
+		Scratch scratch = this.scratch.get();
+		List<Expansion> expansions = new ArrayList<>(words.size());
+		int totalWeight = 0;
+		for (String word : words) {
+			Expansion expansion = expand(word, scratch);
+			totalWeight += expansion.weight();
+			if (expansion.termIds().length > 0) {
+				expansions.add(expansion);
+			}
+		}
+		expansions.sort(Comparator.comparingLong(Expansion::postings));
+		// remaining[j] is the most the words from j on can still add to a text's coverage.
+		double[] remaining = new double[expansions.size() + 1];
+		for (int j = expansions.size() - 1; j >= 0; j--) {
+			remaining[j] = remaining[j + 1] + expansions.get(j).weight() * expansions.get(j).best() / totalWeight;
+		}
+
+		scratch.visited.reset(keys.size());
+		PriorityQueue<Match<K>> best = new PriorityQueue<>(Comparator.comparingDouble(Match::score));
+		double top = 0;
+		for (int j = 0; j < expansions.size(); j++) {
+			double threshold = threshold(best, limit, top);
+			if (remaining[j] < minCoverage || remaining[j] + boostWeight <= threshold) {
+				break;
+			}
+			Expansion expansion = expansions.get(j);
+			for (int termId : expansion.termIds()) {
+				IntList posting = terms.get(termId).slots;
+				for (int n = 0; n < posting.size; n++) {
+					int slot = posting.values[n];
+					if (!scratch.visited.add(slot) || keys.get(slot) == null) {
+						continue;
+					}
+					int[] textTerms = slotTerms.get(slot);
+					double coverage = coverage(textTerms, expansions, j, totalWeight, scratch);
+					double similarity = coverage - EXTRA_WORD_PENALTY * (textTerms.length - scratch.matchedTerms);
+					if (coverage < minCoverage || similarity + boostWeight <= threshold) {
+						continue;
+					}
+					K key = keys.get(slot);
+					double score = similarity + boostWeight * boost.applyAsDouble(key);
+					if (score <= threshold) {
+						continue;
+					}
+					if (best.size() == limit) {
+						best.poll();
+					}
+					best.add(new Match<>(key, similarity, score));
+					top = Math.max(top, score);
+					threshold = threshold(best, limit, top);
+				}
+			}
+		}
+		double cutoff = RELATIVE_CUTOFF * top;
+		List<Match<K>> matches = new ArrayList<>(best.size());
+		for (Match<K> match : best) {
+			if (match.score() >= cutoff) {
+				matches.add(match);
+			}
+		}
+		matches.sort(Comparator.comparingDouble((Match<K> m) -> m.score()).reversed());
+		return matches;
+	}
+
+	// Share of the query covered by the text's words; words before `from` are known not to match. Also counts how
+	// many of the text's words matched something, so that of two equally good matches the shorter name ranks first.
+	private static double coverage(int[] textTerms, List<Expansion> expansions, int from, int totalWeight,
+			Scratch scratch) {
+		double covered = 0;
+		long matched = 0;
+		for (int j = from; j < expansions.size(); j++) {
+			Expansion expansion = expansions.get(j);
+			double bestTerm = 0;
+			for (int t = 0; t < textTerms.length; t++) {
+				double similarity = expansion.similarityOf(textTerms[t]);
+				if (similarity > 0) {
+					matched |= 1L << Math.min(t, 63);
+					bestTerm = Math.max(bestTerm, similarity);
+				}
+			}
+			covered += expansion.weight() * bestTerm;
+		}
+		scratch.matchedTerms = Long.bitCount(matched);
+		return covered / totalWeight;
+	}
+
+	private Expansion expand(String word, Scratch scratch) {
+		long[] grams = trigrams(word);
+		int[] counts = scratch.counts(terms.size());
+		IntList candidates = new IntList();
+		for (long gram : grams) {
+			IntList list = termPostings.get(gram);
+			if (list == null) {
+				continue;
+			}
+			for (int n = 0; n < list.size; n++) {
+				if (counts[list.values[n]]++ == 0) {
+					candidates.add(list.values[n]);
+				}
+			}
+		}
+		PriorityQueue<double[]> closest = new PriorityQueue<>(Comparator.comparingDouble((double[] c) -> c[1]));
+		for (int n = 0; n < candidates.size; n++) {
+			int termId = candidates.values[n];
+			int shared = counts[termId];
+			counts[termId] = 0;
+			double coverage = (double) shared / grams.length;
+			if (coverage < MIN_WORD_COVERAGE || terms.get(termId).live == 0) {
+				continue;
+			}
+			double jaccard = (double) shared / (grams.length + terms.get(termId).gramCount - shared);
+			closest.add(new double[] { termId, 0.7 * coverage + 0.3 * jaccard });
+			if (closest.size() > MAX_EXPANSIONS) {
+				closest.poll();
+			}
+		}
+		double[][] picked = closest.toArray(double[][]::new);
+		Arrays.sort(picked, Comparator.comparingDouble((double[] c) -> c[0]));
+		int[] ids = new int[picked.length];
+		double[] similarities = new double[picked.length];
+		double bestSimilarity = 0;
+		long postings = 0;
+		for (int i = 0; i < picked.length; i++) {
+			ids[i] = (int) picked[i][0];
+			similarities[i] = picked[i][1];
+			bestSimilarity = Math.max(bestSimilarity, similarities[i]);
+			postings += terms.get(ids[i]).live;
+		}
+		return new Expansion(grams.length, ids, similarities, bestSimilarity, postings);
+	}
+
+	// Anything at or below this can no longer make the results: either the top K is full, or it is too far behind
+	// the best match to be worth showing.
+	private static <K> double threshold(PriorityQueue<Match<K>> best, int limit, double top) {
+		double cutoff = RELATIVE_CUTOFF * top;
+		return best.size() == limit ? Math.max(best.peek().score(), cutoff) : cutoff;
+	}
+
+	private int termId(String word) {
+		Integer id = termIds.get(word);
+		if (id == null) {
+			long[] grams = trigrams(word);
+			int newId = terms.size();
+			terms.add(new Term(grams.length));
+			termIds.put(word, newId);
+			for (long gram : grams) {
+				termPostings.computeIfAbsent(gram, g -> new IntList()).add(newId);
+			}
+			return newId;
+		}
+		return id;
+	}
+
+	private void removeSlot(K key) {
+		Integer slot = slots.remove(key);
+		if (slot != null) {
+			keys.set(slot, null);
+			for (int termId : slotTerms.get(slot)) {
+				terms.get(termId).live--;
+			}
+			slotTerms.set(slot, null);
+			dead++;
+		}
+	}
+
+	// Removed slots stay in the term postings until they outnumber the live ones, then the texts are renumbered.
+	private void compactIfSparse() {
+		if (dead < 1024 || dead < slots.size()) {
+			return;
+		}
+		List<K> liveKeys = new ArrayList<>(slots.size());
+		List<int[]> liveTerms = new ArrayList<>(slots.size());
+		for (int i = 0; i < keys.size(); i++) {
+			if (keys.get(i) != null) {
+				liveKeys.add(keys.get(i));
+				liveTerms.add(slotTerms.get(i));
+			}
+		}
+		keys.clear();
+		slotTerms.clear();
+		slots.clear();
+		terms.forEach(term -> term.slots.size = 0);
+		dead = 0;
+		for (int slot = 0; slot < liveKeys.size(); slot++) {
+			for (int termId : liveTerms.get(slot)) {
+				terms.get(termId).slots.add(slot);
+			}
+			keys.add(liveKeys.get(slot));
+			slotTerms.add(liveTerms.get(slot));
+			slots.put(liveKeys.get(slot), slot);
+		}
+	}
+
+	// Per-thread buffers, so a search allocates nothing proportional to the index size.
+	private static final class Scratch {
+		private final Visited visited = new Visited();
+		private int[] counts = new int[0];
+		private int matchedTerms;
+
+		int[] counts(int size) {
+			if (counts.length < size) {
+				counts = new int[Math.max(size, counts.length * 2)];
+			}
+			return counts;
+		}
+	}
+
+	// Bumping the stamp empties the set without clearing the array.
+	private static final class Visited {
+		private int[] stamps = new int[0];
+		private int stamp;
+
+		void reset(int size) {
+			if (stamps.length < size || stamp == Integer.MAX_VALUE) {
+				stamps = new int[Math.max(size, stamps.length * 2)];
+				stamp = 0;
+			}
+			stamp++;
+		}
+
+		boolean add(int slot) {
+			if (stamps[slot] == stamp) {
+				return false;
+			}
+			stamps[slot] = stamp;
+			return true;
+		}
+	}
+
+	// Ids only ever grow, so every posting list is sorted by construction.
+	private static final class IntList {
+		private int[] values = new int[4];
+		private int size;
+
+		void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+	}
+}
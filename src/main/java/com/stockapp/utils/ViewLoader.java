@@ -0,0 +1,104 @@
+package com.stockapp.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Runs a view's data loads off the UI thread, one at a time. Requests made while a load is running collapse into
+ * a single follow-up load of the latest request, and a result is only delivered if no newer request was made. The
+ * superseded load's queries are cancelled, so the follow-up doesn't wait for work nobody will see.
+ */
+public class ViewLoader implements AutoCloseable {
+	private record Request<T>(Callable<T> task, Consumer<? super T> onResult) {
+	}
+
+	private final Executor background;
+	private final Executor deliver;
+	private final Consumer<Throwable> onError;
+	private Request<?> queued;
+	private QueryCancellation running;
+	private boolean cancelRequested;
+	private boolean closed;
+	private long generation;
+
+	public ViewLoader(Executor background, Executor deliver, Consumer<Throwable> onError) {
+		this.background = background;
+		this.deliver = deliver;
+		this.onError = onError;
+	}
+
+	public static ViewLoader onFxThread(Consumer<Throwable> onError) {
+		return new ViewLoader(BackgroundExecutor.executor(), BackgroundExecutor.fxThread(), onError);
+	}
+
+	public synchronized <T> void request(Callable<T> task, Consumer<? super T> onResult) {
+		if (closed) {
+			return;
+		}
+		generation++;
+		queued = new Request<>(task, onResult);
+		if (running == null) {
+			startNext();
+		} else {
+			cancelRunning();
+		}
+	}
+
+	public synchronized boolean isBusy() {
+		return running != null;
+	}
+
+	@Override
+	public synchronized void close() {
+		closed = true;
+		queued = null;
+		generation++;
+		cancelRunning();
+	}
+
+	private void cancelRunning() {
+		// Cancelling talks to the server, so it is done in the background rather than on the caller's thread.
+		if (running != null && !cancelRequested) {
+			cancelRequested = true;
+			background.execute(running::cancel);
+		}
+	}
+
+	private void startNext() {
+		Request<?> next = queued;
+		queued = null;
+		running = next != null ? new QueryCancellation() : null;
+		cancelRequested = false;
+		if (next != null) {
+			long requested = generation;
+			QueryCancellation cancellation = running;
+			background.execute(() -> run(next, requested, cancellation));
+		}
+	}
+
+	private <T> void run(Request<T> request, long requested, QueryCancellation cancellation) {
+		try {
+			T result = cancellation.run(request.task());
+			deliver(requested, () -> request.onResult().accept(result));
+		} catch (Exception e) {
+			deliver(requested, () -> onError.accept(e));
+		} finally {
+			synchronized (this) {
+				startNext();
+			}
+		}
+	}
+
+	private void deliver(long requested, Runnable action) {
+		deliver.execute(() -> {
+			if (isCurrent(requested)) {
+				action.run();
+			}
+		});
+	}
+
+	private synchronized boolean isCurrent(long requested) {
+		return !closed && requested == generation;
+	}
+}
@@ -1,12 +1,29 @@
 package com.stockapp.services.impl;
 
 import static org.junit.jupiter.api.Assertions.*;
+import com.stockapp.models.dto.InventoryStats;
+import com.stockapp.models.dto.PageKey;
+import com.stockapp.models.dto.StockUpdateResult;
 import com.stockapp.models.entities.Product;
+import com.stockapp.models.entities.Sale;
+import com.stockapp.models.entities.SaleItem;
 import com.stockapp.models.enums.Category;
+import com.stockapp.models.enums.ProductFilter;
+import com.stockapp.models.enums.ProductSortColumn;
+import com.stockapp.models.enums.SortDirection;
+import com.stockapp.utils.QueryExecutor;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -173,4 +190,283 @@ class ProductServiceImplTest {
 		assertTrue(products.stream().anyMatch(p -> p.getId() == sharedProduct.getId()),
 				"Shared product should be found by its prefix");
 	}
+
+	@Test
+	void testSearchByPrefix_FollowsWrites() {
+		System.out.println("Running: testSearchByPrefix_FollowsWrites");
+
+		List<Product> found = productService.searchByPrefix("junit shared", 10);
+		assertTrue(found.stream().anyMatch(p -> p.getId() == sharedProduct.getId()),
+				"Prefix search should ignore case");
+
+		int before = found.stream().filter(p -> p.getId() == sharedProduct.getId()).findFirst().orElseThrow()
+				.getQuantity();
+		productService.updateStock(sharedProduct.getId(), 1);
+		try {
+			Product after = productService.searchByPrefix(SHARED_NAME, 10).stream()
+					.filter(p -> p.getId() == sharedProduct.getId())
+					.findFirst()
+					.orElseThrow();
+			assertEquals(before + 1, after.getQuantity(), "Indexed products should carry the current stock");
+		} finally {
+			productService.updateStock(sharedProduct.getId(), -1);
+		}
+
+		Product temp = productService.create(new Product(TEMP_NAME, "Temp", new BigDecimal("1.00"), 1, 0,
+				Category.ELECTRONICS));
+		assertEquals(1, productService.searchByPrefix(TEMP_NAME, 10).size(), "New products should be searchable");
+		productService.delete(temp.getId());
+		assertTrue(productService.searchByPrefix(TEMP_NAME, 10).isEmpty(), "Deleted products should drop out");
+	}
+
+	@Test
+	void testNameIndexReload_KeepsNewerRows() {
+		System.out.println("Running: testNameIndexReload_KeepsNewerRows");
+
+		ProductNameIndex index = new ProductNameIndex(new QueryExecutor());
+		index.reload();
+		Product indexed = index.get(sharedProduct.getId()).orElseThrow();
+		index.put(indexed.withQuantity(indexed.getQuantity() + 100, OffsetDateTime.now().plusHours(1)));
+
+		index.reload();
+		assertEquals(indexed.getQuantity() + 100, index.get(sharedProduct.getId()).orElseThrow().getQuantity(),
+				"An older row from a reload should leave a newer indexed product alone");
+
+		Product temp = productService.create(new Product(TEMP_NAME, "Temp", new BigDecimal("1.00"), 1, 0,
+				Category.ELECTRONICS));
+		index.reload();
+		assertTrue(index.get(temp.getId()).isPresent(), "A reload should pick up new products");
+		productService.delete(temp.getId());
+		index.reload();
+		assertTrue(index.get(temp.getId()).isEmpty(), "A reload should drop products that no longer exist");
+	}
+
+	@Test
+	void testSearchFuzzy_ToleratesTypos() {
+		System.out.println("Running: testSearchFuzzy_ToleratesTypos");
+
+		List<Product> found = productService.searchFuzzy("junit shraed fixtrue", 10);
+		assertTrue(found.stream().anyMatch(p -> p.getId() == sharedProduct.getId()),
+				"Misspelled words should still find the product");
+
+		Product temp = productService.create(new Product(TEMP_NAME, "Temp", new BigDecimal("1.00"), 1, 0,
+				Category.ELECTRONICS));
+		assertTrue(productService.searchFuzzy("temp delte prod", 10).stream().anyMatch(p -> p.getId() == temp.getId()),
+				"New products should be searchable");
+		productService.delete(temp.getId());
+		assertTrue(productService.searchFuzzy("temp delte prod", 10).stream().noneMatch(p -> p.getId() == temp.getId()),
+				"Deleted products should drop out");
+	}
+
+	@Test
+	void testInventoryStats_FollowWrites() {
+		System.out.println("Running: testInventoryStats_FollowWrites");
+
+		InventoryStats before = productService.inventoryStats();
+		Product temp = productService.create(new Product(TEMP_NAME, "Temp", new BigDecimal("2.50"), 4, 1,
+				Category.ELECTRONICS));
+		try {
+			InventoryStats created = productService.inventoryStats();
+			assertEquals(before.total() + 1, created.total());
+			assertEquals(before.inStock() + 1, created.inStock());
+			assertEquals(before.lowStock(), created.lowStock());
+			assertEquals(0, before.stockValue().add(new BigDecimal("10.00")).compareTo(created.stockValue()));
+
+			productService.updateStock(temp.getId(), -4);
+			InventoryStats emptied = productService.inventoryStats();
+			assertEquals(before.inStock(), emptied.inStock());
+			assertEquals(before.outOfStock() + 1, emptied.outOfStock());
+			assertEquals(before.lowStock() + 1, emptied.lowStock());
+			assertEquals(0, before.stockValue().compareTo(emptied.stockValue()));
+		} finally {
+			productService.delete(temp.getId());
+		}
+		assertEquals(before, productService.inventoryStats(), "Deleting the product should undo its counts");
+	}
+
+	@Test
+	void testStreamAll_MatchesReadAll() {
+		System.out.println("Running: testStreamAll_MatchesReadAll");
+
+		List<Long> expected = productService.readAll().stream().map(Product::getId).toList();
+		List<Long> streamed = assertDoesNotThrow(() -> {
+			try (Stream<Product> products = productService.streamAll()) {
+				return products.map(Product::getId).toList();
+			}
+		}, "Critical Failure: streamAll threw an unexpected exception");
+
+		assertEquals(expected, streamed, "Streaming should return the same rows in the same order");
+	}
+
+	@Test
+	void testForEach_VisitsSharedProduct() {
+		System.out.println("Running: testForEach_VisitsSharedProduct");
+
+		List<Product> visited = new ArrayList<>();
+		productService.forEach(visited::add);
+
+		assertTrue(visited.stream().anyMatch(p -> p.getId() == sharedProduct.getId()),
+				"forEach should visit the shared product");
+	}
+
+	@Test
+	void testReadPage_WalksWholeCatalogWithoutGaps() {
+		System.out.println("Running: testReadPage_WalksWholeCatalogWithoutGaps");
+
+		for (ProductSortColumn column : ProductSortColumn.values()) {
+			for (SortDirection direction : SortDirection.values()) {
+				List<Long> expected = productService.readPage(null, Integer.MAX_VALUE, column, direction)
+						.stream()
+						.map(Product::getId)
+						.toList();
+				List<Long> walked = new ArrayList<>();
+				PageKey after = null;
+				while (true) {
+					List<Product> page = productService.readPage(after, 3, column, direction);
+					page.forEach(p -> walked.add(p.getId()));
+					if (page.size() < 3) {
+						break;
+					}
+					after = column.keyOf(page.get(page.size() - 1));
+				}
+				assertEquals(expected, walked, "Paging by " + column + " " + direction + " should visit every row once");
+			}
+		}
+		assertEquals(productService.readAll().size(),
+				productService.readPage(null, Integer.MAX_VALUE, ProductSortColumn.ID, SortDirection.ASC).size());
+	}
+
+	@Test
+	void testUpdateStock_ReturnsNewQuantity() {
+		System.out.println("Running: testUpdateStock_ReturnsNewQuantity");
+
+		int before = productService.read(sharedProduct.getId()).orElseThrow().getQuantity();
+		int after = productService.updateStock(sharedProduct.getId(), 3);
+		assertEquals(before + 3, after);
+		assertEquals(before, productService.updateStock(sharedProduct.getId(), -3));
+	}
+
+	@Test
+	void testUpdateStock_ConcurrentDecrementsNeverOversell() throws Exception {
+		System.out.println("Running: testUpdateStock_ConcurrentDecrementsNeverOversell");
+
+		Product temp = productService.create(
+				new Product(TEMP_NAME + "_race", "Race", new BigDecimal("1.00"), 5, 0, Category.TOYS));
+		try {
+			ExecutorService pool = Executors.newFixedThreadPool(8);
+			List<Future<Boolean>> attempts = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				attempts.add(pool.submit(() -> {
+					try {
+						productService.updateStock(temp.getId(), -1);
+						return true;
+					} catch (RuntimeException e) {
+						assertTrue(e.getMessage().contains("Not enough stock"), e.getMessage());
+						return false;
+					}
+				}));
+			}
+			int succeeded = 0;
+			for (Future<Boolean> attempt : attempts) {
+				if (attempt.get()) {
+					succeeded++;
+				}
+			}
+			pool.shutdown();
+			assertEquals(5, succeeded, "Exactly the available stock should be sold");
+			assertEquals(0, productService.read(temp.getId()).orElseThrow().getQuantity());
+		} finally {
+			productService.delete(temp.getId());
+		}
+	}
+
+	@Test
+	void testUpdateStockBatch_ReportsPerProductFailures() {
+		System.out.println("Running: testUpdateStockBatch_ReportsPerProductFailures");
+
+		int before = productService.read(sharedProduct.getId()).orElseThrow().getQuantity();
+		Product temp = productService.create(
+				new Product(TEMP_NAME + "_batch", "Batch", new BigDecimal("1.00"), 2, 0, Category.TOYS));
+		try {
+			Map<Long, Integer> deltas = new HashMap<>();
+			deltas.put(sharedProduct.getId(), 4);
+			deltas.put(temp.getId(), -3);
+			deltas.put(-1L, 1);
+
+			Map<Long, StockUpdateResult> results = new HashMap<>();
+			productService.updateStockBatch(deltas).forEach(r -> results.put(r.productId(), r));
+
+			assertEquals(3, results.size());
+			assertTrue(results.get(sharedProduct.getId()).isSuccess());
+			assertEquals(before + 4, results.get(sharedProduct.getId()).newQuantity());
+			assertEquals(StockUpdateResult.Failure.INSUFFICIENT_STOCK, results.get(temp.getId()).failure());
+			assertEquals(StockUpdateResult.Failure.NOT_FOUND, results.get(-1L).failure());
+			assertEquals(2, productService.read(temp.getId()).orElseThrow().getQuantity(),
+					"A failed delta must leave the product untouched");
+		} finally {
+			productService.updateStock(sharedProduct.getId(), -4);
+			productService.delete(temp.getId());
+		}
+	}
+
+	@Test
+	void testCachedReadsSeeWrites() {
+		System.out.println("Running: testCachedReadsSeeWrites");
+
+		Product temp = productService.create(
+				new Product(TEMP_NAME + "_cache", "Cache", new BigDecimal("1.00"), 5, 0, Category.TOYS));
+		try {
+			productService.read(temp.getId());
+			productService.read(temp.getId());
+			long hits = ProductServiceImpl.cacheStats().hits();
+			productService.read(temp.getId());
+			assertEquals(hits + 1, ProductServiceImpl.cacheStats().hits(), "A hot product should be served from cache");
+
+			productService.updateStock(temp.getId(), 3);
+			assertEquals(8, productService.read(temp.getId()).orElseThrow().getQuantity());
+
+			productService.update(new Product(temp.getId(), "Renamed cache", "Cache", new BigDecimal("1.00"), 8, 0,
+					null, Category.TOYS));
+			assertEquals("Renamed cache", productService.read(temp.getId()).orElseThrow().getName());
+
+			new SaleServiceImpl().createSaleWithItems(new Sale(new BigDecimal("2.00")),
+					List.of(new SaleItem(temp.getId(), 0, 2, BigDecimal.ONE)));
+			assertEquals(6, productService.read(temp.getId()).orElseThrow().getQuantity());
+		} finally {
+			new SaleItemServiceImpl().readAll().stream()
+					.filter(i -> i.getProductId() == temp.getId())
+					.forEach(i -> new SaleServiceImpl().delete(i.getSaleId()));
+			productService.delete(temp.getId());
+		}
+		assertTrue(productService.read(temp.getId()).isEmpty(), "Deleted products must not be served from cache");
+	}
+
+	@Test
+	void testReadPage_NeedsRestockFilter() {
+		System.out.println("Running: testReadPage_NeedsRestockFilter");
+
+		Product low = productService.create(
+				new Product(TEMP_NAME + "_low", "Low", new BigDecimal("1.00"), 2, 5, Category.TOYS));
+		Product stable = productService.create(
+				new Product(TEMP_NAME + "_stable", "Stable", new BigDecimal("1.00"), 9, 5, Category.TOYS));
+		try {
+			assertTrue(low.needsRestock());
+			assertFalse(stable.needsRestock());
+
+			List<Product> page = new ArrayList<>();
+			List<Product> batch = productService.readPage(null, 50, ProductSortColumn.ID, SortDirection.ASC,
+					ProductFilter.NEEDS_RESTOCK);
+			while (!batch.isEmpty()) {
+				page.addAll(batch);
+				batch = productService.readPage(ProductSortColumn.ID.keyOf(batch.get(batch.size() - 1)), 50,
+						ProductSortColumn.ID, SortDirection.ASC, ProductFilter.NEEDS_RESTOCK);
+			}
+			assertTrue(page.stream().allMatch(Product::needsRestock));
+			assertTrue(page.stream().anyMatch(p -> p.getId() == low.getId()));
+			assertTrue(page.stream().noneMatch(p -> p.getId() == stable.getId()));
+		} finally {
+			productService.delete(low.getId());
+			productService.delete(stable.getId());
+		}
+	}
 }
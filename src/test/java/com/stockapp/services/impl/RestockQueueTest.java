@@ -0,0 +1,128 @@
+package com.stockapp.services.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import com.stockapp.models.dto.RestockItem;
+import com.stockapp.models.entities.Product;
+import com.stockapp.models.entities.Sale;
+import com.stockapp.models.entities.SaleItem;
+import com.stockapp.models.enums.Category;
+import com.stockapp.utils.QueryExecutor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class RestockQueueTest {
+
+	@Test
+	void testRankingByDeficitAndDaysOfCover() {
+		System.out.println("Running: testRankingByDeficitAndDaysOfCover");
+		RestockQueue queue = new RestockQueue(new QueryExecutor());
+		queue.apply(List.of(
+				new RestockQueue.StockLevel(1, "a", 8, 10, null),
+				new RestockQueue.StockLevel(2, "b", 0, 20, null),
+				new RestockQueue.StockLevel(3, "c", 9, 10, null),
+				new RestockQueue.StockLevel(4, "d", 50, 10, null)));
+		queue.recordSales(Map.of(3L, 300, 1L, 30));
+
+		assertEquals(3, queue.size(), "Products above min_stock should not be queued");
+		assertEquals(List.of(2L, 1L, 3L), ids(queue.top(10, RestockQueue.Ranking.DEFICIT)));
+		assertEquals(List.of(2L, 3L), ids(queue.top(2, RestockQueue.Ranking.DAYS_OF_COVER)),
+				"An empty shelf has no cover left; a fast seller runs out before a slow one");
+	}
+
+	@Test
+	void testUpdateLeavesQueueOnceRestocked() {
+		System.out.println("Running: testUpdateLeavesQueueOnceRestocked");
+		RestockQueue queue = new RestockQueue(new QueryExecutor());
+		queue.apply(List.of(new RestockQueue.StockLevel(1, "a", 2, 10, null)));
+		queue.apply(List.of(new RestockQueue.StockLevel(1, "a", 5, 10, null)));
+		assertEquals(1, queue.size(), "A product must be queued once however often it changes");
+		assertEquals(5, queue.top(1, RestockQueue.Ranking.DEFICIT).get(0).quantity());
+
+		queue.apply(List.of(new RestockQueue.StockLevel(1, "a", 11, 10, null)));
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	void testStockWritesUpdateSharedQueue() {
+		System.out.println("Running: testStockWritesUpdateSharedQueue");
+		ProductServiceImpl productService = new ProductServiceImpl();
+		SaleServiceImpl saleService = new SaleServiceImpl();
+		RestockQueue queue = RestockQueue.shared();
+		Product product = productService.create(new Product("restock_queue_prod", "Restock queue", new BigDecimal("5.00"),
+				12, 10, Category.ELECTRONICS));
+		Sale sale = null;
+		try {
+			assertTrue(find(queue, product.getId()).isEmpty(), "Stock above min_stock should not be queued");
+
+			productService.updateStock(product.getId(), -3);
+			assertEquals(9, find(queue, product.getId()).orElseThrow().quantity(), "updateStock should enqueue");
+
+			sale = saleService.createSaleWithItems(new Sale(new BigDecimal("10.00")),
+					List.of(new SaleItem(product.getId(), 0, 2, new BigDecimal("5.00"))));
+			RestockItem afterSale = find(queue, product.getId()).orElseThrow();
+			assertEquals(7, afterSale.quantity(), "A sale should move the queued stock level");
+			assertTrue(afterSale.dailySales() > 0, "A sale should feed the velocity estimate");
+
+			productService.updateStock(product.getId(), 20);
+			assertTrue(find(queue, product.getId()).isEmpty(), "Restocking should dequeue");
+		} finally {
+			if (sale != null) {
+				saleService.delete(sale.getId());
+			}
+			productService.delete(product.getId());
+		}
+	}
+
+	@Test
+	void testLateSnapshotsDoNotUndoNewerLevels() {
+		System.out.println("Running: testLateSnapshotsDoNotUndoNewerLevels");
+		ProductServiceImpl productService = new ProductServiceImpl();
+		Product low = productService.create(new Product("restock_queue_late_low", "Restock queue", new BigDecimal("5.00"),
+				2, 10, Category.ELECTRONICS));
+		Product restocked = productService.create(new Product("restock_queue_late_restocked", "Restock queue",
+				new BigDecimal("5.00"), 3, 10, Category.ELECTRONICS));
+		RestockQueue queue = new RestockQueue(new QueryExecutor());
+		int[] notified = new int[1];
+		queue.onChange(Runnable::run, () -> notified[0]++);
+		try {
+			OffsetDateTime later = OffsetDateTime.now().plusHours(1);
+			queue.apply(List.of(new RestockQueue.StockLevel(low.getId(), low.getName(), 4, 10, later),
+					new RestockQueue.StockLevel(restocked.getId(), restocked.getName(), 50, 10, later)));
+
+			queue.refresh(List.of(low.getId(), restocked.getId()));
+			assertEquals(4, find(queue, low.getId()).orElseThrow().quantity(),
+					"An older row from a refresh should leave a newer queued level alone");
+
+			notified[0] = 0;
+			queue.reload();
+			assertEquals(4, find(queue, low.getId()).orElseThrow().quantity(),
+					"An older row from a reload should leave a newer queued level alone");
+			assertTrue(find(queue, restocked.getId()).isEmpty(), "A reload should not requeue a newer restock");
+			assertEquals(1, notified[0], "A reload should notify the views");
+
+			productService.delete(low.getId());
+			queue.reload();
+			assertTrue(find(queue, low.getId()).isEmpty(), "A reload should drop products that no longer exist");
+		} finally {
+			productService.delete(restocked.getId());
+			if (productService.read(low.getId()).isPresent()) {
+				productService.delete(low.getId());
+			}
+		}
+	}
+
+	private static Optional<RestockItem> find(RestockQueue queue, long productId) {
+		return queue.top(Integer.MAX_VALUE, RestockQueue.Ranking.DEFICIT).stream()
+				.filter(item -> item.productId() == productId)
+				.findFirst();
+	}
+
+	private static List<Long> ids(List<RestockItem> items) {
+		return items.stream().map(RestockItem::productId).toList();
+	}
+}
@@ -0,0 +1,39 @@
+package com.stockapp.services.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stockapp.services.impl.RollupBuckets.Grain;
+import com.stockapp.services.impl.RollupBuckets.Span;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RollupBucketsTest {
+	private static LocalDateTime at(String text) {
+		return LocalDateTime.parse(text);
+	}
+
+	@Test
+	void testLongRangeUsesMonthsInTheMiddle() {
+		System.out.println("Running: testLongRangeUsesMonthsInTheMiddle");
+
+		List<Span> spans = RollupBuckets.cover(at("2023-01-30T22:15"), at("2024-03-02T01:00"));
+		assertEquals(List.of(
+				new Span(Grain.MONTH, at("2023-02-01T00:00"), at("2024-03-01T00:00")),
+				new Span(Grain.DAY, at("2023-01-31T00:00"), at("2023-02-01T00:00")),
+				new Span(Grain.HOUR, at("2023-01-30T22:00"), at("2023-01-31T00:00")),
+				new Span(Grain.DAY, at("2024-03-01T00:00"), at("2024-03-02T00:00")),
+				new Span(Grain.HOUR, at("2024-03-02T00:00"), at("2024-03-02T01:00"))), spans);
+	}
+
+	@Test
+	void testShortRangesStayFine() {
+		System.out.println("Running: testShortRangesStayFine");
+
+		assertEquals(List.of(new Span(Grain.HOUR, at("2024-05-10T09:00"), at("2024-05-10T12:00"))),
+				RollupBuckets.cover(at("2024-05-10T09:30"), at("2024-05-10T11:05")));
+		assertEquals(List.of(new Span(Grain.DAY, at("2024-05-10T00:00"), at("2024-05-12T00:00"))),
+				RollupBuckets.cover(at("2024-05-10T00:00"), at("2024-05-12T00:00")));
+		assertTrue(RollupBuckets.cover(at("2024-05-10T09:00"), at("2024-05-10T09:00")).isEmpty());
+	}
+}
@@ -8,6 +8,7 @@ import com.stockapp.models.enums.Category;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -154,4 +155,29 @@ class SaleItemServiceImplTest {
 		boolean found = items.stream().anyMatch(i -> i.getId() == sharedSaleItem.getId());
 		assertTrue(found, "List should contain our shared item");
 	}
+
+	@Test
+	void testFindBySale_MatchesFindBySaleId() {
+		System.out.println("Running: testFindBySale_MatchesFindBySaleId");
+
+		List<SaleItem> items = assertDoesNotThrow(() -> {
+			return saleItemService.findBySale(sharedSale);
+		}, "Critical Failure : findBySale threw an unexpected exception");
+
+		assertEquals(saleItemService.findBySaleId(sharedSale.getId()).stream().map(SaleItem::getId).sorted().toList(),
+				items.stream().map(SaleItem::getId).sorted().toList());
+	}
+
+	@Test
+	void testStreamAll_ContainsSharedItem() {
+		System.out.println("Running: testStreamAll_ContainsSharedItem");
+
+		boolean found = assertDoesNotThrow(() -> {
+			try (Stream<SaleItem> items = saleItemService.streamAll()) {
+				return items.anyMatch(i -> i.getId() == sharedSaleItem.getId());
+			}
+		}, "Critical Failure : streamAll threw an unexpected exception");
+
+		assertTrue(found, "Stream should contain our shared item");
+	}
 }
@@ -2,17 +2,36 @@ package com.stockapp.services.impl;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.stockapp.models.dto.SalesBreakdown;
+import com.stockapp.models.dto.SalesStats;
 import com.stockapp.models.entities.Product;
 import com.stockapp.models.entities.Sale;
 import com.stockapp.models.entities.SaleItem;
 import com.stockapp.models.enums.Category;
+import com.stockapp.models.enums.SalesGrouping;
 import com.stockapp.services.interfaces.ProductService;
 import com.stockapp.services.interfaces.SaleItemService;
 import com.stockapp.services.interfaces.SaleService;
+import com.stockapp.utils.DatabaseUtils;
 
 import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -125,6 +144,74 @@ class SaleServiceImplTest {
 		assertTrue(revenue >= 0, "Revenue should be non-negative");
 	}
 
+	@Test
+	void testSalesStats_OneSnapshotForAllFigures() {
+		System.out.println("Running: testSalesStats_OneSnapshotForAllFigures");
+		SaleServiceImpl saleServiceImpl = new SaleServiceImpl();
+		java.time.LocalDate endDate = java.time.LocalDate.now();
+		java.time.LocalDate startDate = endDate.minusDays(30);
+
+		SalesStats stats = saleServiceImpl.salesStats(startDate, endDate);
+		assertSame(stats, saleServiceImpl.salesStats(startDate, endDate), "Repeated reads should hit the cache");
+		assertEquals(stats.salesCount(), saleServiceImpl.totalSales(startDate, endDate));
+		assertEquals(stats.itemsSold(), saleServiceImpl.totalItemsSold(startDate, endDate));
+		if (stats.salesCount() > 0) {
+			BigDecimal expected = stats.revenue().divide(BigDecimal.valueOf(stats.salesCount()), 2,
+					java.math.RoundingMode.HALF_UP);
+			assertEquals(0, expected.compareTo(stats.averageSaleValue()));
+		}
+	}
+
+	@Test
+	void testSalesStats_FollowNewSales() {
+		System.out.println("Running: testSalesStats_FollowNewSales");
+		SaleServiceImpl saleServiceImpl = new SaleServiceImpl();
+		java.time.LocalDate today = java.time.LocalDate.now();
+
+		SalesStats before = saleServiceImpl.salesStats(today.minusDays(1), today.plusDays(1));
+		Sale sale = saleService.create(new Sale(BigDecimal.TEN));
+		try {
+			SalesStats after = saleServiceImpl.salesStats(today.minusDays(1), today.plusDays(1));
+			assertEquals(before.salesCount() + 1, after.salesCount(), "New sales should show up right away");
+			assertEquals(0, before.revenue().add(BigDecimal.TEN).compareTo(after.revenue()));
+		} finally {
+			saleService.delete(sale.getId());
+		}
+		assertEquals(before, saleServiceImpl.salesStats(today.minusDays(1), today.plusDays(1)),
+				"Deleting the sale should take it back out");
+	}
+
+	@Test
+	void testSalesBreakdown_MatchesSaleItems() throws Exception {
+		System.out.println("Running: testSalesBreakdown_MatchesSaleItems");
+		SaleServiceImpl saleServiceImpl = new SaleServiceImpl();
+		java.time.LocalDateTime from = java.time.LocalDateTime.now().minusYears(2);
+		java.time.LocalDateTime to = java.time.LocalDateTime.now().plusHours(1);
+
+		Map<Long, Long> expected = new HashMap<>();
+		try (Connection c = DatabaseUtils.getConnection();
+				PreparedStatement ps = c.prepareStatement(
+						"SELECT product_id, SUM(quantity) AS units FROM sale_items GROUP BY product_id");
+				java.sql.ResultSet rs = ps.executeQuery()) {
+			while (rs.next()) {
+				expected.put(rs.getLong(1), rs.getLong(2));
+			}
+		}
+		Map<Long, Long> actual = new HashMap<>();
+		for (SalesBreakdown row : saleServiceImpl.salesBreakdown(from, to, SalesGrouping.PRODUCT)) {
+			if (row.itemsSold() != 0) {
+				actual.put(row.productId(), row.itemsSold());
+			}
+		}
+		assertEquals(expected, actual, "Rollups should agree with the sale items they summarize");
+
+		long byCategory = saleServiceImpl.salesBreakdown(from, to, SalesGrouping.CATEGORY).stream()
+				.mapToLong(SalesBreakdown::itemsSold).sum();
+		List<SalesBreakdown> total = saleServiceImpl.salesBreakdown(from, to, SalesGrouping.TOTAL);
+		assertEquals(expected.values().stream().mapToLong(Long::longValue).sum(), byCategory);
+		assertEquals(byCategory, total.isEmpty() ? 0 : total.get(0).itemsSold());
+	}
+
 	@Test
 	void testCreateSaleWithItems_Transaction() {
 		System.out.println("Running: testCreateSaleWithItems_Transaction");
@@ -174,4 +261,170 @@ class SaleServiceImplTest {
 			}
 		}
 	}
+
+	@Test
+	void testCreateSaleWithItems_MultiLineCart() {
+		System.out.println("Running: testCreateSaleWithItems_MultiLineCart");
+
+		Product a = productService.create(new Product("Txn Cart A", "Desc", new BigDecimal("3.00"), 10, 0, Category.TOYS));
+		Product b = productService.create(new Product("Txn Cart B", "Desc", new BigDecimal("7.00"), 10, 0, Category.BOOKS));
+		Sale createdSale = null;
+		try {
+			SaleItem first = new SaleItem(b.getId(), 0, 4, new BigDecimal("7.00"));
+			SaleItem second = new SaleItem(a.getId(), 0, 1, new BigDecimal("3.00"));
+			createdSale = saleService.createSaleWithItems(new Sale(new BigDecimal("31.00")), List.of(first, second));
+
+			for (SaleItem item : List.of(first, second)) {
+				SaleItem stored = saleItemService.read(item.getId()).orElseThrow();
+				assertEquals(item.getProductId(), stored.getProductId(), "Generated IDs must match their own lines");
+				assertEquals(item.getQuantity(), stored.getQuantity());
+				assertEquals(createdSale.getId(), stored.getSaleId());
+			}
+			assertEquals(6, productService.read(b.getId()).orElseThrow().getQuantity());
+			assertEquals(9, productService.read(a.getId()).orElseThrow().getQuantity());
+		} finally {
+			if (createdSale != null) {
+				saleService.delete(createdSale.getId());
+			}
+			productService.delete(a.getId());
+			productService.delete(b.getId());
+		}
+	}
+
+	@Test
+	void testCreateSaleWithItems_RollsBackWhenAnyLineIsShort() {
+		System.out.println("Running: testCreateSaleWithItems_RollsBackWhenAnyLineIsShort");
+
+		Product a = productService.create(new Product("Txn Short A", "Desc", new BigDecimal("3.00"), 10, 0, Category.TOYS));
+		Product b = productService.create(new Product("Txn Short B", "Desc", new BigDecimal("7.00"), 1, 0, Category.BOOKS));
+		try {
+			int salesBefore = saleService.readAll().size();
+			List<SaleItem> cart = List.of(new SaleItem(a.getId(), 0, 2, new BigDecimal("3.00")),
+					new SaleItem(b.getId(), 0, 2, new BigDecimal("7.00")));
+
+			Sale sale = new Sale(new BigDecimal("20.00"));
+			assertThrows(RuntimeException.class, () -> saleService.createSaleWithItems(sale, cart));
+
+			assertEquals(0, sale.getId(), "The check should fail before the header is written");
+
+			assertEquals(10, productService.read(a.getId()).orElseThrow().getQuantity(), "No stock should move");
+			assertEquals(1, productService.read(b.getId()).orElseThrow().getQuantity());
+			assertEquals(salesBefore, saleService.readAll().size(), "No sale header should be left behind");
+		} finally {
+			productService.delete(a.getId());
+			productService.delete(b.getId());
+		}
+	}
+
+	@Test
+	void testCreateSaleWithItems_CrossedCartsDoNotDeadlock() throws Exception {
+		System.out.println("Running: testCreateSaleWithItems_CrossedCartsDoNotDeadlock");
+
+		Product a = productService.create(new Product("Txn Lock A", "Desc", new BigDecimal("1.00"), 100, 0, Category.TOYS));
+		Product b = productService.create(new Product("Txn Lock B", "Desc", new BigDecimal("1.00"), 100, 0, Category.TOYS));
+		List<Long> saleIds = Collections.synchronizedList(new ArrayList<>());
+		long failedBefore = SaleServiceImpl.checkoutStats().failed();
+		ExecutorService pool = Executors.newFixedThreadPool(6);
+		try {
+			List<Future<?>> runs = new ArrayList<>();
+			for (int i = 0; i < 30; i++) {
+				boolean reversed = i % 2 == 0;
+				runs.add(pool.submit(() -> {
+					SaleItem first = new SaleItem(reversed ? b.getId() : a.getId(), 0, 1, BigDecimal.ONE);
+					SaleItem second = new SaleItem(reversed ? a.getId() : b.getId(), 0, 1, BigDecimal.ONE);
+					Sale sale = saleService.createSaleWithItems(new Sale(new BigDecimal("2.00")), List.of(first, second));
+					saleIds.add(sale.getId());
+				}));
+			}
+			for (Future<?> run : runs) {
+				run.get();
+			}
+			assertEquals(70, productService.read(a.getId()).orElseThrow().getQuantity());
+			assertEquals(70, productService.read(b.getId()).orElseThrow().getQuantity());
+			assertEquals(failedBefore, SaleServiceImpl.checkoutStats().failed(), "No checkout should fail");
+			assertTrue(SaleServiceImpl.checkoutStats().maxLockWaitMillis() >= 0);
+		} finally {
+			pool.shutdown();
+			saleIds.forEach(saleService::delete);
+			productService.delete(a.getId());
+			productService.delete(b.getId());
+		}
+	}
+
+	@Test
+	void testSubmitSaleWithItems_DoesNotBlockCaller() throws Exception {
+		System.out.println("Running: testSubmitSaleWithItems_DoesNotBlockCaller");
+
+		Product p = productService.create(new Product("Txn Async", "Desc", new BigDecimal("2.00"), 5, 0, Category.TOYS));
+		Sale created = null;
+		try {
+			SaleItem item = new SaleItem(p.getId(), 0, 2, new BigDecimal("2.00"));
+			CompletableFuture<Sale> pending;
+			try (Connection blocker = DatabaseUtils.getConnection()) {
+				blocker.setAutoCommit(false);
+				try (PreparedStatement ps = blocker.prepareStatement("SELECT id FROM products WHERE id = ? FOR UPDATE")) {
+					ps.setLong(1, p.getId());
+					ps.executeQuery().close();
+				}
+				pending = saleService.submitSaleWithItems(new Sale(new BigDecimal("4.00")), List.of(item));
+				Thread.sleep(200);
+				assertFalse(pending.isDone(), "The caller should get control back while checkout waits on locks");
+				blocker.commit();
+			}
+			created = pending.get(10, TimeUnit.SECONDS);
+
+			assertTrue(item.getId() > 0, "Generated IDs should still reach the submitted items");
+			assertEquals(3, productService.read(p.getId()).orElseThrow().getQuantity());
+		} finally {
+			if (created != null) {
+				saleService.delete(created.getId());
+			}
+			productService.delete(p.getId());
+		}
+	}
+
+	@Test
+	void testApplyJournaledSales_IsIdempotentAndRejectsShortSales() {
+		System.out.println("Running: testApplyJournaledSales_IsIdempotentAndRejectsShortSales");
+
+		Product p = productService.create(new Product("Txn Journal", "Desc", new BigDecimal("2.00"), 3, 0, Category.TOYS));
+		SaleServiceImpl impl = new SaleServiceImpl();
+		try {
+			JournaledSale ok = JournaledSale.decode(new JournaledSale(UUID.randomUUID(), OffsetDateTime.now(ZoneOffset.UTC),
+					new BigDecimal("4.00"), List.of(new SaleItem(p.getId(), 0, 2, new BigDecimal("2.00")))).encode());
+			JournaledSale oversold = new JournaledSale(UUID.randomUUID(), OffsetDateTime.now(ZoneOffset.UTC),
+					new BigDecimal("4.00"), List.of(new SaleItem(p.getId(), 0, 2, new BigDecimal("2.00"))));
+
+			Map<JournaledSale, String> rejected = impl.applyJournaledSales(List.of(ok, oversold));
+			assertEquals(Set.of(oversold), rejected.keySet(), "Only the sale that no longer fits should be rejected");
+			assertTrue(impl.applyJournaledSales(List.of(ok)).isEmpty());
+
+			assertEquals(1, productService.read(p.getId()).orElseThrow().getQuantity(),
+					"Replaying a journaled sale must not move stock twice");
+			assertEquals(1, saleItemService.readAll().stream().filter(i -> i.getProductId() == p.getId()).count());
+		} finally {
+			saleItemService.readAll().stream()
+					.filter(i -> i.getProductId() == p.getId())
+					.forEach(i -> saleService.delete(i.getSaleId()));
+			productService.delete(p.getId());
+		}
+	}
+
+	@Test
+	void testJournalRejected_ReachesSubscribersUntilClosed() {
+		System.out.println("Running: testJournalRejected_ReachesSubscribersUntilClosed");
+
+		JournaledSale journaled = new JournaledSale(UUID.randomUUID(), OffsetDateTime.now(ZoneOffset.UTC),
+				new BigDecimal("4.00"), List.of(new SaleItem(1, 0, 2, new BigDecimal("2.00"))));
+		List<SaleServiceImpl.RejectedSale> seen = new ArrayList<>();
+		var subscription = SaleServiceImpl.onJournalRejected(Runnable::run, seen::addAll);
+
+		SaleServiceImpl.journalRejected(Map.of(journaled, "Not enough stock"));
+		subscription.close();
+		SaleServiceImpl.journalRejected(Map.of(journaled, "Not enough stock"));
+
+		assertEquals(1, seen.size(), "Only rejections before close should be delivered");
+		assertEquals(journaled.journalId(), seen.get(0).journalId());
+		assertEquals("Not enough stock", seen.get(0).reason());
+	}
 }
@@ -0,0 +1,80 @@
+package com.stockapp.services.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+import com.stockapp.models.dto.SalesStats;
+import com.stockapp.models.entities.Product;
+import com.stockapp.models.enums.Category;
+import com.stockapp.utils.QueryExecutor;
+import com.stockapp.utils.RowMapper;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+
+class SalesPartitionsTest {
+	private final QueryExecutor db = new QueryExecutor();
+
+	@Test
+	void testCreateAhead_CreatesMissingMonthsOnce() throws Exception {
+		System.out.println("Running: testCreateAhead_CreatesMissingMonthsOnce");
+		SalesPartitions partitions = new SalesPartitions(db, 2, 0, false);
+
+		partitions.createAhead();
+
+		assertEquals(0, partitions.createAhead(), "Months that already have partitions should be left alone");
+		boolean exists = db.queryOne("""
+				SELECT to_regclass('sale_items_' || to_char((now() + interval '2 months') AT TIME ZONE store_zone(),
+				    '"y"YYYY"m"MM')) IS NOT NULL AS present
+				""", RowMapper.of((rs, col) -> rs.getBoolean(col[0]), "present")).orElseThrow();
+		assertTrue(exists, "The month two ahead should have a sale_items partition");
+	}
+
+	@Test
+	void testDetachBefore_RemovesOldMonthsButKeepsRollups() throws Exception {
+		System.out.println("Running: testDetachBefore_RemovesOldMonthsButKeepsRollups");
+		SaleServiceImpl saleService = new SaleServiceImpl();
+		ProductServiceImpl productService = new ProductServiceImpl();
+		Product product = productService.create(new Product("JUnit Partition Product", "Desc",
+				new BigDecimal("2.50"), 10, 1, Category.BOOKS));
+		LocalDate day = LocalDate.of(2001, 1, 15);
+		try {
+			db.queryOne("SELECT create_sales_partitions(?, ?) AS created", RowMapper.intColumn("created"),
+					day.atStartOfDay().atOffset(ZoneOffset.UTC), day.atStartOfDay().atOffset(ZoneOffset.UTC));
+			SaleServiceImpl.salesChanged();
+			SalesStats before = saleService.salesStats(day, day);
+			db.update("""
+					WITH sale AS (
+					    INSERT INTO sales (total_price, created_at) VALUES (5.00, '2001-01-15 12:00:00+00')
+					    RETURNING id, created_at
+					)
+					INSERT INTO sale_items (sale_id, sale_created_at, product_id, quantity, unit_price)
+					SELECT id, created_at, ?, 2, 2.50 FROM sale
+					""", product.getId());
+			SaleServiceImpl.salesChanged();
+			assertEquals(1, saleService.readBetween(day, day).size());
+			assertEquals(before.salesCount() + 1, saleService.salesStats(day, day).salesCount());
+
+			SalesPartitions partitions = new SalesPartitions(db, 0, 0, false);
+			assertEquals(1, partitions.detachBefore(OffsetDateTime.of(2001, 2, 1, 0, 0, 0, 0, ZoneOffset.UTC)),
+					"A month with sale lines should detach");
+
+			SaleServiceImpl.salesChanged();
+			assertTrue(saleService.readBetween(day, day).isEmpty(), "The detached month should no longer be read");
+			SalesStats after = saleService.salesStats(day, day);
+			assertEquals(before.salesCount() + 1, after.salesCount(),
+					"Rollups should still count sales from detached months");
+			assertEquals(before.itemsSold() + 2, after.itemsSold());
+			assertEquals(1L, db.queryOne("SELECT COUNT(*) AS lines FROM sale_items_y2001m01",
+					RowMapper.longColumn("lines")).orElseThrow(), "Detached lines should be kept when not dropping");
+			assertEquals(0L, db.queryOne("""
+					SELECT COUNT(*) AS fks FROM pg_constraint
+					WHERE conrelid = 'sale_items_y2001m01'::regclass AND confrelid = 'sales'::regclass
+					""", RowMapper.longColumn("fks")).orElseThrow(),
+					"Detached lines should no longer reference the sales table");
+		} finally {
+			db.execute("DROP TABLE IF EXISTS sale_items_y2001m01, sales_y2001m01");
+			productService.delete(product.getId());
+		}
+	}
+}
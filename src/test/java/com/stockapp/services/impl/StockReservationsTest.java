@@ -0,0 +1,52 @@
+package com.stockapp.services.impl;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.function.LongFunction;
+import org.junit.jupiter.api.Test;
+
+class StockReservationsTest {
+	private final StockReservations reservations = new StockReservations();
+	private final LongFunction<OptionalInt> fiveOfProductOne = id -> id == 1 ? OptionalInt.of(5) : OptionalInt.empty();
+
+	@Test
+	void testReserveCountsWhatEarlierSalesHold() {
+		System.out.println("Running: testReserveCountsWhatEarlierSalesHold");
+		UUID first = UUID.randomUUID();
+		reservations.reserve(first, Map.of(1L, 3), fiveOfProductOne);
+
+		IllegalStateException e = assertThrows(IllegalStateException.class,
+				() -> reservations.reserve(UUID.randomUUID(), Map.of(1L, 3), fiveOfProductOne));
+		assertTrue(e.getMessage().contains("[1]"), "The short product should be named");
+		assertEquals(3, reservations.held(1), "A refused sale should hold nothing");
+
+		reservations.reserve(UUID.randomUUID(), Map.of(1L, 2), fiveOfProductOne);
+		assertEquals(5, reservations.held(1));
+	}
+
+	@Test
+	void testUnknownProductsAreRefused() {
+		System.out.println("Running: testUnknownProductsAreRefused");
+		assertThrows(IllegalStateException.class,
+				() -> reservations.reserve(UUID.randomUUID(), Map.of(1L, 1, 2L, 1), fiveOfProductOne));
+		assertEquals(0, reservations.held(1), "Nothing should be held when any line is refused");
+	}
+
+	@Test
+	void testReleaseFreesOnlyWhatWasReserved() {
+		System.out.println("Running: testReleaseFreesOnlyWhatWasReserved");
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		reservations.reserve(first, Map.of(1L, 2), fiveOfProductOne);
+		reservations.reserve(second, Map.of(1L, 1), fiveOfProductOne);
+
+		reservations.release(List.of(first, UUID.randomUUID()));
+		assertEquals(1, reservations.held(1), "An id never reserved here should not free anything");
+		reservations.release(List.of(first, second));
+		assertEquals(0, reservations.held(1), "Releasing twice should not go below zero");
+	}
+}
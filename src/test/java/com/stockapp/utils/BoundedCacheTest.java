@@ -0,0 +1,106 @@
+package com.stockapp.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class BoundedCacheTest {
+	private final AtomicLong now = new AtomicLong();
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private Optional<String> load(Integer key) {
+		loads.incrementAndGet();
+		return key < 0 ? Optional.empty() : Optional.of("v" + key);
+	}
+
+	private BoundedCache<Integer, String> cache(int maxEntries, long maxBytes) {
+		return new BoundedCache<>(maxEntries, maxBytes, Duration.ofSeconds(10), String::length, now::get);
+	}
+
+	@Test
+	void testHitsAreServedWithoutLoading() {
+		System.out.println("Running: testHitsAreServedWithoutLoading");
+
+		BoundedCache<Integer, String> cache = cache(10, 1000);
+		assertEquals("v1", cache.get(1, this::load).orElseThrow());
+		assertEquals("v1", cache.get(1, this::load).orElseThrow());
+		assertTrue(cache.get(-1, this::load).isEmpty());
+		assertTrue(cache.get(-1, this::load).isEmpty());
+
+		assertEquals(3, loads.get(), "Missing keys are not cached");
+		assertEquals(1, cache.stats().hits());
+		assertEquals(0.25, cache.stats().hitRatio());
+	}
+
+	@Test
+	void testEntriesExpireAfterTtl() {
+		System.out.println("Running: testEntriesExpireAfterTtl");
+
+		BoundedCache<Integer, String> cache = cache(10, 1000);
+		cache.get(1, this::load);
+		now.addAndGet(Duration.ofSeconds(11).toNanos());
+		cache.get(1, this::load);
+
+		assertEquals(2, loads.get());
+		assertEquals(1, cache.stats().expirations());
+	}
+
+	@Test
+	void testFrequentKeysSurviveAScan() {
+		System.out.println("Running: testFrequentKeysSurviveAScan");
+
+		BoundedCache<Integer, String> cache = cache(3, 1000);
+		for (int i = 0; i < 5; i++) {
+			List.of(1, 2, 3).forEach(k -> cache.get(k, this::load));
+		}
+		for (int k = 100; k < 200; k++) {
+			cache.get(k, this::load);
+		}
+		loads.set(0);
+		List.of(1, 2, 3).forEach(k -> cache.get(k, this::load));
+
+		assertEquals(0, loads.get(), "One-off keys should not displace the hot set");
+		assertEquals(3, cache.stats().size());
+		assertTrue(cache.stats().rejections() >= 100);
+	}
+
+	@Test
+	void testByteBoundEvictsColderEntries() {
+		System.out.println("Running: testByteBoundEvictsColderEntries");
+
+		BoundedCache<Integer, String> cache = cache(100, 6);
+		cache.get(1, this::load);
+		cache.get(2, this::load);
+		cache.get(3, this::load);
+		cache.get(4, this::load);
+		cache.get(4, this::load);
+
+		assertTrue(cache.stats().weightBytes() <= 6);
+		assertEquals(1, cache.stats().evictions());
+		loads.set(0);
+		cache.get(4, this::load);
+		assertEquals(0, loads.get());
+	}
+
+	@Test
+	void testInvalidationDropsEntryAndRacingLoad() {
+		System.out.println("Running: testInvalidationDropsEntryAndRacingLoad");
+
+		BoundedCache<Integer, String> cache = cache(10, 1000);
+		cache.get(1, this::load);
+		cache.invalidate(1);
+		cache.get(2, key -> {
+			cache.invalidate(2);
+			return Optional.of("stale");
+		});
+		loads.set(0);
+		cache.get(1, this::load);
+		assertEquals("v2", cache.get(2, this::load).orElseThrow(), "A load that raced a write must not be cached");
+		assertEquals(2, loads.get());
+	}
+}
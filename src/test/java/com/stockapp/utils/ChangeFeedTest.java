@@ -0,0 +1,83 @@
+package com.stockapp.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.stockapp.models.dto.ChangeEvent;
+import com.stockapp.models.entities.Product;
+import com.stockapp.models.enums.Category;
+import com.stockapp.services.impl.ProductServiceImpl;
+import java.math.BigDecimal;
+import java.sql.DriverManager;
+import java.util.EnumSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ChangeFeedTest {
+	private ChangeFeed feed;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		DatabaseConfig config = DatabaseUtils.config();
+		feed = new ChangeFeed(() -> DriverManager.getConnection(config.url(), config.driverProperties()));
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!feed.isConnected() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertTrue(feed.isConnected(), "Listener connection should come up");
+	}
+
+	@AfterEach
+	void tearDown() {
+		feed.close();
+	}
+
+	private static ChangeEvent next(BlockingQueue<ChangeEvent> events, long id) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (System.nanoTime() < deadline) {
+			ChangeEvent event = events.poll(100, TimeUnit.MILLISECONDS);
+			if (event != null && event.id() == id) {
+				return event;
+			}
+		}
+		return fail("No change event for id " + id);
+	}
+
+	@Test
+	void testParsesTriggerPayloads() {
+		System.out.println("Running: testParsesTriggerPayloads");
+
+		assertEquals(new ChangeEvent(ChangeEvent.Table.PRODUCTS, ChangeEvent.Operation.UPDATE, 42),
+				ChangeEvent.parse("products:U:42"));
+		assertEquals(ChangeEvent.Operation.DELETE, ChangeEvent.parse("users:D:7").operation());
+		assertThrows(IllegalArgumentException.class, () -> ChangeEvent.parse("products:X:1"));
+		assertThrows(IllegalArgumentException.class, () -> ChangeEvent.parse("garbage"));
+	}
+
+	@Test
+	void testProductWritesArePushedToSubscribers() throws Exception {
+		System.out.println("Running: testProductWritesArePushedToSubscribers");
+
+		BlockingQueue<ChangeEvent> products = new LinkedBlockingQueue<>();
+		BlockingQueue<ChangeEvent> users = new LinkedBlockingQueue<>();
+		feed.listen(EnumSet.of(ChangeEvent.Table.PRODUCTS), Runnable::run, products::addAll);
+		ChangeFeed.Subscription usersOnly = feed.listen(EnumSet.of(ChangeEvent.Table.USERS), Runnable::run,
+				users::addAll);
+
+		ProductServiceImpl service = new ProductServiceImpl();
+		Product p = service.create(new Product("Feed Product", "Desc", new BigDecimal("1.00"), 3, 0, Category.TOYS));
+		assertEquals(ChangeEvent.Operation.INSERT, next(products, p.getId()).operation());
+
+		service.updateStock(p.getId(), 2);
+		assertEquals(ChangeEvent.Operation.UPDATE, next(products, p.getId()).operation());
+
+		service.delete(p.getId());
+		assertEquals(ChangeEvent.Operation.DELETE, next(products, p.getId()).operation());
+
+		usersOnly.close();
+		assertTrue(users.isEmpty(), "Subscribers only receive the tables they asked for");
+	}
+}
@@ -0,0 +1,148 @@
+package com.stockapp.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Properties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConnectionPoolTest {
+	private static final String URL = "jdbc:postgresql://localhost:5432/stockdb";
+
+	private ConnectionPool pool;
+
+	@BeforeEach
+	void setUp() {
+		Properties props = new Properties();
+		props.setProperty("user", "user");
+		props.setProperty("password", "user1");
+		ConnectionPool.Settings settings = new ConnectionPool.Settings(2,
+				0,
+				Duration.ofMillis(300),
+				Duration.ofSeconds(1),
+				Duration.ofMinutes(1),
+				Duration.ofMinutes(5),
+				Duration.ZERO,
+				Duration.ofMinutes(1),
+				4,
+				1);
+		pool = new ConnectionPool(URL, props, settings);
+	}
+
+	@AfterEach
+	void tearDown() {
+		pool.close();
+	}
+
+	private static int backendPid(Connection c) throws SQLException {
+		try (Statement s = c.createStatement(); ResultSet rs = s.executeQuery("SELECT pg_backend_pid()")) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+
+	@Test
+	void testReturnedConnectionIsReused() throws SQLException {
+		System.out.println("Running: testReturnedConnectionIsReused");
+
+		int firstPid;
+		try (Connection c = pool.getConnection()) {
+			firstPid = backendPid(c);
+		}
+		try (Connection c = pool.getConnection()) {
+			assertEquals(firstPid, backendPid(c), "Second borrow should reuse the same physical connection");
+		}
+		assertEquals(1, pool.stats().total(), "Only one physical connection should have been opened");
+	}
+
+	@Test
+	void testClosedHandleCannotBeUsed() throws SQLException {
+		System.out.println("Running: testClosedHandleCannotBeUsed");
+
+		Connection c = pool.getConnection();
+		c.close();
+		assertTrue(c.isClosed(), "Handle should report closed after close()");
+		assertThrows(SQLException.class, c::createStatement, "A returned handle must not be usable");
+	}
+
+	@Test
+	void testPoolIsBounded() throws SQLException {
+		System.out.println("Running: testPoolIsBounded");
+
+		try (Connection a = pool.getConnection(); Connection b = pool.getConnection()) {
+			assertEquals(2, pool.stats().active());
+			assertThrows(SQLTransientConnectionException.class, pool::getConnection,
+					"Borrowing beyond maxSize should time out");
+		}
+		assertEquals(1, pool.stats().timeouts());
+		assertEquals(0, pool.stats().active());
+		assertEquals(2, pool.stats().idle());
+	}
+
+	@Test
+	void testTransactionStateIsResetOnReturn() throws SQLException {
+		System.out.println("Running: testTransactionStateIsResetOnReturn");
+
+		try (Connection c = pool.getConnection()) {
+			c.setAutoCommit(false);
+			c.setReadOnly(true);
+		}
+		try (Connection c = pool.getConnection()) {
+			assertTrue(c.getAutoCommit(), "autoCommit should be restored when a connection is returned");
+			assertFalse(c.isReadOnly(), "readOnly should be restored when a connection is returned");
+		}
+	}
+
+	@Test
+	void testPreparedStatementsAreCachedPerConnection() throws SQLException {
+		System.out.println("Running: testPreparedStatementsAreCachedPerConnection");
+
+		String sql = "SELECT ?::int + 1";
+		for (int i = 0; i < 3; i++) {
+			try (Connection c = pool.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
+				ps.setInt(1, i);
+				try (ResultSet rs = ps.executeQuery()) {
+					assertTrue(rs.next());
+					assertEquals(i + 1, rs.getInt(1));
+				}
+				assertSame(c, ps.getConnection(), "Cached statements should report the pooled handle");
+			}
+		}
+		ConnectionPool.Stats stats = pool.stats();
+		assertEquals(1, stats.statementCacheMisses(), "Only the first prepare should reach the driver");
+		assertEquals(2, stats.statementCacheHits());
+	}
+
+	@Test
+	void testClosedCachedStatementCannotBeUsed() throws SQLException {
+		System.out.println("Running: testClosedCachedStatementCannotBeUsed");
+
+		try (Connection c = pool.getConnection()) {
+			PreparedStatement ps = c.prepareStatement("SELECT 1");
+			ps.close();
+			assertTrue(ps.isClosed());
+			assertThrows(SQLException.class, ps::executeQuery, "A checked-in statement must not be usable");
+		}
+	}
+
+	@Test
+	void testStatsRecordBorrows() throws SQLException {
+		System.out.println("Running: testStatsRecordBorrows");
+
+		for (int i = 0; i < 5; i++) {
+			try (Connection c = pool.getConnection()) {
+				assertTrue(c.isValid(1));
+			}
+		}
+		ConnectionPool.Stats stats = pool.stats();
+		assertEquals(5, stats.borrows());
+		assertTrue(stats.p99BorrowMillis() >= 0);
+	}
+}
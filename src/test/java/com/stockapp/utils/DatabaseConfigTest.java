@@ -0,0 +1,79 @@
+package com.stockapp.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DatabaseConfigTest {
+	@TempDir
+	Path tempDir;
+
+	@Test
+	void testBaseDefaults() {
+		System.out.println("Running: testBaseDefaults");
+
+		DatabaseConfig config = DatabaseConfig.load(new Properties(), Map.of());
+
+		assertEquals("default", config.profile());
+		assertEquals("jdbc:postgresql://localhost:5432/stockdb", config.url());
+		assertEquals(10, config.poolSettings().maxSize());
+		assertEquals("true", config.driverProperties().getProperty("reWriteBatchedInserts"));
+		assertNull(config.driverProperties().getProperty("options"), "No statement timeout by default");
+	}
+
+	@Test
+	void testProfileOverridesBase() {
+		System.out.println("Running: testProfileOverridesBase");
+
+		Properties system = new Properties();
+		system.setProperty(DatabaseConfig.PROFILE_PROPERTY, "cashier-terminal");
+		DatabaseConfig config = DatabaseConfig.load(system, Map.of());
+
+		assertEquals("cashier-terminal", config.profile());
+		assertEquals(4, config.poolSettings().maxSize());
+		assertEquals("-c statement_timeout=5000", config.driverProperties().getProperty("options"));
+		assertEquals("stockdb", config.getString("db.name"), "Keys missing from the profile keep their base value");
+	}
+
+	@Test
+	void testUnknownProfileIsRejected() {
+		System.out.println("Running: testUnknownProfileIsRejected");
+
+		assertThrows(IllegalStateException.class,
+				() -> DatabaseConfig.load(new Properties(), Map.of("STOCKAPP_PROFILE", "does-not-exist")));
+	}
+
+	@Test
+	void testSystemPropertyBeatsEnvironmentBeatsFile() throws IOException {
+		System.out.println("Running: testSystemPropertyBeatsEnvironmentBeatsFile");
+
+		Path file = tempDir.resolve("local.properties");
+		Files.writeString(file, "db.host=file-host\npool.maxSize=3\npool.minIdle=1\n");
+		Properties system = new Properties();
+		system.setProperty(DatabaseConfig.CONFIG_FILE_PROPERTY, file.toString());
+		system.setProperty("stockapp.pool.maxSize", "7");
+		Map<String, String> env = Map.of("STOCKAPP_POOL_MAX_SIZE", "5", "STOCKAPP_DB_PORT", "6543");
+
+		DatabaseConfig config = DatabaseConfig.load(system, env);
+
+		assertEquals(7, config.poolSettings().maxSize(), "System properties have the highest precedence");
+		assertEquals(1, config.poolSettings().minIdle(), "The override file beats the base file");
+		assertEquals("jdbc:postgresql://file-host:6543/stockdb", config.url());
+	}
+
+	@Test
+	void testEnvironmentNames() {
+		System.out.println("Running: testEnvironmentNames");
+
+		assertEquals("STOCKAPP_POOL_MAX_SIZE", DatabaseConfig.toEnvName("pool.maxSize"));
+		assertEquals("STOCKAPP_DB_HOST", DatabaseConfig.toEnvName("db.host"));
+		assertEquals(Duration.ofSeconds(5), DatabaseConfig.load(new Properties(), Map.of())
+				.getDuration("pool.connectionTimeoutMs"));
+	}
+}
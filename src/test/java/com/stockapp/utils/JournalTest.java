@@ -0,0 +1,98 @@
+package com.stockapp.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JournalTest {
+	private static final Duration WAIT = Duration.ofSeconds(2);
+
+	@TempDir
+	Path dir;
+
+	private static List<String> payloads(List<Journal.Entry> entries) {
+		return entries.stream().map(Journal.Entry::payload).toList();
+	}
+
+	@Test
+	void testAppendsAreGroupCommittedAndPolledInOrder() throws Exception {
+		System.out.println("Running: testAppendsAreGroupCommittedAndPolledInOrder");
+
+		try (Journal journal = new Journal(dir.resolve("sales.journal"), 1000, WAIT)) {
+			List<CompletableFuture<Void>> acks = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				acks.add(journal.append("sale-" + i));
+			}
+			CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+			Journal.Stats stats = journal.stats();
+			assertEquals(200, stats.appended());
+			assertEquals(200, stats.pending());
+			assertTrue(stats.fsyncs() < 200, "Concurrent appends should share an fsync");
+
+			List<Journal.Entry> batch = journal.poll(500, WAIT);
+			assertEquals("sale-0", batch.get(0).payload());
+			assertEquals("sale-199", batch.get(batch.size() - 1).payload());
+			journal.markDrained(batch);
+			assertEquals(0, journal.stats().pending());
+			assertEquals(0, journal.stats().drainLagMillis());
+		}
+	}
+
+	@Test
+	void testRecoveryReplaysOnlyUndrainedEntries() throws Exception {
+		System.out.println("Running: testRecoveryReplaysOnlyUndrainedEntries");
+
+		Path file = dir.resolve("sales.journal");
+		try (Journal journal = new Journal(file, 100, WAIT)) {
+			journal.append("a").join();
+			journal.append("b").join();
+			journal.markDrained(journal.poll(1, WAIT));
+			journal.append("c").join();
+		}
+		try (Journal reopened = new Journal(file, 100, WAIT)) {
+			assertEquals(List.of("b", "c"), payloads(reopened.poll(10, WAIT)));
+			assertEquals(2, reopened.stats().pending());
+		}
+	}
+
+	@Test
+	void testTornTailIsDiscardedOnRecovery() throws Exception {
+		System.out.println("Running: testTornTailIsDiscardedOnRecovery");
+
+		Path file = dir.resolve("sales.journal");
+		try (Journal journal = new Journal(file, 100, WAIT)) {
+			journal.append("complete").join();
+		}
+		Files.writeString(file, "1234abcd 17 half-writ", StandardOpenOption.APPEND);
+		try (Journal reopened = new Journal(file, 100, WAIT)) {
+			assertEquals(List.of("complete"), payloads(reopened.poll(10, WAIT)));
+			reopened.append("next").join();
+			assertEquals(List.of("next"), payloads(reopened.poll(10, WAIT)));
+		}
+	}
+
+	@Test
+	void testFullBacklogRejectsAppends() throws Exception {
+		System.out.println("Running: testFullBacklogRejectsAppends");
+
+		try (Journal journal = new Journal(dir.resolve("sales.journal"), 2, Duration.ofMillis(50))) {
+			journal.append("a").join();
+			journal.append("b").join();
+			assertThrows(IllegalStateException.class, () -> journal.append("c"));
+
+			journal.markDrained(journal.poll(1, WAIT));
+			journal.append("c").get(5, TimeUnit.SECONDS);
+			assertEquals(2, journal.stats().pending());
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package com.stockapp.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ListReconcilerTest {
+	private record Row(int id, int version) {
+	}
+
+	private final List<String> edits = new ArrayList<>();
+
+	private List<Row> reconcile(List<Row> current, List<Row> fresh) {
+		List<Row> target = new ArrayList<>(current);
+		ListReconciler.reconcile(target, fresh, Row::id, Row::version, new ListReconciler.Edits<>() {
+			@Override
+			public void remove(int index) {
+				edits.add("-" + target.remove(index).id());
+			}
+
+			@Override
+			public void insert(int index, Row item) {
+				target.add(index, item);
+				edits.add("+" + item.id());
+			}
+
+			@Override
+			public void replace(int index, Row item) {
+				target.set(index, item);
+				edits.add("~" + item.id());
+			}
+		});
+		return target;
+	}
+
+	private static List<Row> rows(int... ids) {
+		List<Row> rows = new ArrayList<>();
+		for (int id : ids) {
+			rows.add(new Row(id, 0));
+		}
+		return rows;
+	}
+
+	@Test
+	void testOnlyChangedVersionsAreReplaced() {
+		System.out.println("Running: testOnlyChangedVersionsAreReplaced");
+
+		List<Row> fresh = rows(1, 2, 3, 4);
+		fresh.set(2, new Row(3, 1));
+		assertEquals(fresh, reconcile(rows(1, 2, 3, 4), fresh));
+		assertEquals(List.of("~3"), edits);
+	}
+
+	@Test
+	void testInsertsAndRemovalsLeaveOtherRowsAlone() {
+		System.out.println("Running: testInsertsAndRemovalsLeaveOtherRowsAlone");
+
+		assertEquals(rows(1, 5, 3, 4), reconcile(rows(1, 2, 3, 4), rows(1, 5, 3, 4)));
+		assertEquals(List.of("-2", "+5"), edits);
+	}
+
+	@Test
+	void testMovedRowIsTheOnlyOneReinserted() {
+		System.out.println("Running: testMovedRowIsTheOnlyOneReinserted");
+
+		assertEquals(rows(2, 3, 4, 1), reconcile(rows(1, 2, 3, 4), rows(2, 3, 4, 1)));
+		assertEquals(List.of("-1", "+1"), edits);
+	}
+
+	@Test
+	void testRandomSnapshotsAlwaysConverge() {
+		System.out.println("Running: testRandomSnapshotsAlwaysConverge");
+
+		Random random = new Random(42);
+		for (int round = 0; round < 200; round++) {
+			List<Row> current = new ArrayList<>();
+			List<Row> fresh = new ArrayList<>();
+			for (int id = 0; id < 30; id++) {
+				if (random.nextInt(4) > 0) {
+					current.add(new Row(id, 0));
+				}
+				if (random.nextInt(4) > 0) {
+					fresh.add(new Row(id, random.nextInt(3) == 0 ? 1 : 0));
+				}
+			}
+			Collections.shuffle(current, random);
+			Collections.shuffle(fresh, random);
+			assertEquals(fresh, reconcile(current, fresh));
+		}
+	}
+}
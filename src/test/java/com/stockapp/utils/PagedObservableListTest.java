@@ -0,0 +1,208 @@
+package com.stockapp.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.stream.IntStream;
+import javafx.collections.ListChangeListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PagedObservableListTest {
+	private final Queue<Runnable> pending = new ArrayDeque<>();
+	private final List<Integer> source = new ArrayList<>(IntStream.rangeClosed(1, 25).boxed().toList());
+	private int loads;
+	private PagedObservableList.PageLoader<Integer> loader;
+	private PagedObservableList<Integer> list;
+
+	@BeforeEach
+	void setUp() {
+		list = new PagedObservableList<>(10, pending::add);
+		loader = (after, limit) -> {
+			loads++;
+			return source.stream().filter(v -> after == null || v > after).limit(limit).toList();
+		};
+		show(list, loader);
+		runPending();
+	}
+
+	private void runPending() {
+		while (!pending.isEmpty()) {
+			pending.poll().run();
+		}
+	}
+
+	// The way the dashboards drive the list: rows are read on the background queue and applied after.
+	private <T> void show(PagedObservableList<T> target, PagedObservableList.PageLoader<T> pageLoader) {
+		pending.add(() -> target.applySnapshot(pageLoader, pageLoader.load(null, target.pageSize()),
+				target.pageSize()));
+	}
+
+	private <T> void refresh(PagedObservableList<T> target, PagedObservableList.PageLoader<T> pageLoader) {
+		PagedObservableList.Window<T> window = target.refreshWindow();
+		pending.add(() -> target.applyWindow(pageLoader, window, pageLoader.load(window.after(), window.limit())));
+	}
+
+	@Test
+	void testOnlyFirstPageIsLoadedInitially() {
+		System.out.println("Running: testOnlyFirstPageIsLoadedInitially");
+
+		assertEquals(10, list.size());
+		assertEquals(1, loads);
+		assertFalse(list.isExhausted());
+		assertTrue(list.isLoadedBy(loader));
+		list.get(0);
+		assertTrue(pending.isEmpty(), "Reading the top of the list should not prefetch");
+	}
+
+	@Test
+	void testReadingNearTheEndFetchesNextPage() {
+		System.out.println("Running: testReadingNearTheEndFetchesNextPage");
+
+		list.get(8);
+		list.get(9);
+		assertEquals(1, pending.size(), "Only one prefetch should be scheduled at a time");
+		runPending();
+		assertEquals(20, list.size());
+		assertEquals(11, list.get(10));
+
+		list.get(19);
+		runPending();
+		assertEquals(25, list.size());
+		assertTrue(list.isExhausted());
+		list.get(24);
+		assertTrue(pending.isEmpty(), "An exhausted list should stop fetching");
+	}
+
+	@Test
+	void testRefreshReloadsTheLoadedRange() {
+		System.out.println("Running: testRefreshReloadsTheLoadedRange");
+
+		list.get(9);
+		runPending();
+		source.remove(Integer.valueOf(3));
+		refresh(list, loader);
+		assertEquals(3, list.get(2), "Nothing should change before the refreshed rows are applied");
+		runPending();
+		assertEquals(20, list.size(), "Refresh should keep the rows the user already scrolled to");
+		assertEquals(4, list.get(2));
+	}
+
+	@Test
+	void testStalePrefetchIsDiscardedAfterReset() {
+		System.out.println("Running: testStalePrefetchIsDiscardedAfterReset");
+
+		list.get(9);
+		PagedObservableList.PageLoader<Integer> reversed = (after, limit) -> source.stream()
+				.sorted((a, b) -> b - a)
+				.filter(v -> after == null || v < after)
+				.limit(limit)
+				.toList();
+		list.applySnapshot(reversed, reversed.load(null, 10), 10);
+		runPending();
+		assertEquals(10, list.size(), "A prefetch for the old ordering must not be applied");
+		assertEquals(25, list.get(0));
+	}
+
+	@Test
+	void testWindowReadForAReplacedLoaderIsDropped() {
+		System.out.println("Running: testWindowReadForAReplacedLoaderIsDropped");
+
+		PagedObservableList.PageLoader<Integer> reversed = (after, limit) -> source.stream()
+				.sorted((a, b) -> b - a)
+				.filter(v -> after == null || v < after)
+				.limit(limit)
+				.toList();
+		show(list, reversed);
+		assertFalse(list.isLoadedBy(reversed), "A snapshot still loading is not shown yet");
+		refresh(list, loader);
+		runPending();
+
+		assertTrue(list.isLoadedBy(reversed));
+		assertEquals(25, list.get(0), "A refresh of the old ordering must not overwrite the new one");
+	}
+
+	@Test
+	void testRefreshOnlyReportsChangedRows() {
+		System.out.println("Running: testRefreshOnlyReportsChangedRows");
+
+		List<int[]> rows = new ArrayList<>();
+		for (int id = 1; id <= 5; id++) {
+			rows.add(new int[] { id, 0 });
+		}
+		PagedObservableList<int[]> versioned = new PagedObservableList<>(10, pending::add, r -> r[0], r -> r[1]);
+		PagedObservableList.PageLoader<int[]> rowLoader = (after, limit) -> rows.stream().map(int[]::clone).toList();
+		show(versioned, rowLoader);
+		runPending();
+		int[] untouched = versioned.get(0);
+		rows.set(2, new int[] { 3, 1 });
+
+		List<String> changes = new ArrayList<>();
+		versioned.addListener((ListChangeListener<int[]>) c -> {
+			while (c.next()) {
+				changes.add((c.wasReplaced() ? "replaced " : c.wasAdded() ? "added " : "removed ") + c.getFrom());
+			}
+		});
+		refresh(versioned, rowLoader);
+		runPending();
+
+		assertEquals(List.of("replaced 2"), changes);
+		assertSame(untouched, versioned.get(0), "Unchanged rows should keep their instances");
+		assertEquals(1, versioned.get(2)[1]);
+	}
+
+	@Test
+	void testScrollingFarKeepsOnlyTheWindowLoaded() {
+		System.out.println("Running: testScrollingFarKeepsOnlyTheWindowLoaded");
+
+		List<Integer> many = IntStream.rangeClosed(1, 200).boxed().toList();
+		PagedObservableList<Integer> windowed = new PagedObservableList<>(10, 3, pending::add, Runnable::run,
+				v -> v, v -> v);
+		show(windowed, (after, limit) -> many.stream().filter(v -> after == null || v > after).limit(limit).toList());
+		runPending();
+		for (int i = 0; i < windowed.size(); i++) {
+			assertEquals(i + 1, windowed.get(i));
+			runPending();
+		}
+
+		assertEquals(200, windowed.size());
+		assertTrue(windowed.isExhausted());
+		assertEquals(3, windowed.loadedPages(), "Pages far from the last row read should be dropped");
+		assertNull(windowed.get(0), "A dropped page reads as empty until it is fetched again");
+		runPending();
+		assertEquals(1, windowed.get(0));
+		assertEquals(3, windowed.loadedPages());
+	}
+
+	@Test
+	void testRefreshReadsOnlyTheWindowFromItsFirstKey() {
+		System.out.println("Running: testRefreshReadsOnlyTheWindowFromItsFirstKey");
+
+		List<Integer> many = new ArrayList<>(IntStream.rangeClosed(1, 200).boxed().toList());
+		List<String> calls = new ArrayList<>();
+		PagedObservableList<Integer> windowed = new PagedObservableList<>(10, 3, pending::add, Runnable::run,
+				v -> v, v -> v);
+		PagedObservableList.PageLoader<Integer> manyLoader = (after, limit) -> {
+			calls.add(after + "/" + limit);
+			return many.stream().filter(v -> after == null || v > after).limit(limit).toList();
+		};
+		show(windowed, manyLoader);
+		runPending();
+		for (int i = 0; i < windowed.size(); i++) {
+			windowed.get(i);
+			runPending();
+		}
+		calls.clear();
+		many.remove(Integer.valueOf(185));
+
+		refresh(windowed, manyLoader);
+		runPending();
+
+		assertEquals(List.of("170/30"), calls, "Refresh should reload the window, not every row from the top");
+		assertEquals(199, windowed.size());
+		assertEquals(186, windowed.get(184));
+		assertEquals(200, windowed.get(198));
+	}
+}
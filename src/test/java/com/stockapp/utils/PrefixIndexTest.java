@@ -0,0 +1,51 @@
+package com.stockapp.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PrefixIndexTest {
+	private record Item(long id, String name) {
+	}
+
+	private final PrefixIndex<Long, Item> index = new PrefixIndex<>(Item::id, Item::name);
+
+	private List<Long> search(String prefix, int limit) {
+		return index.search(prefix, limit).stream().map(Item::id).toList();
+	}
+
+	@Test
+	void testSearchIsCaseAndAccentInsensitive() {
+		System.out.println("Running: testSearchIsCaseAndAccentInsensitive");
+		index.replaceAll(List.of(new Item(1, "Crème Brûlée"), new Item(2, "CREAM"), new Item(3, "Milk")));
+
+		assertEquals(List.of(1L), search("creme", 10));
+		assertEquals(List.of(2L, 1L), search("CRE", 10), "Matches come back in name order");
+		assertEquals(List.of(), search("x", 10));
+	}
+
+	@Test
+	void testSearchStopsAtLimit() {
+		System.out.println("Running: testSearchStopsAtLimit");
+		for (long id = 1; id <= 100; id++) {
+			index.put(new Item(id, "Widget"));
+		}
+		assertEquals(List.of(1L, 2L, 3L), search("wid", 3), "Equal names are ordered by id");
+		assertEquals(100, search("", 1000).size());
+	}
+
+	@Test
+	void testPutRenamesAndRemoveDrops() {
+		System.out.println("Running: testPutRenamesAndRemoveDrops");
+		index.put(new Item(1, "Apple"));
+		index.put(new Item(1, "Banana"));
+		assertEquals(List.of(), search("app", 10), "The old name must not stay indexed");
+		assertEquals(List.of(1L), search("ban", 10));
+		assertEquals(1, index.size());
+
+		index.remove(1L);
+		assertEquals(List.of(), search("ban", 10));
+		assertTrue(index.get(1L).isEmpty());
+	}
+}
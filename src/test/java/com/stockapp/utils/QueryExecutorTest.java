@@ -0,0 +1,148 @@
+package com.stockapp.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+class QueryExecutorTest {
+	private final QueryExecutor db = new QueryExecutor();
+
+	@Test
+	void testMapperResolvesColumnsByLabel() throws SQLException {
+		System.out.println("Running: testMapperResolvesColumnsByLabel");
+
+		RowMapper<String> mapper = RowMapper.of((rs, col) -> rs.getString(col[0]) + ":" + rs.getInt(col[1]), "name",
+				"qty");
+		Optional<String> row = db.queryOne("SELECT 5 AS qty, 'x' AS extra, ?::text AS name", mapper, "abc");
+		assertEquals(Optional.of("abc:5"), row);
+	}
+
+	@Test
+	void testMissingColumnIsReported() {
+		System.out.println("Running: testMissingColumnIsReported");
+
+		assertThrows(SQLException.class, () -> db.queryOne("SELECT 1 AS a", RowMapper.intColumn("b")));
+	}
+
+	@Test
+	void testQueryEachStreamsEveryRow() throws SQLException {
+		System.out.println("Running: testQueryEachStreamsEveryRow");
+
+		List<Integer> seen = new ArrayList<>();
+		db.queryEach("SELECT g AS n FROM generate_series(1, ?) g", RowMapper.intColumn("n"), seen::add, 4);
+		assertEquals(List.of(1, 2, 3, 4), seen);
+	}
+
+	@Test
+	void testTransactionRollsBackOnFailure() throws SQLException {
+		System.out.println("Running: testTransactionRollsBackOnFailure");
+
+		db.execute("CREATE TABLE IF NOT EXISTS qe_tx_test (v int)");
+		try {
+			assertThrows(IllegalStateException.class, () -> db.inTransaction(tx -> {
+				tx.update("INSERT INTO qe_tx_test (v) VALUES (?)", 1);
+				throw new IllegalStateException("boom");
+			}));
+			assertEquals(Optional.of(0L),
+					db.queryOne("SELECT count(*) AS c FROM qe_tx_test", RowMapper.longColumn("c")));
+		} finally {
+			db.execute("DROP TABLE qe_tx_test");
+		}
+	}
+
+	@Test
+	void testBatchUpdateBindsEachItem() throws SQLException {
+		System.out.println("Running: testBatchUpdateBindsEachItem");
+
+		int[] counts = db.inTransaction(tx -> {
+			tx.execute("CREATE TEMP TABLE qe_batch_test (v int) ON COMMIT DROP");
+			int[] result = tx.batchUpdate("INSERT INTO qe_batch_test (v) VALUES (?)", List.of(1, 2, 3),
+					(ps, v) -> ps.setInt(1, v));
+			assertEquals(Optional.of(6L),
+					tx.queryOne("SELECT sum(v) AS s FROM qe_batch_test", RowMapper.longColumn("s")));
+			return result;
+		});
+		assertEquals(3, counts.length);
+	}
+
+	@Test
+	void testStreamFetchesLazilyAndReleasesOnClose() throws SQLException {
+		System.out.println("Running: testStreamFetchesLazilyAndReleasesOnClose");
+
+		int activeBefore = DatabaseUtils.poolStats().active();
+		try (Stream<Integer> rows = db.stream("SELECT g AS n FROM generate_series(1, 1000000) g",
+				RowMapper.intColumn("n"), 50)) {
+			assertEquals(List.of(1, 2, 3), rows.limit(3).toList());
+			assertEquals(activeBefore + 1, DatabaseUtils.poolStats().active(), "The cursor should hold a connection");
+		}
+		assertEquals(activeBefore, DatabaseUtils.poolStats().active(), "Closing the stream should return it");
+	}
+
+	@Test
+	void testRetryableFailuresAreRetried() throws SQLException {
+		System.out.println("Running: testRetryableFailuresAreRetried");
+
+		RetryPolicy retry = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(2));
+		int[] attempts = new int[1];
+		int result = db.inTransaction(retry, tx -> {
+			if (++attempts[0] < 3) {
+				throw new SQLException("deadlock detected", "40P01");
+			}
+			return tx.queryOne("SELECT 7 AS v", RowMapper.intColumn("v")).orElseThrow();
+		});
+		assertEquals(7, result);
+		assertEquals(3, attempts[0]);
+
+		attempts[0] = 0;
+		assertThrows(SQLException.class, () -> db.inTransaction(retry, tx -> {
+			attempts[0]++;
+			throw new SQLException("check violation", "23514");
+		}));
+		assertEquals(1, attempts[0], "Non-retryable failures must not be retried");
+	}
+
+	@Test
+	void testTimeoutStopsSlowQuery() {
+		System.out.println("Running: testTimeoutStopsSlowQuery");
+
+		long start = System.nanoTime();
+		SQLException e = assertThrows(SQLException.class, () -> db.withTimeout(Duration.ofMillis(500))
+				.queryOne("SELECT pg_sleep(10) IS NULL AS slept", RowMapper.intColumn("slept")));
+		assertEquals(QueryCancellation.QUERY_CANCELED, e.getSQLState());
+		assertTrue(Duration.ofNanos(System.nanoTime() - start).toSeconds() < 5, "The query should stop at its timeout");
+	}
+
+	@Test
+	void testCancellationStopsRunningQuery() throws Exception {
+		System.out.println("Running: testCancellationStopsRunningQuery");
+
+		QueryCancellation cancellation = new QueryCancellation();
+		CompletableFuture<Throwable> failure = CompletableFuture.supplyAsync(() -> {
+			try {
+				cancellation.run(() -> db.queryOne("SELECT pg_sleep(10) IS NULL AS slept", RowMapper.intColumn("slept")));
+				return null;
+			} catch (Exception e) {
+				return e;
+			}
+		});
+		Thread.sleep(300);
+		long start = System.nanoTime();
+		cancellation.cancel();
+		Throwable e = failure.get(5, TimeUnit.SECONDS);
+		assertInstanceOf(SQLException.class, e);
+		assertEquals(QueryCancellation.QUERY_CANCELED, ((SQLException) e).getSQLState());
+		assertTrue(Duration.ofNanos(System.nanoTime() - start).toSeconds() < 5);
+
+		assertThrows(SQLException.class, () -> cancellation.run(() -> db.queryOne("SELECT 1 AS v",
+				RowMapper.intColumn("v"))), "Nothing more runs once cancelled");
+		assertEquals(Optional.of(1), db.queryOne("SELECT 1 AS v", RowMapper.intColumn("v")),
+				"Other work is unaffected");
+	}
+}
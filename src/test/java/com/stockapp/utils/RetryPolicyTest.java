@@ -0,0 +1,41 @@
+package com.stockapp.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.sql.SQLException;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class RetryPolicyTest {
+	private final RetryPolicy policy = new RetryPolicy(4, Duration.ofMillis(5), Duration.ofMillis(40));
+
+	@Test
+	void testDeadlockAndSerializationFailuresAreRetryable() {
+		System.out.println("Running: testDeadlockAndSerializationFailuresAreRetryable");
+
+		assertTrue(RetryPolicy.isRetryable(new SQLException("deadlock", "40P01")));
+		assertTrue(RetryPolicy.isRetryable(new RuntimeException(new SQLException("serialization", "40001"))));
+		assertFalse(RetryPolicy.isRetryable(new SQLException("constraint", "23514")));
+		assertFalse(RetryPolicy.isRetryable(new SQLException("no state")));
+	}
+
+	@Test
+	void testBackoffStaysWithinBounds() {
+		System.out.println("Running: testBackoffStaysWithinBounds");
+
+		for (int attempt = 1; attempt <= 10; attempt++) {
+			for (int i = 0; i < 50; i++) {
+				long millis = policy.backoff(attempt).toMillis();
+				assertTrue(millis >= 5 && millis <= 40, "Backoff out of bounds: " + millis);
+			}
+		}
+	}
+
+	@Test
+	void testInvalidPolicyIsRejected() {
+		System.out.println("Running: testInvalidPolicyIsRejected");
+
+		assertThrows(IllegalArgumentException.class, () -> new RetryPolicy(0, Duration.ZERO, Duration.ZERO));
+		assertThrows(IllegalArgumentException.class,
+				() -> new RetryPolicy(3, Duration.ofMillis(10), Duration.ofMillis(1)));
+	}
+}
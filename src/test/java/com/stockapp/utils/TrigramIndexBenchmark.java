@@ -0,0 +1,124 @@
+package com.stockapp.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Not part of the regular test run (no Test suffix). Run with {@code mvn test -Dtest=TrigramIndexBenchmark}.
+ *
+ * <p>The realistic catalog draws brands and words from a generated vocabulary with a skewed (Zipf-like) frequency,
+ * like real product names. The dense catalog reuses a handful of words for a million names, which is the worst
+ * case for any trigram index; it is reported but not asserted on.
+ */
+class TrigramIndexBenchmark {
+	private static final int PRODUCTS = 1_000_000;
+	private static final int QUERIES = 5_000;
+	private static final String[] BRANDS = { "Samsung", "Apple", "Sony", "Philips", "Bosch", "Lenovo", "Canon",
+			"Logitech", "Nestle", "Danone", "Heinz", "Colgate", "Nivea", "Gillette", "Lego", "Hasbro", "Adidas",
+			"Puma", "Nike", "Xiaomi" };
+	private static final String[] NOUNS = { "Galaxy", "Phone", "Tablet", "Charger", "Cable", "Speaker", "Headphones",
+			"Monitor", "Keyboard", "Mouse", "Camera", "Lens", "Kettle", "Toaster", "Blender", "Shampoo", "Toothpaste",
+			"Razor", "Sneakers", "Jacket", "Backpack", "Bottle", "Yogurt", "Cereal", "Ketchup", "Blocks", "Puzzle" };
+	private static final String[] SUFFIXES = { "Pro", "Max", "Mini", "Ultra", "Lite", "Plus", "XL", "Classic" };
+	// Letters weighted by their frequency in English text.
+	private static final String LETTERS = "eeeeeeeeeeeettttttttttaaaaaaaaoooooooiiiiiiinnnnnnnssssssrrrrrrhhhhhhdddd"
+			+ "llllcccuuummmwwffggyyppbbvkjxqz";
+
+	@Test
+	void benchmarkRealisticCatalog() {
+		System.out.println("Running: benchmarkRealisticCatalog");
+		Random random = new Random(42);
+		String[] brands = vocabulary(2_000, random);
+		String[] words = vocabulary(30_000, random);
+		String[] names = new String[PRODUCTS];
+		for (int i = 0; i < PRODUCTS; i++) {
+			names[i] = brands[zipf(brands.length, random)] + " " + words[zipf(words.length, random)] + " "
+					+ words[zipf(words.length, random)] + " " + random.nextInt(1_000);
+		}
+		double p50 = run("realistic", names, random);
+		assertTrue(p50 < 3, "Median fuzzy search should stay within a few milliseconds");
+	}
+
+	@Test
+	void benchmarkDenseCatalog() {
+		System.out.println("Running: benchmarkDenseCatalog");
+		Random random = new Random(42);
+		String[] names = new String[PRODUCTS];
+		for (int i = 0; i < PRODUCTS; i++) {
+			names[i] = BRANDS[random.nextInt(BRANDS.length)] + " " + NOUNS[random.nextInt(NOUNS.length)] + " "
+					+ SUFFIXES[random.nextInt(SUFFIXES.length)] + " " + random.nextInt(100_000);
+		}
+		run("dense", names, random);
+	}
+
+	private static double run(String label, String[] names, Random random) {
+		TrigramIndex<Long> index = new TrigramIndex<>(0.4, id -> (id % 100) / 100.0, 0.15);
+		long buildStart = System.nanoTime();
+		for (int i = 0; i < names.length; i++) {
+			index.put((long) i, names[i]);
+		}
+		System.out.printf("[%s] built index of %d names in %d ms%n", label, names.length,
+				(System.nanoTime() - buildStart) / 1_000_000);
+
+		String[] queries = new String[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			queries[i] = typo(names[random.nextInt(names.length)], random);
+		}
+		for (int i = 0; i < 1_000; i++) {
+			index.search(queries[i], 20);
+		}
+
+		long[] nanos = new long[QUERIES];
+		int found = 0;
+		for (int i = 0; i < QUERIES; i++) {
+			long start = System.nanoTime();
+			found += index.search(queries[i], 20).isEmpty() ? 0 : 1;
+			nanos[i] = System.nanoTime() - start;
+		}
+		Arrays.sort(nanos);
+		double p50 = nanos[QUERIES / 2] / 1e6;
+		System.out.printf("[%s] fuzzy search over %d names: p50 %.3f ms, p99 %.3f ms, max %.3f ms, %d/%d found%n",
+				label, names.length, p50, nanos[QUERIES * 99 / 100] / 1e6, nanos[QUERIES - 1] / 1e6, found,
+				QUERIES);
+		// A swap inside a short word can leave it sharing too few trigrams with anything, so allow the odd miss.
+		assertTrue(found >= QUERIES * 99 / 100, "Misspelled queries should almost always still find something");
+		return p50;
+	}
+
+	private static String[] vocabulary(int size, Random random) {
+		Set<String> words = new LinkedHashSet<>();
+		while (words.size() < size) {
+			StringBuilder word = new StringBuilder();
+			for (int length = 4 + random.nextInt(6); length > 0; length--) {
+				word.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+			}
+			word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+			words.add(word.toString());
+		}
+		return words.toArray(String[]::new);
+	}
+
+	// Rank r is drawn with probability roughly proportional to 1/r.
+	private static int zipf(int n, Random random) {
+		return (int) Math.min(n - 1, Math.floor(Math.exp(random.nextDouble() * Math.log(n + 1)) - 1));
+	}
+
+	// Drops one letter from the first word and swaps two in the second, like a hurried cashier would.
+	private static String typo(String name, Random random) {
+		String[] words = name.split(" ");
+		int drop = 1 + random.nextInt(words[0].length() - 1);
+		words[0] = words[0].substring(0, drop) + words[0].substring(drop + 1);
+		char[] second = words[1].toCharArray();
+		int swap = 1 + random.nextInt(second.length - 2);
+		char c = second[swap];
+		second[swap] = second[swap + 1];
+		second[swap + 1] = c;
+		words[1] = new String(second);
+		return words[0] + " " + words[1] + " " + words[2];
+	}
+}
@@ -0,0 +1,67 @@
+package com.stockapp.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class TrigramIndexTest {
+	private final Map<Long, Double> popularity = new HashMap<>();
+	private final TrigramIndex<Long> index = new TrigramIndex<>(0.4, id -> popularity.getOrDefault(id, 0.0), 0.15);
+
+	private List<Long> search(String query, int limit) {
+		return index.search(query, limit).stream().map(TrigramIndex.Match::key).toList();
+	}
+
+	@Test
+	void testToleratesTypos() {
+		System.out.println("Running: testToleratesTypos");
+		index.put(1L, "Samsung Galaxy S23");
+		index.put(2L, "Apple iPhone 15");
+		index.put(3L, "Samsung Smart TV");
+
+		assertEquals(1L, search("samsng galxy", 10).get(0), "The misspelled name should rank first");
+		assertFalse(search("samsng galxy", 10).contains(2L), "Unrelated names should not match");
+		assertEquals(List.of(2L), search("iphnoe 15", 10));
+		assertEquals(List.of(), search("zzzz", 10));
+	}
+
+	@Test
+	void testPopularityBreaksTies() {
+		System.out.println("Running: testPopularityBreaksTies");
+		index.put(1L, "Blue Pen");
+		index.put(2L, "Blue Pen");
+		popularity.put(2L, 1.0);
+
+		assertEquals(List.of(2L, 1L), search("blue pen", 10));
+		assertEquals(List.of(2L), search("blue pen", 1), "Results are capped at the limit");
+	}
+
+	@Test
+	void testUpdatesReplaceOldText() {
+		System.out.println("Running: testUpdatesReplaceOldText");
+		index.put(1L, "Keyboard");
+		index.put(1L, "Mouse");
+		assertEquals(List.of(), search("keyboard", 10));
+		assertEquals(List.of(1L), search("mouse", 10));
+
+		index.remove(1L);
+		assertEquals(List.of(), search("mouse", 10));
+		assertEquals(0, index.size());
+	}
+
+	@Test
+	void testCompactionKeepsLiveEntries() {
+		System.out.println("Running: testCompactionKeepsLiveEntries");
+		for (long id = 0; id < 3000; id++) {
+			index.put(id, "Item " + id);
+		}
+		for (long id = 0; id < 2900; id++) {
+			index.remove(id);
+		}
+		assertEquals(100, index.size());
+		assertEquals(List.of(2950L), search("item 2950", 1));
+	}
+}
@@ -0,0 +1,108 @@
+package com.stockapp.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class ViewLoaderTest {
+	private final Queue<Runnable> background = new ArrayDeque<>();
+	private final Queue<Runnable> fxThread = new ArrayDeque<>();
+	private final List<Throwable> errors = new ArrayList<>();
+	private final ViewLoader loader = new ViewLoader(background::add, fxThread::add, errors::add);
+
+	private static void runAll(Queue<Runnable> queue) {
+		while (!queue.isEmpty()) {
+			queue.poll().run();
+		}
+	}
+
+	@Test
+	void testResultIsDeliveredOnTheDeliveryExecutor() {
+		System.out.println("Running: testResultIsDeliveredOnTheDeliveryExecutor");
+
+		List<String> shown = new ArrayList<>();
+		loader.request(() -> "rows", shown::add);
+		assertTrue(loader.isBusy());
+		runAll(background);
+		assertTrue(shown.isEmpty(), "Results must wait for the UI thread");
+		runAll(fxThread);
+		assertEquals(List.of("rows"), shown);
+		assertFalse(loader.isBusy());
+	}
+
+	@Test
+	void testOverlappingRequestsAreCoalesced() {
+		System.out.println("Running: testOverlappingRequestsAreCoalesced");
+
+		AtomicInteger queries = new AtomicInteger();
+		List<Integer> shown = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			int request = i;
+			loader.request(() -> {
+				queries.incrementAndGet();
+				return request;
+			}, shown::add);
+		}
+		runAll(background);
+		runAll(fxThread);
+
+		assertEquals(2, queries.get(), "The running load plus one for the latest request");
+		assertEquals(List.of(4), shown, "The superseded first result must be discarded");
+	}
+
+	@Test
+	void testFailuresAndClosedLoader() {
+		System.out.println("Running: testFailuresAndClosedLoader");
+
+		List<String> shown = new ArrayList<>();
+		loader.<String>request(() -> {
+			throw new IllegalStateException("db down");
+		}, shown::add);
+		runAll(background);
+		runAll(fxThread);
+		assertEquals(1, errors.size());
+
+		loader.request(() -> "late", shown::add);
+		runAll(background);
+		loader.close();
+		runAll(fxThread);
+		loader.request(() -> "after close", shown::add);
+		runAll(background);
+		runAll(fxThread);
+		assertTrue(shown.isEmpty(), "Nothing is delivered to a closed view");
+	}
+
+	@Test
+	void testSupersededLoadIsCancelled() {
+		System.out.println("Running: testSupersededLoadIsCancelled");
+
+		List<String> shown = new ArrayList<>();
+		List<Exception> stopped = new ArrayList<>();
+		loader.request(() -> {
+			// What QueryExecutor does before each statement.
+			try (QueryCancellation.Registration statement = QueryCancellation.track(null)) {
+				return "old";
+			} catch (SQLException e) {
+				stopped.add(e);
+				throw e;
+			}
+		}, shown::add);
+		Runnable startFirst = background.poll();
+		loader.request(() -> "new", shown::add);
+		loader.request(() -> "newest", shown::add);
+		assertEquals(1, background.size(), "One cancel for the running load, however many requests follow");
+		background.poll().run();
+		background.add(startFirst);
+		runAll(background);
+		runAll(fxThread);
+		assertEquals(1, stopped.size(), "The running load's next query should fail fast");
+		assertEquals(List.of("newest"), shown);
+		assertTrue(errors.isEmpty(), "The cancelled load's failure is not reported");
+	}
+}